@@ -7,6 +7,7 @@ plugins {
     `jacoco-report-aggregation`
     id("org.springframework.boot") version "3.3.3"
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 checkstyle {
@@ -33,7 +34,7 @@ repositories {
 
 idea {
     module {
-        testSources.from(file("src/integrationTest/java"), file("src/test/java"))
+        testSources.from(file("src/integrationTest/java"), file("src/test/java"), file("src/jmh/java"))
         testResources.from(file("src/integrationTest/resources"), file("src/test/resources"))
     }
 }
@@ -43,6 +44,9 @@ dependencies {
     runtimeOnly("org.postgresql:r2dbc-postgresql")
 
     implementation("org.springframework.boot:spring-boot-starter-actuator")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+    implementation("io.micrometer:micrometer-tracing-bridge-otel")
+    runtimeOnly("io.opentelemetry:opentelemetry-exporter-otlp")
     implementation("org.springframework.boot:spring-boot-starter-data-r2dbc")
     implementation("org.springframework.boot:spring-boot-starter-validation")
     implementation("org.springframework.boot:spring-boot-starter-webflux")
@@ -59,6 +63,13 @@ dependencies {
     annotationProcessor("org.springframework.boot:spring-boot-configuration-processor")
 }
 
+jmh {
+    warmupIterations = 2
+    iterations = 5
+    fork = 1
+    resultFormat = "JSON"
+}
+
 testing {
     suites {
         withType<JvmTestSuite> {
@@ -0,0 +1,100 @@
+package pl.codehouse.restaurant.orders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.test.StepVerifier;
+
+/**
+ * Guards the indexes backing the hot lookups against regressions, by asserting on the plans Postgres chooses for them.
+ * Sequential scans are disabled within the transaction, as on near empty tables the planner would prefer them regardless of indexes.
+ */
+@ActiveProfiles("test")
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@Import(TestcontainersConfiguration.class)
+class QueryPlanIntegrationTest {
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ReactiveTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp(@Autowired Flyway flyway) {
+        flyway.clean();
+        flyway.migrate();
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = '|', value = {
+            "SELECT * FROM request WHERE status IN ('NEW', 'IN_PROGRESS', 'READY_TO_COLLECT') | request_active_status_idx",
+            "SELECT * FROM shelf WHERE menu_item_id = 1000                                    | shelf_menu_item_idx",
+            "SELECT * FROM request_menu_item WHERE request_id = 1000                          | request_menu_item_idx"
+    })
+    @DisplayName("should use index for lookup")
+    void should_UseIndex_When_ExplainingLookup(String query, String expectedIndex) {
+        // when
+        List<String> plan = explain(query);
+
+        // then
+        assertThat(String.join("\n", plan))
+                .contains(expectedIndex)
+                .doesNotContain("Seq Scan");
+    }
+
+    @Test
+    @DisplayName("should not use partial index when looking up collected requests")
+    void should_NotUsePartialIndex_When_ExplainingCollectedRequestsLookup() {
+        // when
+        List<String> plan = explain("SELECT * FROM request WHERE status = 'COLLECTED'");
+
+        // then
+        assertThat(String.join("\n", plan))
+                .doesNotContain("request_active_status_idx");
+    }
+
+    @Test
+    @DisplayName("should reject second shelf row for the same menu item")
+    void should_RejectDuplicatedShelfRow_When_MenuItemAlreadyOnShelf() {
+        // given
+        String insertShelf = """
+                INSERT INTO shelf (item_name, menu_item_id, quantity, version, updated_at)
+                VALUES ('Pizza Margherita', 1000, 0, 0, NOW())
+                """;
+        StepVerifier.create(databaseClient.sql(insertShelf).then())
+                .verifyComplete();
+
+        // when & then
+        StepVerifier.create(databaseClient.sql(insertShelf).then())
+                .expectError(DataIntegrityViolationException.class)
+                .verify();
+    }
+
+    private List<String> explain(String query) {
+        return TransactionalOperator.create(transactionManager)
+                .transactional(databaseClient.sql("SET LOCAL enable_seqscan = off").then()
+                        .thenMany(databaseClient.sql("EXPLAIN " + query)
+                                .map(row -> row.get(0, String.class))
+                                .all()))
+                .collectList()
+                .block();
+    }
+}
@@ -0,0 +1,168 @@
+package pl.codehouse.restaurant.orders.outbox;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.testcontainers.containers.KafkaContainer;
+import pl.codehouse.restaurant.orders.PipelineContext;
+import pl.codehouse.restaurant.orders.TestcontainersConfiguration;
+import pl.codehouse.restaurant.orders.request.ShelfEventDto;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = "app.outbox.poll-interval=PT1H")
+@ExtendWith(SpringExtension.class)
+@Import(TestcontainersConfiguration.class)
+class OutboxRelayIntegrationTest {
+    private static final String TOPIC = "outbox-relay-test-events";
+    private static final int REQUEST_ID = 1000;
+    private static final String TRACE_PARENT = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01";
+
+    @Autowired
+    private OutboxWriter outboxWriter;
+
+    @Autowired
+    private OutboxRelay sut;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Consumer<String, String> testConsumer;
+
+    @BeforeEach
+    void setUp(@Autowired Flyway flyway, @Autowired KafkaContainer kafkaContainer) {
+        flyway.clean();
+        flyway.migrate();
+
+        Map<String, Object> testConsumerProps = KafkaTestUtils.consumerProps(
+                kafkaContainer.getBootstrapServers(),
+                "test-outbox-relay-group",
+                "false"
+        );
+        testConsumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        testConsumer = new DefaultKafkaConsumerFactory<String, String>(testConsumerProps)
+                .createConsumer("test-outbox-relay__clientId");
+        testConsumer.subscribe(Collections.singletonList(TOPIC));
+    }
+
+    @AfterEach
+    void tearDown() {
+        testConsumer.close();
+    }
+
+    @Test
+    @DisplayName("should send written outbox messages to Kafka and remove them from the outbox")
+    void should_SendOutboxMessagesAndRemoveThem_When_Relaying() throws Exception {
+        // given
+        StepVerifier.create(outboxWriter.write(new GenericMessage<>(ShelfEventDto.newRequestEvent(REQUEST_ID), Map.of(KafkaHeaders.TOPIC, TOPIC))))
+                .verifyComplete();
+
+        // when
+        StepVerifier.create(sut.relay())
+                .expectNext(1L)
+                .verifyComplete();
+
+        // then
+        ConsumerRecord<String, String> singleRecord = KafkaTestUtils.getSingleRecord(testConsumer, TOPIC);
+        Map<String, Object> eventPayload = objectMapper.readValue(singleRecord.value(), new TypeReference<>() {});
+        assertThat(eventPayload)
+                .containsEntry("eventType", "NEW_REQUEST")
+                .containsEntry("requestId", REQUEST_ID);
+
+        StepVerifier.create(databaseClient.sql("SELECT COUNT(*) AS pending FROM outbox").map(row -> row.get("pending", Long.class)).one())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should send pipeline context of the request as Kafka headers")
+    void should_SendPipelineContextAsHeaders_When_MessageWrittenWithinPipeline() {
+        // given
+        Instant createdAt = Instant.parse("2024-09-01T12:00:00Z");
+        StepVerifier.create(outboxWriter.write(new GenericMessage<>(ShelfEventDto.newRequestEvent(REQUEST_ID), Map.of(KafkaHeaders.TOPIC, TOPIC)))
+                        .contextWrite(new PipelineContext(createdAt, TRACE_PARENT).bind()))
+                .verifyComplete();
+
+        // when
+        StepVerifier.create(sut.relay())
+                .expectNext(1L)
+                .verifyComplete();
+
+        // then
+        ConsumerRecord<String, String> singleRecord = KafkaTestUtils.getSingleRecord(testConsumer, TOPIC);
+        assertThat(new String(singleRecord.headers().lastHeader(PipelineContext.CREATED_AT_HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo(Long.toString(createdAt.toEpochMilli()));
+        assertThat(new String(singleRecord.headers().lastHeader(PipelineContext.TRACE_PARENT_HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo(TRACE_PARENT);
+    }
+
+    @Test
+    @DisplayName("should relay messages of the same key in the order they were written, all within a single lane")
+    void should_RelayMessagesOfSameKeyInOrder_When_WrittenSeparately() {
+        // given
+        String messageKey = String.valueOf(REQUEST_ID);
+        Flux.range(0, 3)
+                .concatMap(idx -> outboxWriter.write(new GenericMessage<>(ShelfEventDto.newRequestEvent(REQUEST_ID + idx),
+                        Map.of(KafkaHeaders.TOPIC, TOPIC, KafkaHeaders.KEY, messageKey))))
+                .then()
+                .block();
+        StepVerifier.create(databaseClient.sql("SELECT COUNT(DISTINCT lane) AS lanes FROM outbox").map(row -> row.get("lanes", Long.class)).one())
+                .expectNext(1L)
+                .verifyComplete();
+
+        // when
+        StepVerifier.create(sut.relay())
+                .expectNext(3L)
+                .verifyComplete();
+
+        // then
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        KafkaTestUtils.getRecords(testConsumer, Duration.ofSeconds(10), 3).forEach(records::add);
+        assertThat(records)
+                .extracting(ConsumerRecord::key)
+                .containsOnly(messageKey);
+        assertThat(records)
+                .extracting(record -> readPayload(record).get("requestId"))
+                .containsExactly(REQUEST_ID, REQUEST_ID + 1, REQUEST_ID + 2);
+    }
+
+    private Map<String, Object> readPayload(ConsumerRecord<String, String> consumerRecord) {
+        try {
+            return objectMapper.readValue(consumerRecord.value(), new TypeReference<>() {});
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to read consumer record payload", e);
+        }
+    }
+}
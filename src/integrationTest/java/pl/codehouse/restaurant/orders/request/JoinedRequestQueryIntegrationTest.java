@@ -0,0 +1,127 @@
+package pl.codehouse.restaurant.orders.request;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.aMenuItemEntityOne;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.aMenuItemEntityTwo;
+import static pl.codehouse.restaurant.orders.request.RequestEntityBuilder.CUSTOMER_ID;
+import static pl.codehouse.restaurant.orders.request.RequestEntityBuilder.REQUEST_ID;
+import static pl.codehouse.restaurant.orders.request.RequestEntityBuilder.aRequestEntity;
+import static pl.codehouse.restaurant.orders.request.RequestMenuItemBuilder.aRequestMenuItemOne;
+import static pl.codehouse.restaurant.orders.request.RequestMenuItemBuilder.aRequestMenuItemTwo;
+import static pl.codehouse.restaurant.orders.request.RequestMenuItemEntityBuilder.aRequestMenuItemEntityOne;
+import static pl.codehouse.restaurant.orders.request.RequestMenuItemEntityBuilder.aRequestMenuItemEntityTwo;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.codehouse.restaurant.orders.TestcontainersConfiguration;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ActiveProfiles("test")
+@SpringBootTest
+@ExtendWith(SpringExtension.class)
+@Import(TestcontainersConfiguration.class)
+class JoinedRequestQueryIntegrationTest {
+    private static final int REQUEST_WITHOUT_ITEMS_ID = REQUEST_ID + 10;
+    private static final int UNKNOWN_REQUEST_ID = REQUEST_ID + 99;
+
+    @Autowired
+    private JoinedRequestQuery sut;
+
+    @Autowired
+    private MenuCatalog menuCatalog;
+
+    private RequestServiceImpl repositoryReadPath;
+
+    @BeforeEach
+    void setUp(
+            @Autowired Flyway flyway,
+            @Autowired R2dbcEntityTemplate entityTemplate,
+            @Autowired RequestRepository requestRepository,
+            @Autowired RequestMenuItemRepository requestMenuItemRepository,
+            @Autowired UpdatePrepairedMenuItemsCommand updatePrepairedMenuItemsCommand,
+            @Autowired UpdatePreparedMenuItemsBatchCommand updatePreparedMenuItemsBatchCommand,
+            @Autowired RequestStatusChangeListener requestStatusChangeListener
+    ) {
+        flyway.clean();
+        flyway.migrate();
+        Flux.<Record>just(
+                        aMenuItemEntityOne().build(),
+                        aMenuItemEntityTwo().build(),
+                        aRequestEntity().build(),
+                        aRequestEntity(REQUEST_WITHOUT_ITEMS_ID).build(),
+                        aRequestMenuItemEntityOne().build(),
+                        aRequestMenuItemEntityTwo().withQuantity(2).build())
+                .concatMap(entityTemplate::insert)
+                .then()
+                .block();
+        menuCatalog.invalidate();
+
+        repositoryReadPath = new RequestServiceImpl(
+                requestRepository,
+                requestMenuItemRepository,
+                menuCatalog,
+                updatePrepairedMenuItemsCommand,
+                updatePreparedMenuItemsBatchCommand,
+                requestStatusChangeListener,
+                sut,
+                new RequestQueryProperties(RequestQueryProperties.ReadStrategy.REPOSITORY, true, 200));
+    }
+
+    @Test
+    @DisplayName("should assemble request with its menu items the same as the repository read path")
+    void should_AssembleRequestWithMenuItems_When_RequestHasMenuItems() {
+        // given
+        RequestDto expected = repositoryReadPath.findById(REQUEST_ID).block();
+
+        // when & then
+        StepVerifier.create(sut.findById(REQUEST_ID))
+                .assertNext(result -> {
+                    assertThat(result)
+                            .hasFieldOrPropertyWithValue("customerId", CUSTOMER_ID)
+                            .hasFieldOrPropertyWithValue("totalItemsCount", 3);
+                    assertThat(result.menuItems())
+                            .containsExactlyInAnyOrder(aRequestMenuItemOne().build(), aRequestMenuItemTwo().withQuantity(2).build());
+                    assertThat(result)
+                            .usingRecursiveComparison()
+                            .ignoringCollectionOrder()
+                            .isEqualTo(expected);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should assemble request without menu items the same as the repository read path")
+    void should_AssembleRequestWithoutMenuItems_When_RequestHasNoMenuItems() {
+        // given
+        RequestDto expected = repositoryReadPath.findById(REQUEST_WITHOUT_ITEMS_ID).block();
+
+        // when & then
+        StepVerifier.create(sut.findById(REQUEST_WITHOUT_ITEMS_ID))
+                .assertNext(result -> {
+                    assertThat(result.requestId()).isEqualTo(REQUEST_WITHOUT_ITEMS_ID);
+                    assertThat(result.menuItems()).isEmpty();
+                    assertThat(result).isEqualTo(expected);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should return empty result for unknown request the same as the repository read path")
+    void should_ReturnEmpty_When_RequestIsUnknown() {
+        // when & then
+        StepVerifier.create(repositoryReadPath.findById(UNKNOWN_REQUEST_ID))
+                .verifyComplete();
+        StepVerifier.create(sut.findById(UNKNOWN_REQUEST_ID))
+                .verifyComplete();
+    }
+}
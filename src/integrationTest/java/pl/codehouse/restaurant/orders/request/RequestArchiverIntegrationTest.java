@@ -0,0 +1,110 @@
+package pl.codehouse.restaurant.orders.request;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Period;
+import java.util.List;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.codehouse.restaurant.orders.TestcontainersConfiguration;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "app.request.archive.interval=PT1H",
+        "app.request.archive.retention=P7D",
+        "app.request.archive.batch-size=1"
+})
+@ExtendWith(SpringExtension.class)
+@Import(TestcontainersConfiguration.class)
+class RequestArchiverIntegrationTest {
+    private static final int MENU_ITEM_ID = 1000;
+    private static final int OLD_COLLECTED_REQUEST_ID = 2000;
+    private static final int OLDER_COLLECTED_REQUEST_ID = 2001;
+    private static final int RECENT_COLLECTED_REQUEST_ID = 2002;
+    private static final int OLD_ACTIVE_REQUEST_ID = 2003;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Autowired
+    private RequestArchiver sut;
+
+    @BeforeEach
+    void setUp(@Autowired Flyway flyway) {
+        flyway.clean();
+        flyway.migrate();
+
+        databaseClient.sql("INSERT INTO menu_item (id, name, price, volume, packing, immediate) VALUES (:id, 'Pizza Margherita', 1000, 1, false, false)")
+                .bind("id", MENU_ITEM_ID)
+                .then()
+                .then(insertRequest(OLD_COLLECTED_REQUEST_ID, RequestStatus.COLLECTED, Period.ofDays(10)))
+                .then(insertRequest(OLDER_COLLECTED_REQUEST_ID, RequestStatus.COLLECTED, Period.ofMonths(2)))
+                .then(insertRequest(RECENT_COLLECTED_REQUEST_ID, RequestStatus.COLLECTED, Period.ofDays(1)))
+                .then(insertRequest(OLD_ACTIVE_REQUEST_ID, RequestStatus.READY_TO_COLLECT, Period.ofDays(10)))
+                .block();
+    }
+
+    @Test
+    @DisplayName("should move collected requests past the retention with their menu items to the archive")
+    void should_MoveCollectedRequestsToArchive_When_PastRetention() {
+        // when & then
+        StepVerifier.create(sut.archive())
+                .expectNext(2L)
+                .verifyComplete();
+
+        assertThat(selectIds("SELECT id FROM request ORDER BY id"))
+                .containsExactly(RECENT_COLLECTED_REQUEST_ID, OLD_ACTIVE_REQUEST_ID);
+        assertThat(selectIds("SELECT request_id AS id FROM request_menu_item ORDER BY request_id"))
+                .containsExactly(RECENT_COLLECTED_REQUEST_ID, OLD_ACTIVE_REQUEST_ID);
+        assertThat(selectIds("SELECT id FROM request_archive ORDER BY id"))
+                .containsExactly(OLD_COLLECTED_REQUEST_ID, OLDER_COLLECTED_REQUEST_ID);
+        assertThat(selectIds("SELECT request_id AS id FROM request_menu_item_archive ORDER BY request_id"))
+                .containsExactly(OLD_COLLECTED_REQUEST_ID, OLDER_COLLECTED_REQUEST_ID);
+    }
+
+    @Test
+    @DisplayName("should archive nothing when run again after all collected requests were archived")
+    void should_ArchiveNothing_When_NothingLeftToArchive() {
+        // given
+        StepVerifier.create(sut.archive())
+                .expectNext(2L)
+                .verifyComplete();
+
+        // when & then
+        StepVerifier.create(sut.archive())
+                .expectNext(0L)
+                .verifyComplete();
+    }
+
+    private Mono<Void> insertRequest(int requestId, RequestStatus status, Period age) {
+        return databaseClient.sql("INSERT INTO request (id, customer_id, status, created_at) VALUES (:id, 1001, :status, NOW() - CAST(:age AS INTERVAL))")
+                .bind("id", requestId)
+                .bind("status", status.name())
+                .bind("age", age.toString())
+                .then()
+                .then(databaseClient.sql("INSERT INTO request_menu_item (request_id, menu_item_id, quantity, prepared, immediate) "
+                                + "VALUES (:requestId, :menuItemId, 1, 1, false)")
+                        .bind("requestId", requestId)
+                        .bind("menuItemId", MENU_ITEM_ID)
+                        .then());
+    }
+
+    private List<Integer> selectIds(String query) {
+        return databaseClient.sql(query)
+                .map(row -> row.get("id", Integer.class))
+                .all()
+                .collectList()
+                .block();
+    }
+}
@@ -20,6 +20,7 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
@@ -33,6 +34,7 @@ import java.util.Map;
 
 import static io.restassured.module.webtestclient.RestAssuredWebTestClient.given;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasKey;
@@ -60,6 +62,7 @@ class RequestResourceIntegrationTest {
     private static final int REQUEST_2_ID = REQUEST_ID + 10;
     private static final int REQUEST_2_MENU_ITEM_1_ID = REQUEST_MENU_ITEM_1_ID + 10;
     private static final int REQUEST_2_MENU_ITEM_2_ID = REQUEST_MENU_ITEM_1_ID + 11;
+    private static final int READY_REQUEST_ID = REQUEST_ID + 20;
 
     @Autowired
     private WebTestClient webTestClient;
@@ -67,6 +70,12 @@ class RequestResourceIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MenuCatalog menuCatalog;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
     private Consumer<Integer, String> consumerServiceTest;
 
     @BeforeEach
@@ -90,11 +99,13 @@ class RequestResourceIntegrationTest {
                 .flatMap(entityTemplate::insert)
         .collectList()
         .block();
+        menuCatalog.invalidate();
 
         // Insert requests
         Flux.just(
                 aRequestEntity().build(),
-                aRequestEntity(REQUEST_2_ID).withStatus(RequestStatus.NEW).build()
+                aRequestEntity(REQUEST_2_ID).withStatus(RequestStatus.NEW).build(),
+                aRequestEntity(READY_REQUEST_ID).withStatus(RequestStatus.READY_TO_COLLECT).build()
         )
                 .doOnNext(r -> System.out.println("Insert Request: " + r))
                 .flatMap(entityTemplate::insert)
@@ -168,6 +179,95 @@ class RequestResourceIntegrationTest {
                 .containsEntry("quantity", -1);
     }
 
+    @Test
+    @DisplayName("should create valid requests of a batch and report rejected ones")
+    void should_create_valid_requests_and_reject_unknown_menu_items_when_creating_batch() {
+        // Given
+        List<Map<String, Object>> payload = List.of(
+                Map.of("customerId", "1010", "menuItems", List.of(Map.of("menuId", MENU_ITEM_1_ID, "quantity", 1))),
+                Map.of("customerId", "1011", "menuItems", List.of(Map.of("menuId", 9999, "quantity", 1))),
+                Map.of("customerId", "1012", "menuItems", List.of(
+                        Map.of("menuId", MENU_ITEM_1_ID, "quantity", 1),
+                        Map.of("menuId", MENU_ITEM_3_ID, "quantity", 2)
+                ))
+        );
+
+        // When & Then
+        given()
+                .accept(ContentType.JSON)
+                .contentType(ContentType.JSON)
+                .body(payload)
+
+                .when()
+                .post("/request/batch")
+
+                .then()
+                .log().all(true)
+                .statusCode(200)
+                .contentType(ContentType.JSON)
+                .body("size()", is(3))
+                .body("status", contains("CREATED", "REJECTED", "CREATED"))
+                .body("index", contains(0, 1, 2))
+                .body("[0].request.customerId", equalTo(1010))
+                .body("[0].request.menuItems.size()", is(1))
+                .body("[1].error", equalTo("Not all request components were found"))
+                .body("[2].request.customerId", equalTo(1012))
+                .body("[2].request.menuItems.size()", is(2))
+        ;
+    }
+
+    @Test
+    @DisplayName("should mark request ready to collect as collected")
+    void should_collect_request_when_request_is_ready_to_collect() {
+        // When & Then
+        given()
+                .contentType(ContentType.JSON)
+
+                .when()
+                .post("/request/{requestId}/collect", READY_REQUEST_ID)
+
+                .then()
+                .log().all(true)
+                .statusCode(204);
+
+        String status = databaseClient.sql("SELECT status FROM request WHERE id = :requestId")
+                .bind("requestId", READY_REQUEST_ID)
+                .map(row -> row.get("status", String.class))
+                .one()
+                .block();
+        assertThat(status).isEqualTo(RequestStatus.COLLECTED.name());
+    }
+
+    @Test
+    @DisplayName("should reject collecting request which is not ready to collect")
+    void should_reject_collecting_request_when_request_is_not_ready_to_collect() {
+        // When & Then
+        given()
+                .contentType(ContentType.JSON)
+
+                .when()
+                .post("/request/{requestId}/collect", REQUEST_2_ID)
+
+                .then()
+                .log().all(true)
+                .statusCode(409);
+    }
+
+    @Test
+    @DisplayName("should return not found when collecting unknown request")
+    void should_return_not_found_when_collecting_unknown_request() {
+        // When & Then
+        given()
+                .contentType(ContentType.JSON)
+
+                .when()
+                .post("/request/{requestId}/collect", 9999)
+
+                .then()
+                .log().all(true)
+                .statusCode(404);
+    }
+
     @Test
     @DisplayName("should return available menu items")
     void should_return_available_menu_items() {
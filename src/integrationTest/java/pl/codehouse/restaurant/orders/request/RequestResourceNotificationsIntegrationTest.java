@@ -61,7 +61,8 @@ import static pl.codehouse.restaurant.orders.request.RequestMenuItemEntityBuilde
 import static pl.codehouse.restaurant.orders.request.RequestMenuItemEntityBuilder.aRequestMenuItems;
 
 @ActiveProfiles("test")
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// every status change is asserted as a separate event, so coalescing is disabled
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "app.request-status.stream.coalesce-window=PT0S")
 @AutoConfigureWebTestClient(timeout = "PT10S")
 @ExtendWith(SpringExtension.class)
 @Import(TestcontainersConfiguration.class)
@@ -80,6 +81,9 @@ class RequestResourceNotificationsIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MenuCatalog menuCatalog;
+
     @Value("${app.kafka.request-status.topic.topic-name}")
     private String requestStatusTopicName;
 
@@ -111,6 +115,7 @@ class RequestResourceNotificationsIntegrationTest {
                 .flatMap(entityTemplate::insert)
                 .collectList()
                 .block();
+        menuCatalog.invalidate();
 
         // Insert requests
         Flux.just(
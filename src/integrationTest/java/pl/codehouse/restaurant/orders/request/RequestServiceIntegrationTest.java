@@ -6,7 +6,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.Collections;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.assertj.core.api.Assertions;
 import org.flywaydb.core.Flyway;
 import org.jetbrains.annotations.NotNull;
@@ -21,20 +23,25 @@ import org.springframework.context.annotation.Import;
 import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.r2dbc.core.DatabaseClient;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.testcontainers.containers.KafkaContainer;
+import pl.codehouse.restaurant.orders.PipelineContext;
 import pl.codehouse.restaurant.orders.TestcontainersConfiguration;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_1_ID;
 import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_2_ID;
 import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_3_ID;
 import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_4_ID;
@@ -64,10 +71,16 @@ class RequestServiceIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private MenuCatalog menuCatalog;
+
     @Autowired
     private RequestService sut;
 
-    private Consumer<Integer, String> consumerServiceTest;
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private Consumer<String, String> consumerServiceTest;
 
     @BeforeEach
     void setUp(
@@ -87,13 +100,15 @@ class RequestServiceIntegrationTest {
                 .flatMap(entityTemplate::insert)
                 .collectList()
                 .block();
+        menuCatalog.invalidate();
 
         Map<String, Object> testConsumerProps = KafkaTestUtils.consumerProps(
                 kafkaContainer.getBootstrapServers(),
                 "test-request-status-consumer__clientId",
                 "false"
         );
-        consumerServiceTest = new DefaultKafkaConsumerFactory<Integer, String>(testConsumerProps)
+        testConsumerProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerServiceTest = new DefaultKafkaConsumerFactory<String, String>(testConsumerProps)
                 .createConsumer("test-consumer__clientId");
         consumerServiceTest.subscribe(Collections.singletonList("request-status-changes"));
     }
@@ -165,7 +180,7 @@ class RequestServiceIntegrationTest {
                 })
                 .verifyComplete();
 
-        ConsumerRecord<Integer, String> singleRecord = KafkaTestUtils.getSingleRecord(consumerServiceTest, "request-status-changes");
+        ConsumerRecord<String, String> singleRecord = KafkaTestUtils.getSingleRecord(consumerServiceTest, "request-status-changes");
 
         assertThat(singleRecord.value()).isNotNull();
         Map<String, Object> eventPayload = getEventPayload(singleRecord);
@@ -175,12 +190,80 @@ class RequestServiceIntegrationTest {
                 .containsEntry("requestStatus", "IN_PROGRESS");
     }
 
+    @Test
+    @DisplayName("should update request with packed values for all given Request Menu Items at once")
+    void shouldUpdateRequestWithPackedValuesForAllGivenMenuItemsAtOnce() {
+        // given
+        UpdatePreparedMenuItemsBatchDto batchDto = new UpdatePreparedMenuItemsBatchDto(REQUEST_ID, Map.of(MENU_ITEM_1_ID, 1, MENU_ITEM_2_ID, 2));
+
+        // when
+        Mono<RequestDto> response = sut.updateCollectedItemsInBatch(batchDto);
+
+        // then
+        StepVerifier.create(response)
+                .assertNext(result -> {
+                    assertThat(result)
+                            .hasFieldOrPropertyWithValue("preparedItemsCount", 3)
+                            .hasFieldOrPropertyWithValue("totalItemsCount", 3)
+                            .hasFieldOrPropertyWithValue("status", RequestStatus.READY_TO_COLLECT);
+                    assertThat(result.menuItems())
+                            .hasSize(2)
+                            .contains(
+                                    aRequestMenuItemOne().withPrepared(1).build(),
+                                    aRequestMenuItemTwo()
+                                            .withQuantity(2)
+                                            .withPrepared(2)
+                                            .build());
+                })
+                .verifyComplete();
+
+        ConsumerRecord<String, String> singleRecord = KafkaTestUtils.getSingleRecord(consumerServiceTest, "request-status-changes");
+
+        assertThat(singleRecord.key()).isEqualTo(String.valueOf(REQUEST_ID));
+        assertThat(singleRecord.value()).isNotNull();
+        Map<String, Object> eventPayload = getEventPayload(singleRecord);
+        assertThat(eventPayload)
+                .containsEntry("requestId", REQUEST_ID)
+                .containsEntry("packingStatus", "READY_TO_COLLECT")
+                .containsEntry("requestStatus", "READY_TO_COLLECT");
+
+        Boolean readyAtSet = databaseClient.sql("SELECT ready_at IS NOT NULL AS ready_at_set FROM request WHERE id = :requestId")
+                .bind("requestId", REQUEST_ID)
+                .map(row -> row.get("ready_at_set", Boolean.class))
+                .one()
+                .block();
+        assertThat(readyAtSet).isTrue();
+
+        OffsetDateTime createdAt = databaseClient.sql("SELECT CAST(created_at AS TIMESTAMPTZ) AS created_at FROM request WHERE id = :requestId")
+                .bind("requestId", REQUEST_ID)
+                .map(row -> row.get("created_at", OffsetDateTime.class))
+                .one()
+                .block();
+        assertThat(new String(singleRecord.headers().lastHeader(PipelineContext.CREATED_AT_HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo(Long.toString(createdAt.toInstant().toEpochMilli()));
+    }
+
     private static void assertExpectedRequestIds(RequestDto requestDto, LinkedList<Integer> expectedRecords, AtomicInteger totalItemsCount) {
         assertThat(requestDto.requestId()).isIn(expectedRecords);
         expectedRecords.removeIf(r -> r.equals(requestDto.requestId()));
         totalItemsCount.getAndIncrement();
     }
 
+    @Test
+    @DisplayName("should find active requests still missing the menu item in the order they were created")
+    void should_FindWaitingRequestsInCreationOrder_When_MenuItemIsMissing() {
+        // when & then
+        StepVerifier.create(sut.findRequestIdsWaitingFor(MENU_ITEM_1_ID).collectList())
+                .expectNext(List.of(REQUEST_ID, REQUEST_3_ID))
+                .verifyComplete();
+        StepVerifier.create(sut.findRequestIdsWaitingFor(MENU_ITEM_2_ID).collectList())
+                .expectNext(List.of(REQUEST_ID))
+                .verifyComplete();
+        StepVerifier.create(sut.findRequestIdsWaitingFor(MENU_ITEM_3_ID).collectList())
+                .expectNext(List.of())
+                .verifyComplete();
+    }
+
     private static @NotNull Flux<Record> getInitRequests() {
         return Flux.just(
                 // request entity One
@@ -247,7 +330,7 @@ class RequestServiceIntegrationTest {
         );
     }
 
-    private Map<String, Object> getEventPayload(ConsumerRecord<Integer, String> singleRecord) {
+    private Map<String, Object> getEventPayload(ConsumerRecord<String, String> singleRecord) {
         try {
             return objectMapper.readValue(singleRecord.value(), new TypeReference<Map<String, Object>>() {});
         } catch (JsonProcessingException e) {
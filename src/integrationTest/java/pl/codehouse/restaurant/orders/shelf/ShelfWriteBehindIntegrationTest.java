@@ -0,0 +1,74 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_1_ID;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_1_NAME;
+import static pl.codehouse.restaurant.orders.shelf.ShelfBuilder.aShelf;
+
+import java.time.LocalDateTime;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import pl.codehouse.restaurant.orders.TestcontainersConfiguration;
+import reactor.test.StepVerifier;
+
+@ActiveProfiles("test")
+@SpringBootTest(properties = {
+        "app.shelf.integration.type=memory",
+        "app.shelf.write-behind.flush-interval=PT1H"
+})
+@ExtendWith(SpringExtension.class)
+@Import(TestcontainersConfiguration.class)
+class ShelfWriteBehindIntegrationTest {
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.parse("2024-10-03T10:15:30");
+
+    @Autowired
+    private ShelfWriteBehind sut;
+
+    @Autowired
+    private ShelfRepository shelfRepository;
+
+    private ShelfEntity storedShelf;
+
+    @BeforeEach
+    void setUp(@Autowired Flyway flyway, @Autowired R2dbcEntityTemplate entityTemplate) {
+        flyway.clean();
+        flyway.migrate();
+        storedShelf = entityTemplate.insert(aShelf()
+                        .newShelfEntity()
+                        .withMenuId(MENU_ITEM_1_ID)
+                        .withName(MENU_ITEM_1_NAME)
+                        .withItemsQuantity(10)
+                        .withUpdatedAt(UPDATED_AT)
+                        .build())
+                .block();
+    }
+
+    @Test
+    @DisplayName("should write only the latest pending shelf change with a single flush")
+    void should_WriteLatestPendingShelfChange_When_Flushing() {
+        // given
+        sut.enqueue(storedShelf.withQuantityUpdate(8, UPDATED_AT.plusSeconds(1)));
+        sut.enqueue(storedShelf.withQuantityUpdate(8, UPDATED_AT.plusSeconds(1)).withQuantityUpdate(5, UPDATED_AT.plusSeconds(2)));
+
+        // when
+        StepVerifier.create(sut.flush())
+                .verifyComplete();
+
+        // then
+        StepVerifier.create(shelfRepository.findById(storedShelf.id()))
+                .assertNext(shelf -> assertThat(shelf)
+                        .hasFieldOrPropertyWithValue("quantity", 5)
+                        .hasFieldOrPropertyWithValue("version", storedShelf.version() + 2)
+                        .hasFieldOrPropertyWithValue("updatedAt", UPDATED_AT.plusSeconds(2)))
+                .verifyComplete();
+    }
+}
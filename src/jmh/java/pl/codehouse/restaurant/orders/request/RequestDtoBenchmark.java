@@ -0,0 +1,73 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures how assembling a {@link RequestDto} scales with the number of request lines.
+ * The stream scan baseline is the assembly used before menu items were indexed by ID, it looks up every line
+ * by scanning the menu item list. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RequestDtoBenchmark {
+
+    private static final int REQUEST_ID = 1;
+    private static final int CUSTOMER_ID = 1001;
+
+    @Param({"1", "10", "100", "1000"})
+    private int orderSize;
+
+    private RequestEntity request;
+    private List<RequestMenuItemEntity> requestMenuItems;
+    private List<MenuItemEntity> menuItems;
+    private Map<Integer, MenuItemEntity> menuItemsById;
+
+    @Setup
+    public void setUp() {
+        request = new RequestEntity(REQUEST_ID, CUSTOMER_ID, RequestStatus.NEW);
+        menuItems = IntStream.rangeClosed(1, orderSize)
+                .mapToObj(id -> new MenuItemEntity(id, "Menu Item " + id, 1000, 1, false, id % 2 == 0))
+                .toList();
+        // request lines are in reverse catalog order, so the stream scan baseline walks half of the menu items per line on average
+        requestMenuItems = IntStream.rangeClosed(1, orderSize)
+                .mapToObj(id -> new RequestMenuItemEntity(id, REQUEST_ID, orderSize - id + 1, 2, 1, false))
+                .toList();
+        menuItemsById = RequestDto.indexById(menuItems);
+    }
+
+    @Benchmark
+    public RequestDto streamScanBaseline() {
+        List<RequestMenuItem> menuItemList = requestMenuItems.stream()
+                .map(item -> {
+                    MenuItemEntity menuItem = menuItems.stream()
+                            .filter(entity -> entity.id() == item.menuItemId())
+                            .findFirst()
+                            .orElseThrow(() -> new IllegalStateException("Menu item not found"));
+                    return RequestMenuItem.from(item.id(), menuItem.id(), menuItem.name(), item.quantity(), item.prepared(), item.immediate());
+                })
+                .toList();
+        return RequestDto.of(request.id(), request.customerId(), menuItemList);
+    }
+
+    @Benchmark
+    public RequestDto fromMenuItemList() {
+        return RequestDto.from(request, requestMenuItems, menuItems);
+    }
+
+    @Benchmark
+    public RequestDto fromMenuItemIndex() {
+        return RequestDto.from(request, requestMenuItems, menuItemsById);
+    }
+}
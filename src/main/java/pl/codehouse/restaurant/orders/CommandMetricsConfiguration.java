@@ -0,0 +1,47 @@
+package pl.codehouse.restaurant.orders;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+/**
+ * Configuration instrumenting all {@link Command} beans with metrics.
+ * The advisor is an infrastructure bean, so it is applied by the same auto proxy creator as the transaction advice,
+ * and commands keep being injectable by their concrete classes.
+ */
+@Configuration
+public class CommandMetricsConfiguration {
+
+    /**
+     * Provides the advisor recording metrics of every command execution.
+     * It is ordered first, so the recorded latency includes committing the transaction of transactional commands.
+     *
+     * @param meterRegistryProvider Provider of the registry the metrics are recorded in.
+     * @return The advisor applying the {@link CommandMetricsInterceptor} to {@link Command#execute(Context)}.
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor commandMetricsAdvisor(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new CommandExecutePointcut(), new CommandMetricsInterceptor(meterRegistryProvider));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    private static final class CommandExecutePointcut extends StaticMethodMatcherPointcut {
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            return Command.class.isAssignableFrom(targetClass)
+                    && method.getName().equals("execute")
+                    && method.getParameterCount() == 1
+                    && method.getParameterTypes()[0] == Context.class;
+        }
+    }
+}
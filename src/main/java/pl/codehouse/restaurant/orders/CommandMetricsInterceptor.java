@@ -0,0 +1,90 @@
+package pl.codehouse.restaurant.orders;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Mono;
+
+/**
+ * Records metrics of every {@link Command#execute(Context)} call.
+ * The execution latency is recorded, from subscription until the command completes, in the {@code command.execution} timer,
+ * tagged with the command and the outcome taken from the {@link ExecutionResult}: {@code success}, {@code failure},
+ * {@code error} when the command signalled an error, {@code empty} when it completed without a result,
+ * or {@code cancelled} when the subscriber cancelled the execution before it completed.
+ * The number of executions in progress is exposed per command by the {@code command.in.flight} gauge.
+ */
+class CommandMetricsInterceptor implements MethodInterceptor {
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final ObjectProvider<MeterRegistry> meterRegistryProvider;
+    private final Map<String, AtomicInteger> inFlightExecutions = new ConcurrentHashMap<>();
+
+    CommandMetricsInterceptor(ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        this.meterRegistryProvider = meterRegistryProvider;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Object result = invocation.proceed();
+        if (!(result instanceof Mono<?> execution)) {
+            return result;
+        }
+        MeterRegistry meterRegistry = meterRegistryProvider.getIfAvailable();
+        if (meterRegistry == null) {
+            return result;
+        }
+        String command = ClassUtils.getUserClass(invocation.getThis()).getSimpleName();
+        AtomicInteger inFlight = inFlight(meterRegistry, command);
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            AtomicReference<String> outcome = new AtomicReference<>("cancelled");
+            inFlight.incrementAndGet();
+            return execution
+                    .doOnSuccess(executionResult -> outcome.set(outcome(executionResult)))
+                    .doOnError(error -> outcome.set("error"))
+                    .doFinally(signalType -> {
+                        sample.stop(executionTimer(meterRegistry, command, outcome.get()));
+                        inFlight.decrementAndGet();
+                    });
+        });
+    }
+
+    private AtomicInteger inFlight(MeterRegistry meterRegistry, String command) {
+        return inFlightExecutions.computeIfAbsent(command, name -> {
+            AtomicInteger inFlight = new AtomicInteger();
+            Gauge.builder("command.in.flight", inFlight, AtomicInteger::get)
+                    .description("Number of command executions in progress")
+                    .tag("command", name)
+                    .register(meterRegistry);
+            return inFlight;
+        });
+    }
+
+    private static String outcome(Object executionResult) {
+        if (executionResult == null) {
+            return "empty";
+        }
+        if (executionResult instanceof ExecutionResult<?> result && result.isFailure()) {
+            return "failure";
+        }
+        return "success";
+    }
+
+    private static Timer executionTimer(MeterRegistry meterRegistry, String command, String outcome) {
+        return Timer.builder("command.execution")
+                .description("Time until a command execution completes")
+                .tag("command", command)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,64 @@
+package pl.codehouse.restaurant.orders;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.messaging.Message;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Sends Kafka messages reactively.
+ * The returned Mono completes once the broker acknowledged the message and fails when the send failed,
+ * so callers can tie the publication to their reactive chain. Send latency and failures are recorded per topic.
+ */
+@Component
+public class KafkaMessageSender {
+    private static final Logger logger = LoggerFactory.getLogger(KafkaMessageSender.class);
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Creates a new KafkaMessageSender.
+     *
+     * @param meterRegistry The registry the send metrics are recorded in.
+     */
+    public KafkaMessageSender(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Sends the message with the given template.
+     *
+     * @param kafkaTemplate The template used to send the message.
+     * @param message The message to send, with the topic set in its headers.
+     * @param <V> The type of the message payload.
+     * @return A Mono emitting the send result once the broker acknowledged the message.
+     */
+    public <V> Mono<SendResult<String, V>> send(KafkaTemplate<String, V> kafkaTemplate, Message<V> message) {
+        String topic = String.valueOf(message.getHeaders().get(KafkaHeaders.TOPIC));
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            return Mono.fromFuture(() -> kafkaTemplate.send(message))
+                    .doOnSuccess(result -> sample.stop(sendLatency(topic, "success")))
+                    .doOnError(error -> {
+                        sample.stop(sendLatency(topic, "failure"));
+                        meterRegistry.counter("kafka.send.failures", "topic", topic, "exception", error.getClass().getSimpleName()).increment();
+                        logger.error("Error while sending message {} to topic: {}", message.getPayload(), topic, error);
+                    });
+        });
+    }
+
+    private Timer sendLatency(String topic, String result) {
+        return Timer.builder("kafka.send.latency")
+                .description("Time until a sent message is acknowledged by the broker")
+                .tag("topic", topic)
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
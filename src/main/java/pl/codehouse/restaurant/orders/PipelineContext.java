@@ -0,0 +1,98 @@
+package pl.codehouse.restaurant.orders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+/**
+ * Context of a request travelling through the ordering pipeline, propagated from hop to hop in Kafka headers.
+ * It carries the time the request entered the pipeline, which every hop measures its latency from, and the W3C
+ * trace parent of the span which started it, so the spans of all hops join a single trace.
+ * Within a hop the context is kept in the Reactor context, from where the {@code OutboxWriter} copies it
+ * into the headers of every message written on behalf of the request.
+ *
+ * @param createdAt The time the request entered the pipeline.
+ * @param traceParent The W3C trace parent of the span which started the pipeline, may be null.
+ */
+public record PipelineContext(Instant createdAt, String traceParent) {
+    public static final String CREATED_AT_HEADER = "x-request-created-at";
+    public static final String TRACE_PARENT_HEADER = "traceparent";
+
+    private static final Class<PipelineContext> CONTEXT_KEY = PipelineContext.class;
+
+    /**
+     * Reads the pipeline context from message headers.
+     * Header values are accepted either as mapped strings or as raw bytes, as delivered for headers without type information.
+     *
+     * @param headers The headers of the received message.
+     * @return The pipeline context, empty when the message carries no creation time.
+     */
+    public static Optional<PipelineContext> fromHeaders(Map<String, ?> headers) {
+        String createdAt = headerValue(headers, CREATED_AT_HEADER);
+        if (createdAt == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new PipelineContext(Instant.ofEpochMilli(Long.parseLong(createdAt)), headerValue(headers, TRACE_PARENT_HEADER)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the pipeline context stored in the Reactor context.
+     *
+     * @param contextView The Reactor context of the current subscriber.
+     * @return The pipeline context, empty when the subscriber does not act on behalf of a request in the pipeline.
+     */
+    public static Optional<PipelineContext> current(ContextView contextView) {
+        return contextView.getOrEmpty(CONTEXT_KEY);
+    }
+
+    /**
+     * Returns a Reactor context modifier, which marks the request as entered the pipeline at the given time.
+     * The trace parent of a pipeline context already present is kept.
+     *
+     * @param createdAt The time the request entered the pipeline.
+     * @return A function to pass to {@code contextWrite}.
+     */
+    public static Function<Context, Context> startedAt(Instant createdAt) {
+        return context -> context.put(CONTEXT_KEY, new PipelineContext(createdAt, current(context).map(PipelineContext::traceParent).orElse(null)));
+    }
+
+    /**
+     * Returns a Reactor context modifier, which stores this pipeline context.
+     *
+     * @return A function to pass to {@code contextWrite}.
+     */
+    public Function<Context, Context> bind() {
+        return context -> context.put(CONTEXT_KEY, this);
+    }
+
+    /**
+     * Converts the pipeline context to message headers, the creation time is written in epoch milliseconds.
+     *
+     * @return The headers to attach to a message sent on behalf of the request.
+     */
+    public Map<String, String> toHeaders() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(CREATED_AT_HEADER, Long.toString(createdAt.toEpochMilli()));
+        if (traceParent != null) {
+            headers.put(TRACE_PARENT_HEADER, traceParent);
+        }
+        return headers;
+    }
+
+    private static String headerValue(Map<String, ?> headers, String name) {
+        Object value = headers.get(name);
+        if (value instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package pl.codehouse.restaurant.orders;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records the latency of requests travelling through the ordering pipeline.
+ * Every hop records the time since the request entered the pipeline in the {@code request.pipeline.stage} timer,
+ * tagged with the stage reached, and the time until the request became ready to collect is recorded
+ * in the {@code request.pipeline.time.to.ready} timer.
+ */
+@Component
+public class PipelineMetrics {
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private final MeterRegistry meterRegistry;
+    private final Clock clock;
+    private final Timer timeToReady;
+
+    /**
+     * Creates a new PipelineMetrics.
+     *
+     * @param meterRegistry The registry the timers are registered in.
+     * @param clock The clock providing the time a stage was reached.
+     */
+    public PipelineMetrics(MeterRegistry meterRegistry, Clock clock) {
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+        this.timeToReady = Timer.builder("request.pipeline.time.to.ready")
+                .description("Time from creating a request until it became ready to collect")
+                .publishPercentileHistogram()
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records that the request reached the given stage of the pipeline.
+     *
+     * @param stage The stage reached, for example the hop which received the request.
+     * @param context The pipeline context of the request.
+     */
+    public void recordStage(String stage, PipelineContext context) {
+        Timer.builder("request.pipeline.stage")
+                .description("Time from creating a request until it reached a stage of the pipeline")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .publishPercentiles(PERCENTILES)
+                .register(meterRegistry)
+                .record(elapsed(context));
+    }
+
+    /**
+     * Records that the request became ready to collect.
+     *
+     * @param context The pipeline context of the request.
+     */
+    public void recordReady(PipelineContext context) {
+        timeToReady.record(elapsed(context));
+    }
+
+    private Duration elapsed(PipelineContext context) {
+        Duration elapsed = Duration.between(context.createdAt(), clock.instant());
+        return elapsed.isNegative() ? Duration.ZERO : elapsed;
+    }
+}
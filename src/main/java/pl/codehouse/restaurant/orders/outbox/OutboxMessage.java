@@ -0,0 +1,25 @@
+package pl.codehouse.restaurant.orders.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message stored in the outbox table, waiting to be relayed to Kafka.
+ *
+ * @param id The ID of the outbox row, defining the relay order.
+ * @param topic The Kafka topic the message is sent to.
+ * @param messageKey The Kafka message key, may be null.
+ * @param payloadType The fully qualified class name of the payload.
+ * @param payload The JSON serialized payload.
+ * @param headers The JSON serialized headers sent with the message, may be null.
+ * @param createdAt The time the message was written.
+ */
+record OutboxMessage(
+        long id,
+        String topic,
+        String messageKey,
+        String payloadType,
+        String payload,
+        String headers,
+        LocalDateTime createdAt
+) {
+}
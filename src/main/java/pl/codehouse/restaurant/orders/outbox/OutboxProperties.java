@@ -0,0 +1,42 @@
+package pl.codehouse.restaurant.orders.outbox;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for relaying outbox messages to Kafka.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.outbox".</p>
+ *
+ * @param pollInterval The delay between polls of the outbox table.
+ * @param batchSize The maximum number of outbox messages relayed within a single transaction.
+ * @param lanes The number of lanes messages are spread over by key, every lane is relayed by a single instance at a time.
+ */
+@ConfigurationProperties("app.outbox")
+record OutboxProperties(
+        @DefaultValue("PT0.1S") Duration pollInterval,
+        @DefaultValue("200") int batchSize,
+        @DefaultValue("8") int lanes
+) {
+
+    /**
+     * Creates a new OutboxProperties instance.
+     *
+     * @param pollInterval The delay between polls, must be positive.
+     * @param batchSize The maximum number of messages relayed at once, must be greater than zero.
+     * @param lanes The number of lanes, must be greater than zero.
+     */
+    OutboxProperties {
+        if (pollInterval == null || pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("Outbox poll interval must be positive");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Outbox batch size must be greater than zero");
+        }
+        if (lanes <= 0) {
+            throw new IllegalArgumentException("Outbox lanes must be greater than zero");
+        }
+    }
+}
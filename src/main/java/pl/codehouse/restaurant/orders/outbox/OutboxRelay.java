@@ -0,0 +1,177 @@
+package pl.codehouse.restaurant.orders.outbox;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import pl.codehouse.restaurant.orders.KafkaMessageSender;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Relays outbox messages to Kafka.
+ * The outbox is polled in batches per lane, the lanes are relayed in parallel. A lane is locked with a transaction-level
+ * advisory lock, so it is relayed by a single instance at a time, and a lane locked by another instance is skipped.
+ * Messages of a lane are sent in the order they were written, and deleted once Kafka acknowledged all of them
+ * within the same transaction. A failed send rolls the batch back and it is relayed with the next poll.
+ * As messages of the same key always share a lane, and the idempotent producer keeps the order of sends per partition,
+ * messages of the same key reach Kafka in the order they were written. After a failed send, the batch is sent again,
+ * so a message may be delivered more than once, and its later messages may be delivered before it was delivered again.
+ * The headers stored with a message, such as the pipeline context of the request, are sent as Kafka headers.
+ */
+@Component
+class OutboxRelay {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final TypeReference<Map<String, String>> HEADERS_TYPE = new TypeReference<>() {
+    };
+    private static final int LANE_LOCK_ID = "outbox".hashCode();
+    private static final String LOCK_LANE_QUERY = "SELECT pg_try_advisory_xact_lock(:lockId, :lane) AS locked";
+    private static final String SELECT_BATCH_QUERY = """
+            SELECT id, topic, message_key, payload_type, payload::TEXT AS payload, headers::TEXT AS headers, created_at
+            FROM outbox
+            WHERE lane = :lane
+            ORDER BY id
+            LIMIT :batchSize
+            """;
+    private static final String DELETE_BATCH_QUERY = "DELETE FROM outbox WHERE id = ANY (CAST(:ids AS BIGINT[]))";
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final KafkaMessageSender messageSender;
+    private final ObjectMapper objectMapper;
+    private final OutboxProperties properties;
+    private final Clock clock;
+    private final AtomicBoolean relaying = new AtomicBoolean();
+    private final Counter relayedMessages;
+    private final Timer relayDelay;
+
+    OutboxRelay(DatabaseClient databaseClient,
+                ReactiveTransactionManager transactionManager,
+                KafkaTemplate<String, Object> kafkaTemplate,
+                KafkaMessageSender messageSender,
+                ObjectMapper objectMapper,
+                OutboxProperties properties,
+                Clock clock,
+                MeterRegistry meterRegistry) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.kafkaTemplate = kafkaTemplate;
+        this.messageSender = messageSender;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.clock = clock;
+        this.relayedMessages = meterRegistry.counter("outbox.relayed");
+        this.relayDelay = Timer.builder("outbox.relay.delay")
+                .description("Time from writing an outbox message until Kafka acknowledged it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Relays all pending outbox messages, unless a relay is already running.
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval}")
+    void scheduledRelay() {
+        relay().subscribe(null, error -> logger.error("Failed to relay outbox messages to Kafka", error));
+    }
+
+    Mono<Long> relay() {
+        return Mono.defer(() -> {
+            if (!relaying.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            return Flux.range(0, properties.lanes())
+                    .flatMap(this::relayLane, properties.lanes())
+                    .reduce(0L, Long::sum)
+                    .doFinally(signalType -> relaying.set(false));
+        });
+    }
+
+    private Mono<Long> relayLane(int lane) {
+        return relayBatch(lane)
+                .expand(relayed -> relayed == properties.batchSize() ? relayBatch(lane) : Mono.empty())
+                .reduce(0L, Long::sum);
+    }
+
+    private Mono<Long> relayBatch(int lane) {
+        return databaseClient.sql(LOCK_LANE_QUERY)
+                .bind("lockId", LANE_LOCK_ID)
+                .bind("lane", lane)
+                .map((row, metadata) -> Boolean.TRUE.equals(row.get("locked", Boolean.class)))
+                .one()
+                .flatMap(locked -> locked ? relayLockedBatch(lane) : Mono.just(0L))
+                .as(transactionalOperator::transactional);
+    }
+
+    private Mono<Long> relayLockedBatch(int lane) {
+        return databaseClient.sql(SELECT_BATCH_QUERY)
+                .bind("lane", lane)
+                .bind("batchSize", properties.batchSize())
+                .map((row, metadata) -> new OutboxMessage(
+                        row.get("id", Long.class),
+                        row.get("topic", String.class),
+                        row.get("message_key", String.class),
+                        row.get("payload_type", String.class),
+                        row.get("payload", String.class),
+                        row.get("headers", String.class),
+                        row.get("created_at", LocalDateTime.class)))
+                .all()
+                .flatMapSequential(this::send)
+                .collectList()
+                .flatMap(this::delete);
+    }
+
+    private Mono<Long> send(OutboxMessage outboxMessage) {
+        return Mono.fromCallable(() -> toKafkaMessage(outboxMessage))
+                .flatMap(message -> messageSender.send(kafkaTemplate, message))
+                .doOnSuccess(result -> relayDelay.record(Duration.between(outboxMessage.createdAt(), LocalDateTime.now(clock))))
+                .thenReturn(outboxMessage.id());
+    }
+
+    private Message<Object> toKafkaMessage(OutboxMessage outboxMessage) throws Exception {
+        Object payload = objectMapper.readValue(outboxMessage.payload(), Class.forName(outboxMessage.payloadType()));
+        MessageBuilder<Object> message = MessageBuilder.withPayload(payload);
+        if (outboxMessage.headers() != null) {
+            message.copyHeaders(objectMapper.readValue(outboxMessage.headers(), HEADERS_TYPE));
+        }
+        message.setHeader(KafkaHeaders.TOPIC, outboxMessage.topic());
+        if (outboxMessage.messageKey() != null) {
+            message.setHeader(KafkaHeaders.KEY, outboxMessage.messageKey());
+        }
+        return message.build();
+    }
+
+    private Mono<Long> delete(List<Long> relayedIds) {
+        if (relayedIds.isEmpty()) {
+            return Mono.just(0L);
+        }
+        return databaseClient.sql(DELETE_BATCH_QUERY)
+                .bind("ids", relayedIds.toArray(Long[]::new))
+                .fetch()
+                .rowsUpdated()
+                .doOnNext(deleted -> {
+                    logger.debug("Relayed {} outbox messages to Kafka", deleted);
+                    relayedMessages.increment(deleted);
+                });
+    }
+}
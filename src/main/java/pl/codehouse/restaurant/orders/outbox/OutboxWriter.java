@@ -0,0 +1,151 @@
+package pl.codehouse.restaurant.orders.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.handler.TracingObservationHandler;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import pl.codehouse.restaurant.orders.PipelineContext;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+/**
+ * Writes Kafka messages to the outbox table.
+ * The message is inserted with the connection of the current R2DBC transaction, so it is committed or rolled back
+ * together with the business changes, and is sent to Kafka later by the {@link OutboxRelay}.
+ * Every message is assigned to the lane of its key, so messages of the same key are relayed in the order they were written,
+ * messages without a key are spread over the lanes evenly.
+ * The {@link PipelineContext} of the subscriber is stored as the message headers. A message written outside of a pipeline
+ * starts one at the time it was written, with the trace parent of the current span, when tracing is enabled.
+ */
+@Component
+public class OutboxWriter {
+    private static final Logger logger = LoggerFactory.getLogger(OutboxWriter.class);
+
+    private static final String INSERT_QUERY = """
+            INSERT INTO outbox (topic, message_key, lane, payload_type, payload, headers, created_at)
+            SELECT u.topic, u.message_key, u.lane, u.payload_type, CAST(u.payload AS JSONB), CAST(:headers AS JSONB), :createdAt
+            FROM UNNEST(CAST(:topics AS TEXT[]), CAST(:messageKeys AS TEXT[]), CAST(:lanes AS INT[]),
+                        CAST(:payloadTypes AS TEXT[]), CAST(:payloads AS TEXT[]))
+                     WITH ORDINALITY AS u(topic, message_key, lane, payload_type, payload, idx)
+            ORDER BY u.idx
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final ObjectProvider<Tracer> tracerProvider;
+    private final OutboxProperties properties;
+    private final AtomicInteger nextUnkeyedLane = new AtomicInteger();
+
+    /**
+     * Creates a new OutboxWriter.
+     *
+     * @param databaseClient The database client bound to the current R2DBC transaction.
+     * @param objectMapper The mapper serializing message payloads.
+     * @param clock The clock providing the time a message was written.
+     * @param tracerProvider The tracer providing the current span, when tracing is enabled.
+     * @param properties The outbox properties providing the number of lanes.
+     */
+    OutboxWriter(DatabaseClient databaseClient,
+                 ObjectMapper objectMapper,
+                 Clock clock,
+                 ObjectProvider<Tracer> tracerProvider,
+                 OutboxProperties properties) {
+        this.databaseClient = databaseClient;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.tracerProvider = tracerProvider;
+        this.properties = properties;
+    }
+
+    /**
+     * Writes the message to the outbox.
+     *
+     * @param message The message to relay, with the topic and optionally the key set in its headers.
+     * @return A Mono completing once the message was written.
+     */
+    public Mono<Void> write(Message<?> message) {
+        return writeAll(List.of(message));
+    }
+
+    /**
+     * Writes several messages to the outbox with a single statement, they are relayed in the given order.
+     *
+     * @param messages The messages to relay, with the topic and optionally the key set in their headers.
+     * @return A Mono completing once all messages were written.
+     */
+    public Mono<Void> writeAll(List<? extends Message<?>> messages) {
+        if (messages.isEmpty()) {
+            return Mono.empty();
+        }
+        logger.debug("Writing {} messages to the outbox", messages.size());
+
+        return Mono.deferContextual(contextView -> Mono.fromCallable(() -> {
+                    String[] topics = new String[messages.size()];
+                    String[] messageKeys = new String[messages.size()];
+                    Integer[] lanes = new Integer[messages.size()];
+                    String[] payloadTypes = new String[messages.size()];
+                    String[] payloads = new String[messages.size()];
+                    for (int idx = 0; idx < messages.size(); idx++) {
+                        Message<?> message = messages.get(idx);
+                        Object messageKey = message.getHeaders().get(KafkaHeaders.KEY);
+                        topics[idx] = message.getHeaders().get(KafkaHeaders.TOPIC, String.class);
+                        messageKeys[idx] = messageKey == null ? null : messageKey.toString();
+                        lanes[idx] = laneOf(messageKeys[idx]);
+                        payloadTypes[idx] = message.getPayload().getClass().getName();
+                        payloads[idx] = objectMapper.writeValueAsString(message.getPayload());
+                    }
+                    return databaseClient.sql(INSERT_QUERY)
+                            .bind("topics", topics)
+                            .bind("messageKeys", messageKeys)
+                            .bind("lanes", lanes)
+                            .bind("payloadTypes", payloadTypes)
+                            .bind("payloads", payloads)
+                            .bind("headers", objectMapper.writeValueAsString(pipelineContext(contextView).toHeaders()))
+                            .bind("createdAt", LocalDateTime.now(clock));
+                }))
+                .flatMap(insert -> insert.fetch().rowsUpdated())
+                .then();
+    }
+
+    private int laneOf(String messageKey) {
+        int hash = messageKey == null ? nextUnkeyedLane.getAndIncrement() : messageKey.hashCode();
+        return Math.floorMod(hash, properties.lanes());
+    }
+
+    private PipelineContext pipelineContext(ContextView contextView) {
+        PipelineContext current = PipelineContext.current(contextView).orElse(null);
+        if (current != null && current.traceParent() != null) {
+            return current;
+        }
+        Instant createdAt = current == null ? clock.instant() : current.createdAt();
+        return new PipelineContext(createdAt, traceParent(contextView));
+    }
+
+    private String traceParent(ContextView contextView) {
+        Span span = contextView.<Observation>getOrEmpty(ObservationThreadLocalAccessor.KEY)
+                .map(observation -> observation.getContextView().<TracingObservationHandler.TracingContext>get(TracingObservationHandler.TracingContext.class))
+                .map(TracingObservationHandler.TracingContext::getSpan)
+                .orElseGet(() -> tracerProvider.getIfAvailable(() -> Tracer.NOOP).currentSpan());
+        if (span == null || span.isNoop()) {
+            return null;
+        }
+        TraceContext traceContext = span.context();
+        return "00-%s-%s-%s".formatted(traceContext.traceId(), traceContext.spanId(), Boolean.TRUE.equals(traceContext.sampled()) ? "01" : "00");
+    }
+}
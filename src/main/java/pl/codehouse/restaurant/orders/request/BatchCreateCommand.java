@@ -0,0 +1,141 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import pl.codehouse.restaurant.orders.Command;
+import pl.codehouse.restaurant.orders.Context;
+import pl.codehouse.restaurant.orders.ExecutionResult;
+import pl.codehouse.restaurant.orders.outbox.OutboxWriter;
+import pl.codehouse.restaurant.orders.shelf.PackingStatus;
+import pl.codehouse.restaurant.orders.shelf.ShelfKafkaProperties;
+import reactor.core.publisher.Mono;
+
+/**
+ * Command for creating many requests at once.
+ * Menu items of all requests are validated against a single catalog lookup, requests referring to unknown menu items
+ * are rejected individually, while the remaining ones are inserted with multi-row statements in one transaction
+ * and their events are written to the outbox with a single write per topic.
+ */
+@Component
+class BatchCreateCommand implements Command<List<RequestPayload>, List<RequestCreationResult>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchCreateCommand.class);
+    private static final String MISSING_ORDER_COMPONENTS_ERROR_MESSAGE = "Not all request components were found";
+
+    private final MenuCatalog menuCatalog;
+    private final RequestWriter requestWriter;
+    private final OutboxWriter outboxWriter;
+    private final ShelfKafkaProperties shelfKafkaProperties;
+    private final RequestStatusChangePublisher requestStatusChangePublisher;
+    private final RequestBatchProperties properties;
+
+    BatchCreateCommand(
+            MenuCatalog menuCatalog,
+            RequestWriter requestWriter,
+            OutboxWriter outboxWriter,
+            ShelfKafkaProperties shelfKafkaProperties,
+            RequestStatusChangePublisher requestStatusChangePublisher,
+            RequestBatchProperties properties
+    ) {
+        this.menuCatalog = menuCatalog;
+        this.requestWriter = requestWriter;
+        this.outboxWriter = outboxWriter;
+        this.shelfKafkaProperties = shelfKafkaProperties;
+        this.requestStatusChangePublisher = requestStatusChangePublisher;
+        this.properties = properties;
+    }
+
+    @Override
+    @Transactional
+    public Mono<ExecutionResult<List<RequestCreationResult>>> execute(Context<List<RequestPayload>> context) {
+        List<RequestPayload> payloads = context.request();
+        logger.info("Executing the creation of {} new Requests", payloads.size());
+        if (payloads.size() > properties.maxSize()) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most %d requests can be created at once".formatted(properties.maxSize())));
+        }
+
+        List<Integer> menuItemIds = payloads.stream()
+                .flatMap(payload -> payload.menuItems().stream())
+                .map(RequestedMenuItemsPayload::menuId)
+                .distinct()
+                .toList();
+        return menuCatalog.findAllById(menuItemIds)
+                .collectMap(MenuItemEntity::id, Function.identity())
+                .flatMap(menuItems -> createValidRequests(payloads, menuItems))
+                .map(ExecutionResult::success);
+    }
+
+    private Mono<List<RequestCreationResult>> createValidRequests(List<RequestPayload> payloads, Map<Integer, MenuItemEntity> menuItems) {
+        RequestCreationResult[] results = new RequestCreationResult[payloads.size()];
+        List<Integer> accepted = new ArrayList<>(payloads.size());
+        for (int idx = 0; idx < payloads.size(); idx++) {
+            if (isValid(payloads.get(idx), menuItems)) {
+                accepted.add(idx);
+            } else {
+                logger.warn("Rejecting request at position {}, not all requested menu items are known", idx);
+                results[idx] = RequestCreationResult.rejected(idx, MISSING_ORDER_COMPONENTS_ERROR_MESSAGE);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return Mono.just(Arrays.asList(results));
+        }
+
+        List<Integer> customerIds = accepted.stream().map(idx -> payloads.get(idx).customerId()).toList();
+        return requestWriter.insertRequests(customerIds)
+                .flatMap(requests -> {
+                    List<RequestMenuItemEntity> requestMenuItems = IntStream.range(0, requests.size())
+                            .boxed()
+                            .flatMap(position -> payloads.get(accepted.get(position)).menuItems().stream()
+                                    .map(requestedMenuItem -> RequestMenuItemEntity.newInstance(
+                                            requests.get(position).id(),
+                                            requestedMenuItem.menuId(),
+                                            requestedMenuItem.quantity(),
+                                            menuItems.get(requestedMenuItem.menuId()).immediate())))
+                            .toList();
+                    return requestWriter.insertMenuItems(requestMenuItems)
+                            .collect(Collectors.groupingBy(RequestMenuItemEntity::requestId))
+                            .flatMap(savedMenuItems -> emitNewRequestEvents(requests).thenReturn(savedMenuItems))
+                            .map(savedMenuItems -> {
+                                for (int position = 0; position < requests.size(); position++) {
+                                    RequestEntity request = requests.get(position);
+                                    List<RequestMenuItemEntity> requestItems = savedMenuItems.getOrDefault(request.id(), List.of());
+                                    int idx = accepted.get(position);
+                                    results[idx] = RequestCreationResult.created(idx, RequestDto.from(request, requestItems, menuItems));
+                                }
+                                return Arrays.asList(results);
+                            });
+                });
+    }
+
+    private Mono<Void> emitNewRequestEvents(List<RequestEntity> requests) {
+        logger.info("Emit {} events for {} new requests", EventType.NEW_REQUEST, requests.size());
+        List<Message<ShelfEventDto>> shelfMessages = requests.stream()
+                .<Message<ShelfEventDto>>map(request -> new GenericMessage<>(ShelfEventDto.newRequestEvent(request.id()), shelfKafkaProperties.kafkaHeaders()))
+                .toList();
+        List<RequestStatusChangeMessage> statusChanges = requests.stream()
+                .map(request -> new RequestStatusChangeMessage(request.id(), request.status(), PackingStatus.NOT_STARTED))
+                .toList();
+        return outboxWriter.writeAll(shelfMessages)
+                .then(requestStatusChangePublisher.publishChanges(statusChanges));
+    }
+
+    private static boolean isValid(RequestPayload payload, Map<Integer, MenuItemEntity> menuItems) {
+        List<Integer> requestedMenuItemIds = payload.menuItems().stream().map(RequestedMenuItemsPayload::menuId).toList();
+        return requestedMenuItemIds.stream().distinct().count() == requestedMenuItemIds.size()
+                && menuItems.keySet().containsAll(requestedMenuItemIds);
+    }
+}
@@ -0,0 +1,60 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.web.server.ResponseStatusException;
+import pl.codehouse.restaurant.orders.Command;
+import pl.codehouse.restaurant.orders.Context;
+import pl.codehouse.restaurant.orders.ExecutionResult;
+import pl.codehouse.restaurant.orders.exceptions.ResourceNotFoundException;
+import pl.codehouse.restaurant.orders.exceptions.ResourceType;
+import reactor.core.publisher.Mono;
+
+/**
+ * Command for handing a request over to the customer.
+ * Only requests ready to collect can be collected, collecting an already collected request has no effect.
+ * The collection is announced once its transaction committed.
+ */
+@Component
+class CollectCommand implements Command<Integer, Integer> {
+    private static final Logger logger = LoggerFactory.getLogger(CollectCommand.class);
+
+    private final RequestCollector requestCollector;
+    private final RequestRepository requestRepository;
+    private final TransactionalOperator transactionalOperator;
+
+    CollectCommand(RequestCollector requestCollector, RequestRepository requestRepository, ReactiveTransactionManager transactionManager) {
+        this.requestCollector = requestCollector;
+        this.requestRepository = requestRepository;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+    }
+
+    @Override
+    public Mono<ExecutionResult<Integer>> execute(Context<Integer> context) {
+        int requestId = context.request();
+        logger.info("Collecting request: {}", requestId);
+        return requestCollector.collect(List.of(requestId))
+                .flatMap(collectedIds -> collectedIds.isEmpty() ? verifyAlreadyCollected(requestId).thenReturn(collectedIds) : Mono.just(collectedIds))
+                .as(transactionalOperator::transactional)
+                .doOnNext(requestCollector::announceCollected)
+                .thenReturn(ExecutionResult.success(requestId));
+    }
+
+    private Mono<Integer> verifyAlreadyCollected(int requestId) {
+        return requestRepository.findById(requestId)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Request %d not found".formatted(requestId), ResourceType.ORDER)))
+                .flatMap(request -> {
+                    if (request.status() != RequestStatus.COLLECTED) {
+                        logger.warn("Request {} cannot be collected in status {}", requestId, request.status());
+                        return Mono.error(new ResponseStatusException(HttpStatus.CONFLICT,
+                                "Request %d is not ready to collect".formatted(requestId)));
+                    }
+                    return Mono.just(requestId);
+                });
+    }
+}
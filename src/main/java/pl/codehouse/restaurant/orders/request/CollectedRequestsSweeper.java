@@ -0,0 +1,61 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+/**
+ * Collects requests which are ready to collect, but were not collected within the configured time after becoming ready.
+ * Requests are collected in batches, each within its own transaction, so the set of active requests never keeps
+ * requests the customer is not going to pick up. The collection of a batch is announced once its transaction committed.
+ */
+@Component
+class CollectedRequestsSweeper {
+    private static final Logger logger = LoggerFactory.getLogger(CollectedRequestsSweeper.class);
+
+    private final RequestCollector requestCollector;
+    private final TransactionalOperator transactionalOperator;
+    private final RequestCollectProperties properties;
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    CollectedRequestsSweeper(RequestCollector requestCollector,
+                             ReactiveTransactionManager transactionManager,
+                             RequestCollectProperties properties) {
+        this.requestCollector = requestCollector;
+        this.transactionalOperator = TransactionalOperator.create(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * Collects all overdue requests, unless a sweep is already running.
+     */
+    @Scheduled(fixedDelayString = "${app.request.collect.sweep-interval}", initialDelayString = "${app.request.collect.sweep-interval}")
+    void scheduledSweep() {
+        sweep().subscribe(null, error -> logger.error("Failed to collect overdue requests", error));
+    }
+
+    Mono<Long> sweep() {
+        return Mono.defer(() -> {
+            if (!sweeping.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            return collectBatch()
+                    .expand(collected -> collected == properties.batchSize() ? collectBatch() : Mono.empty())
+                    .reduce(0L, Long::sum)
+                    .doOnNext(collected -> logger.info("Collected {} requests ready to collect for longer than {}", collected, properties.collectAfter()))
+                    .doFinally(signalType -> sweeping.set(false));
+        });
+    }
+
+    private Mono<Long> collectBatch() {
+        return requestCollector.collectReadyLongerThan(properties.collectAfter(), properties.batchSize())
+                .as(transactionalOperator::transactional)
+                .doOnNext(requestCollector::announceCollected)
+                .map(collectedIds -> (long) collectedIds.size());
+    }
+}
@@ -1,9 +1,10 @@
 package pl.codehouse.restaurant.orders.request;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Function;
 import org.slf4j.Logger;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.GenericMessage;
 import org.springframework.stereotype.Component;
@@ -13,6 +14,7 @@ import pl.codehouse.restaurant.orders.Context;
 import pl.codehouse.restaurant.orders.ExecutionResult;
 import pl.codehouse.restaurant.orders.exceptions.ResourceNotFoundException;
 import pl.codehouse.restaurant.orders.exceptions.ResourceType;
+import pl.codehouse.restaurant.orders.outbox.OutboxWriter;
 import pl.codehouse.restaurant.orders.shelf.PackingStatus;
 import pl.codehouse.restaurant.orders.shelf.ShelfKafkaProperties;
 import reactor.core.publisher.Mono;
@@ -20,33 +22,30 @@ import reactor.util.function.Tuple2;
 
 /**
  * Command for creating a new request in the restaurant system.
- * This command handles the creation of a new request, including saving the request details,
- * associated menu items, and emitting relevant events.
+ * This command handles the creation of a new request, including saving the request details
+ * together with its associated menu items in a single statement, and emitting relevant events.
  */
 @Component
 class CreateCommand implements Command<RequestPayload, RequestDto> {
 
     private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(CreateCommand.class);
     private static final String MISSING_ORDER_COMPONENTS_ERROR_MESSAGE = "Not all request components were found";
-    private final RequestRepository repository;
-    private final MenuItemRepository menuItemRepository;
-    private final RequestMenuItemRepository requestMenuItemRepository;
-    private final KafkaTemplate<String, ShelfEventDto> kafkaTemplate;
+    private final MenuCatalog menuCatalog;
+    private final RequestWriter requestWriter;
+    private final OutboxWriter outboxWriter;
     private final ShelfKafkaProperties shelfKafkaProperties;
     private final RequestStatusChangePublisher requestStatusChangePublisher;
 
     CreateCommand(
-            RequestRepository repository,
-            MenuItemRepository menuItemRepository,
-            RequestMenuItemRepository requestMenuItemRepository,
-            KafkaTemplate<String, ShelfEventDto> kafkaTemplate,
+            MenuCatalog menuCatalog,
+            RequestWriter requestWriter,
+            OutboxWriter outboxWriter,
             ShelfKafkaProperties shelfKafkaProperties,
             RequestStatusChangePublisher requestStatusChangePublisher
     ) {
-        this.repository = repository;
-        this.menuItemRepository = menuItemRepository;
-        this.requestMenuItemRepository = requestMenuItemRepository;
-        this.kafkaTemplate = kafkaTemplate;
+        this.menuCatalog = menuCatalog;
+        this.requestWriter = requestWriter;
+        this.outboxWriter = outboxWriter;
         this.shelfKafkaProperties = shelfKafkaProperties;
         this.requestStatusChangePublisher = requestStatusChangePublisher;
     }
@@ -61,7 +60,7 @@ class CreateCommand implements Command<RequestPayload, RequestDto> {
                 .stream()
                 .map(RequestedMenuItemsPayload::menuId)
                 .toList();
-        return menuItemRepository.findAllById(menuItemIds)
+        return menuCatalog.findAllById(menuItemIds)
                 .collectList()
                 .flatMap(validateAndCreateNew(context))
                 .map(ExecutionResult::success)
@@ -81,39 +80,37 @@ class CreateCommand implements Command<RequestPayload, RequestDto> {
 
             int customerId = context.request().customerId();
             LOGGER.info("Creating new Request for Customer: {} with Menu Items: {}", customerId, requestedMenuItems);
-            return repository.save(RequestEntity.newRequestFor(customerId))
-                    .zipWhen(savedOrderEntity -> {
-                        List<RequestMenuItemEntity> requestMenuItemEntities = selectedMenuItems.stream()
-                                .map(createMenuItemEntity(savedOrderEntity, requestedMenuItems))
-                                .toList();
-                        LOGGER.info("Storing Request MenuItems: {}", requestMenuItemEntities);
-                        return requestMenuItemRepository.saveAll(requestMenuItemEntities).collectList();
-                    })
-                    .doOnNext(this::emitNewRequestEvent)
-                    .map(tuple -> RequestDto.from(tuple.getT1(), tuple.getT2(), selectedMenuItems));
+            List<RequestMenuItemEntity> requestMenuItemEntities = selectedMenuItems.stream()
+                    .map(createMenuItemEntity(requestedMenuItems))
+                    .toList();
+            LOGGER.info("Storing Request MenuItems: {}", requestMenuItemEntities);
+            return requestWriter.insertRequest(customerId, requestMenuItemEntities)
+                    .flatMap(tuple -> emitNewRequestEvent(tuple).thenReturn(tuple))
+                    .map(tuple -> RequestDto.from(tuple.getT1(), tuple.getT2(), RequestDto.indexById(selectedMenuItems)));
         };
     }
 
-    private void emitNewRequestEvent(Tuple2<RequestEntity, List<RequestMenuItemEntity>> tuple) {
+    private Mono<Void> emitNewRequestEvent(Tuple2<RequestEntity, List<RequestMenuItemEntity>> tuple) {
         Message<ShelfEventDto> shelfMessage = new GenericMessage<>(
                 ShelfEventDto.newRequestEvent(tuple.getT1().id()),
                 shelfKafkaProperties.kafkaHeaders()
         );
         LOGGER.info("Emit event: {} for the following request: {}", shelfMessage.getPayload().eventType(), tuple.getT1());
-        kafkaTemplate.send(shelfMessage);
-        requestStatusChangePublisher.publishChange(tuple.getT1().id(), tuple.getT1().status(), PackingStatus.NOT_STARTED);
+        return outboxWriter.write(shelfMessage)
+                .then(requestStatusChangePublisher.publishChange(tuple.getT1().id(), tuple.getT1().status(), PackingStatus.NOT_STARTED));
     }
 
-    private static Function<MenuItemEntity, RequestMenuItemEntity> createMenuItemEntity(
-            RequestEntity savedOrderEntity,
-            List<RequestedMenuItemsPayload> menuItems) {
+    private static Function<MenuItemEntity, RequestMenuItemEntity> createMenuItemEntity(List<RequestedMenuItemsPayload> menuItems) {
+        Map<Integer, Integer> quantityByMenuItemId = HashMap.newHashMap(menuItems.size());
+        for (RequestedMenuItemsPayload requestedMenuItem : menuItems) {
+            quantityByMenuItemId.putIfAbsent(requestedMenuItem.menuId(), requestedMenuItem.quantity());
+        }
         return menuItem -> {
-            int menuItemQuantity = menuItems.stream()
-                    .filter(requestedMenuItem -> menuItem.id() == requestedMenuItem.menuId())
-                    .findFirst()
-                    .map(RequestedMenuItemsPayload::quantity)
-                    .orElseThrow(() -> new ResourceNotFoundException("Unable to match Menu Item by Id: " + menuItem.id(), ResourceType.MENU_ITEM));
-            return RequestMenuItemEntity.newInstance(savedOrderEntity.id(), menuItem.id(), menuItemQuantity, menuItem.immediate());
+            Integer menuItemQuantity = quantityByMenuItemId.get(menuItem.id());
+            if (menuItemQuantity == null) {
+                throw new ResourceNotFoundException("Unable to match Menu Item by Id: " + menuItem.id(), ResourceType.MENU_ITEM);
+            }
+            return RequestMenuItemEntity.newInstance(0, menuItem.id(), menuItemQuantity, menuItem.immediate());
         };
     }
 }
@@ -0,0 +1,121 @@
+package pl.codehouse.restaurant.orders.request;
+
+import io.r2dbc.spi.Readable;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read path assembling a {@link RequestDto} from a single joined query over
+ * {@code request}, {@code request_menu_item} and {@code menu_item}.
+ * Rows are streamed straight into the DTO, so a lookup costs one round trip instead of three.
+ */
+@Component
+class JoinedRequestQuery {
+    private static final Logger logger = LoggerFactory.getLogger(JoinedRequestQuery.class);
+
+    private static final String FIND_BY_ID_QUERY = """
+            SELECT r.id            AS request_id,
+                   r.customer_id   AS customer_id,
+                   rmi.id          AS request_menu_item_id,
+                   rmi.menu_item_id AS menu_item_id,
+                   rmi.quantity    AS quantity,
+                   rmi.prepared    AS prepared,
+                   rmi.immediate   AS immediate,
+                   mi.id           AS known_menu_item_id,
+                   mi.name         AS menu_item_name
+            FROM request r
+                     LEFT JOIN request_menu_item rmi ON rmi.request_id = r.id
+                     LEFT JOIN menu_item mi ON mi.id = rmi.menu_item_id
+            WHERE r.id = :requestId
+            ORDER BY rmi.id
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    JoinedRequestQuery(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Finds a request by its ID using a single joined query.
+     *
+     * @param requestId The ID of the request to find.
+     * @return A Mono emitting the RequestDto, or an empty Mono when the request does not exist.
+     * @throws IllegalStateException if any of the request menu items references an unknown menu item.
+     */
+    Mono<RequestDto> findById(int requestId) {
+        return databaseClient.sql(FIND_BY_ID_QUERY)
+                .bind("requestId", requestId)
+                .map(JoinedRow::from)
+                .all()
+                .collect(RequestDtoAccumulator::new, RequestDtoAccumulator::accept)
+                .filter(RequestDtoAccumulator::hasRequest)
+                .map(RequestDtoAccumulator::toDto)
+                .doOnNext(requestDto -> logger.debug("Fetched request {} with joined query", requestDto.requestId()));
+    }
+
+    private record JoinedRow(
+            int requestId,
+            int customerId,
+            Integer requestMenuItemId,
+            Integer menuItemId,
+            Integer quantity,
+            Integer prepared,
+            Boolean immediate,
+            Integer knownMenuItemId,
+            String menuItemName
+    ) {
+
+        static JoinedRow from(Readable row) {
+            return new JoinedRow(
+                    row.get("request_id", Integer.class),
+                    row.get("customer_id", Integer.class),
+                    row.get("request_menu_item_id", Integer.class),
+                    row.get("menu_item_id", Integer.class),
+                    row.get("quantity", Integer.class),
+                    row.get("prepared", Integer.class),
+                    row.get("immediate", Boolean.class),
+                    row.get("known_menu_item_id", Integer.class),
+                    row.get("menu_item_name", String.class)
+            );
+        }
+
+        boolean hasMenuItem() {
+            return requestMenuItemId != null;
+        }
+
+        RequestMenuItem toRequestMenuItem() {
+            if (knownMenuItemId == null) {
+                throw new IllegalStateException("Menu item not found");
+            }
+            return RequestMenuItem.from(requestMenuItemId, menuItemId, menuItemName, quantity, prepared, immediate);
+        }
+    }
+
+    private static final class RequestDtoAccumulator {
+        private final List<RequestMenuItem> menuItems = new ArrayList<>();
+        private JoinedRow request;
+
+        void accept(JoinedRow row) {
+            if (request == null) {
+                request = row;
+            }
+            if (row.hasMenuItem()) {
+                menuItems.add(row.toRequestMenuItem());
+            }
+        }
+
+        boolean hasRequest() {
+            return request != null;
+        }
+
+        RequestDto toDto() {
+            return RequestDto.of(request.requestId(), request.customerId(), menuItems);
+        }
+    }
+}
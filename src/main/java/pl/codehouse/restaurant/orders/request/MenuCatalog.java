@@ -0,0 +1,187 @@
+package pl.codehouse.restaurant.orders.request;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * In-memory catalog of all menu items.
+ * The catalog keeps an immutable, id-indexed snapshot of the {@code menu_item} table, which is
+ * reloaded on a schedule, on explicit invalidation, or when the snapshot exceeds the configured staleness.
+ * Menu items missing from the snapshot are looked up in the database and merged into a copy of the snapshot,
+ * so items added after the last reload are served from memory without reloading the whole catalog.
+ */
+@Component
+class MenuCatalog {
+    private static final Logger logger = LoggerFactory.getLogger(MenuCatalog.class);
+
+    private final MenuItemRepository menuItemRepository;
+    private final MenuCatalogProperties properties;
+    private final Clock clock;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final AtomicReference<Mono<Snapshot>> pendingRefresh = new AtomicReference<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter refreshes;
+    private final Counter refreshFailures;
+
+    MenuCatalog(MenuItemRepository menuItemRepository, MenuCatalogProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        this.menuItemRepository = menuItemRepository;
+        this.properties = properties;
+        this.clock = clock;
+        this.hits = meterRegistry.counter("menu.catalog.lookups", "result", "hit");
+        this.misses = meterRegistry.counter("menu.catalog.lookups", "result", "miss");
+        this.refreshes = meterRegistry.counter("menu.catalog.refreshes", "result", "success");
+        this.refreshFailures = meterRegistry.counter("menu.catalog.refreshes", "result", "failure");
+        Gauge.builder("menu.catalog.size", snapshot, ref -> ref.get() == null ? 0 : ref.get().items().size())
+                .register(meterRegistry);
+        Gauge.builder("menu.catalog.staleness", this, MenuCatalog::stalenessSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Finds menu items by their IDs.
+     * Items present in the snapshot are served from memory, the remaining ones are fetched from the database
+     * and merged into the snapshot.
+     *
+     * @param menuItemIds The IDs of the menu items to find.
+     * @return A Flux emitting every known menu item with one of the given IDs.
+     */
+    Flux<MenuItemEntity> findAllById(Collection<Integer> menuItemIds) {
+        return currentSnapshot().flatMapMany(current -> {
+            List<MenuItemEntity> found = new ArrayList<>(menuItemIds.size());
+            List<Integer> missing = new ArrayList<>();
+            for (Integer menuItemId : new LinkedHashSet<>(menuItemIds)) {
+                MenuItemEntity menuItem = current.items().get(menuItemId);
+                if (menuItem == null) {
+                    missing.add(menuItemId);
+                } else {
+                    found.add(menuItem);
+                }
+            }
+            hits.increment(found.size());
+            if (missing.isEmpty()) {
+                return Flux.fromIterable(found);
+            }
+            misses.increment(missing.size());
+            logger.info("Menu items {} not found in catalog, falling back to database", missing);
+            return Flux.fromIterable(found)
+                    .concatWith(menuItemRepository.findAllById(missing)
+                            .collectList()
+                            .doOnNext(this::merge)
+                            .flatMapIterable(Function.identity()));
+        });
+    }
+
+    /**
+     * Returns all menu items ordered by their IDs.
+     *
+     * @return A Flux emitting all menu items of the catalog.
+     */
+    Flux<MenuItemEntity> findAll() {
+        return currentSnapshot().flatMapIterable(Snapshot::orderedItems);
+    }
+
+    /**
+     * Drops the current snapshot, so that the next lookup reloads the catalog from the database.
+     */
+    void invalidate() {
+        snapshot.set(null);
+    }
+
+    /**
+     * Periodically reloads the catalog. The first run happens on application startup.
+     */
+    @Scheduled(fixedDelayString = "${app.menu.catalog.refresh-interval}")
+    void scheduledRefresh() {
+        refresh()
+                .doOnError(error -> logger.error("Scheduled menu catalog refresh failed: {}", error.getMessage(), error))
+                .onErrorComplete()
+                .subscribe();
+    }
+
+    private Mono<Snapshot> currentSnapshot() {
+        Snapshot current = snapshot.get();
+        if (current != null && !isStale(current)) {
+            return Mono.just(current);
+        }
+        return refresh();
+    }
+
+    private Mono<Snapshot> refresh() {
+        Mono<Snapshot> pending = pendingRefresh.get();
+        if (pending != null) {
+            return pending;
+        }
+        Mono<Snapshot> reload = menuItemRepository.findAll()
+                .collectList()
+                .map(menuItems -> new Snapshot(menuItems, clock.instant()))
+                .doOnNext(loaded -> {
+                    snapshot.set(loaded);
+                    refreshes.increment();
+                    logger.info("Menu catalog loaded with {} menu items", loaded.items().size());
+                })
+                .doOnError(error -> refreshFailures.increment())
+                .doFinally(signal -> pendingRefresh.set(null))
+                .cache();
+        if (pendingRefresh.compareAndSet(null, reload)) {
+            return reload;
+        }
+        return refresh();
+    }
+
+    private void merge(List<MenuItemEntity> fetchedItems) {
+        if (!fetchedItems.isEmpty()) {
+            snapshot.updateAndGet(current -> current == null ? null : current.with(fetchedItems));
+        }
+    }
+
+    private boolean isStale(Snapshot current) {
+        return Duration.between(current.loadedAt(), clock.instant()).compareTo(properties.maxStaleness()) > 0;
+    }
+
+    private double stalenessSeconds() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            return 0;
+        }
+        return Duration.between(current.loadedAt(), clock.instant()).toMillis() / 1000.0;
+    }
+
+    private record Snapshot(Map<Integer, MenuItemEntity> items, List<MenuItemEntity> orderedItems, Instant loadedAt) {
+
+        Snapshot(List<MenuItemEntity> menuItems, Instant loadedAt) {
+            this(
+                    menuItems.stream().collect(Collectors.toUnmodifiableMap(MenuItemEntity::id, Function.identity())),
+                    menuItems.stream().sorted(Comparator.comparingInt(MenuItemEntity::id)).toList(),
+                    loadedAt
+            );
+        }
+
+        Snapshot with(List<MenuItemEntity> fetchedItems) {
+            Map<Integer, MenuItemEntity> mergedItems = new HashMap<>(items);
+            fetchedItems.forEach(menuItem -> mergedItems.put(menuItem.id(), menuItem));
+            return new Snapshot(List.copyOf(mergedItems.values()), loadedAt);
+        }
+    }
+}
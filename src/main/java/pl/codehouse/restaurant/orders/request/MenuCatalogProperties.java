@@ -0,0 +1,36 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the in-memory menu catalog.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.menu.catalog".</p>
+ *
+ * @param refreshInterval How often the catalog is reloaded from the database.
+ * @param maxStaleness The maximum age of the catalog snapshot before a read forces a reload.
+ */
+@ConfigurationProperties("app.menu.catalog")
+record MenuCatalogProperties(
+        @DefaultValue("PT5M") Duration refreshInterval,
+        @DefaultValue("PT15M") Duration maxStaleness
+) {
+
+    /**
+     * Creates a new MenuCatalogProperties instance.
+     *
+     * @param refreshInterval How often the catalog is reloaded, must be positive.
+     * @param maxStaleness The maximum age of the catalog snapshot, must not be negative.
+     */
+    MenuCatalogProperties {
+        if (refreshInterval.isZero() || refreshInterval.isNegative()) {
+            throw new IllegalArgumentException("Menu catalog refresh interval must be positive");
+        }
+        if (maxStaleness.isNegative()) {
+            throw new IllegalArgumentException("Menu catalog max staleness cannot be negative");
+        }
+    }
+}
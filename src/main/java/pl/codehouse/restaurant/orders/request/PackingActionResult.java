@@ -11,4 +11,13 @@ public record PackingActionResult(
     RequestStatus status
 ) {
 
+    /**
+     * Creates a packing result reflecting the current state of a request.
+     *
+     * @param requestDto The request after packing.
+     * @return A new PackingActionResult instance.
+     */
+    public static PackingActionResult from(RequestDto requestDto) {
+        return new PackingActionResult(requestDto.requestId(), requestDto.preparedItemsCount(), requestDto.totalItemsCount(), requestDto.status());
+    }
 }
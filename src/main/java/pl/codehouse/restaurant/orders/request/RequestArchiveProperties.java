@@ -0,0 +1,42 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for archiving collected requests.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.request.archive".</p>
+ *
+ * @param interval The delay between runs of the archival job.
+ * @param retention How long after their creation collected requests are kept in the request tables.
+ * @param batchSize The maximum number of requests moved to the archive within a single statement.
+ */
+@ConfigurationProperties("app.request.archive")
+record RequestArchiveProperties(
+        @DefaultValue("PT1H") Duration interval,
+        @DefaultValue("P1D") Duration retention,
+        @DefaultValue("1000") int batchSize
+) {
+
+    /**
+     * Creates a new RequestArchiveProperties instance.
+     *
+     * @param interval The delay between runs, must be positive.
+     * @param retention The retention of collected requests, must not be negative.
+     * @param batchSize The maximum number of requests archived at once, must be greater than zero.
+     */
+    RequestArchiveProperties {
+        if (interval == null || interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Request archive interval must be positive");
+        }
+        if (retention == null || retention.isNegative()) {
+            throw new IllegalArgumentException("Request archive retention must not be negative");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Request archive batch size must be greater than zero");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package pl.codehouse.restaurant.orders.request;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+/**
+ * Moves collected requests past their retention, together with their menu items, to the archive tables.
+ * The request tables thereby stay sized to the open requests, while the archive is partitioned by the creation month,
+ * so old months can be detached or dropped without touching the request tables.
+ * Requests are moved in batches, each batch with a single statement, locked with {@code FOR UPDATE SKIP LOCKED}
+ * so several instances archive different batches.
+ * The creation time is written by the database in its session time zone, so the retention cutoff is computed
+ * by the database from its own clock as well.
+ */
+@Component
+class RequestArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(RequestArchiver.class);
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private static final String SELECT_CUTOFF_QUERY = """
+            SELECT LOCALTIMESTAMP AS now, LOCALTIMESTAMP - CAST(:retention AS INTERVAL) AS cutoff
+            """;
+
+    private static final String SELECT_ARCHIVED_MONTHS_QUERY = """
+            SELECT DISTINCT CAST(DATE_TRUNC('month', created_at) AS DATE) AS month
+            FROM request
+            WHERE status = 'COLLECTED'
+              AND created_at < :cutoff
+            """;
+
+    private static final String CREATE_PARTITION_QUERY = """
+            CREATE TABLE IF NOT EXISTS %1$s_p%2$s PARTITION OF %1$s
+            FOR VALUES FROM ('%3$s') TO ('%4$s')
+            """;
+
+    private static final String ARCHIVE_BATCH_QUERY = """
+            WITH archived AS (
+                DELETE FROM request r
+                WHERE r.id IN (SELECT id
+                               FROM request
+                               WHERE status = 'COLLECTED'
+                                 AND created_at < :cutoff
+                               ORDER BY created_at
+                               LIMIT :batchSize
+                               FOR UPDATE SKIP LOCKED)
+                RETURNING r.id, r.customer_id, r.status, r.created_at
+            ), archived_menu_items AS (
+                DELETE FROM request_menu_item i
+                USING archived a
+                WHERE i.request_id = a.id
+                RETURNING i.id, i.request_id, i.menu_item_id, i.quantity, i.prepared, i.immediate, a.created_at
+            ), inserted_menu_items AS (
+                INSERT INTO request_menu_item_archive (id, request_id, menu_item_id, quantity, prepared, immediate, created_at)
+                SELECT id, request_id, menu_item_id, quantity, prepared, immediate, created_at
+                FROM archived_menu_items
+            )
+            INSERT INTO request_archive (id, customer_id, status, created_at, archived_at)
+            SELECT id, customer_id, status, created_at, :archivedAt
+            FROM archived
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final RequestArchiveProperties properties;
+    private final AtomicBoolean archiving = new AtomicBoolean();
+    private final Counter archivedRequests;
+
+    RequestArchiver(DatabaseClient databaseClient, RequestArchiveProperties properties, MeterRegistry meterRegistry) {
+        this.databaseClient = databaseClient;
+        this.properties = properties;
+        this.archivedRequests = meterRegistry.counter("request.archived");
+    }
+
+    /**
+     * Archives all collected requests past their retention, unless an archival is already running.
+     */
+    @Scheduled(fixedDelayString = "${app.request.archive.interval}", initialDelayString = "${app.request.archive.interval}")
+    void scheduledArchive() {
+        archive().subscribe(null, error -> logger.error("Failed to archive collected requests", error));
+    }
+
+    Mono<Long> archive() {
+        return Mono.defer(() -> {
+            if (!archiving.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            return databaseClient.sql(SELECT_CUTOFF_QUERY)
+                    .bind("retention", properties.retention().toString())
+                    .map(row -> new ArchivalWindow(row.get("now", LocalDateTime.class), row.get("cutoff", LocalDateTime.class)))
+                    .one()
+                    .flatMap(this::archiveBefore)
+                    .doFinally(signalType -> archiving.set(false));
+        });
+    }
+
+    private Mono<Long> archiveBefore(ArchivalWindow window) {
+        LocalDateTime cutoff = window.cutoff();
+        return createMissingPartitions(cutoff)
+                .then(archiveBatch(cutoff, window.now())
+                        .expand(archived -> archived == properties.batchSize() ? archiveBatch(cutoff, window.now()) : Mono.empty())
+                        .reduce(0L, Long::sum))
+                .doOnNext(archived -> logger.info("Archived {} collected requests created before {}", archived, cutoff));
+    }
+
+    private Mono<Void> createMissingPartitions(LocalDateTime cutoff) {
+        return databaseClient.sql(SELECT_ARCHIVED_MONTHS_QUERY)
+                .bind("cutoff", cutoff)
+                .map(row -> row.get("month", LocalDate.class))
+                .all()
+                .concatMap(month -> createPartition("request_archive", month)
+                        .then(createPartition("request_menu_item_archive", month)))
+                .then();
+    }
+
+    private Mono<Void> createPartition(String table, LocalDate month) {
+        String ddl = CREATE_PARTITION_QUERY.formatted(table, PARTITION_SUFFIX.format(month), month, month.plusMonths(1));
+        return databaseClient.sql(ddl).then();
+    }
+
+    private Mono<Long> archiveBatch(LocalDateTime cutoff, LocalDateTime archivedAt) {
+        return databaseClient.sql(ARCHIVE_BATCH_QUERY)
+                .bind("cutoff", cutoff)
+                .bind("batchSize", properties.batchSize())
+                .bind("archivedAt", archivedAt)
+                .fetch()
+                .rowsUpdated()
+                .doOnNext(archivedRequests::increment);
+    }
+
+    private record ArchivalWindow(LocalDateTime now, LocalDateTime cutoff) {
+    }
+}
@@ -0,0 +1,29 @@
+package pl.codehouse.restaurant.orders.request;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for creating requests in bulk.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.request.batch".</p>
+ *
+ * @param maxSize The maximum number of requests accepted in a single bulk call.
+ */
+@ConfigurationProperties("app.request.batch")
+record RequestBatchProperties(
+        @DefaultValue("1000") int maxSize
+) {
+
+    /**
+     * Creates a new RequestBatchProperties instance.
+     *
+     * @param maxSize The maximum number of requests in a bulk call, must be greater than zero.
+     */
+    RequestBatchProperties {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Request batch max size must be greater than zero");
+        }
+    }
+}
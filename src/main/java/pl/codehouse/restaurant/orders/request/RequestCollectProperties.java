@@ -0,0 +1,42 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for collecting requests never picked up by the customer.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.request.collect".</p>
+ *
+ * @param sweepInterval The delay between runs of the sweeper.
+ * @param collectAfter How long requests are ready to collect before they are collected by the sweeper.
+ * @param batchSize The maximum number of requests collected within a single transaction.
+ */
+@ConfigurationProperties("app.request.collect")
+record RequestCollectProperties(
+        @DefaultValue("PT1M") Duration sweepInterval,
+        @DefaultValue("PT30M") Duration collectAfter,
+        @DefaultValue("500") int batchSize
+) {
+
+    /**
+     * Creates a new RequestCollectProperties instance.
+     *
+     * @param sweepInterval The delay between runs, must be positive.
+     * @param collectAfter How long requests are ready to collect before they are collected, must be positive.
+     * @param batchSize The maximum number of requests collected at once, must be greater than zero.
+     */
+    RequestCollectProperties {
+        if (sweepInterval == null || sweepInterval.isNegative() || sweepInterval.isZero()) {
+            throw new IllegalArgumentException("Request collect sweep interval must be positive");
+        }
+        if (collectAfter == null || collectAfter.isNegative() || collectAfter.isZero()) {
+            throw new IllegalArgumentException("Request collect after must be positive");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Request collect batch size must be greater than zero");
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import pl.codehouse.restaurant.orders.shelf.PackingStatus;
+import reactor.core.publisher.Mono;
+
+/**
+ * Marks requests ready to collect as collected.
+ * Every collection publishes a status change of the collected requests.
+ * Callers are expected to run it within a transaction, so the status change is written to the outbox atomically,
+ * and to call {@link #announceCollected(List)} once the transaction committed, so the collected requests
+ * are dropped from all in-memory state of active requests only when the collection cannot be rolled back.
+ */
+@Component
+class RequestCollector {
+    private static final Logger logger = LoggerFactory.getLogger(RequestCollector.class);
+
+    private static final String COLLECT_QUERY = """
+            UPDATE request
+            SET status = 'COLLECTED'
+            WHERE id = ANY (CAST(:requestIds AS INT[]))
+              AND status = 'READY_TO_COLLECT'
+            RETURNING id
+            """;
+
+    private static final String COLLECT_READY_BEFORE_QUERY = """
+            UPDATE request
+            SET status = 'COLLECTED'
+            WHERE id IN (SELECT id
+                         FROM request
+                         WHERE status = 'READY_TO_COLLECT'
+                           AND ready_at < LOCALTIMESTAMP - CAST(:collectAfter AS INTERVAL)
+                         ORDER BY ready_at
+                         LIMIT :batchSize
+                         FOR UPDATE SKIP LOCKED)
+            RETURNING id
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final RequestStatusChangePublisher statusChangePublisher;
+    private final ApplicationEventPublisher eventPublisher;
+
+    RequestCollector(DatabaseClient databaseClient, RequestStatusChangePublisher statusChangePublisher, ApplicationEventPublisher eventPublisher) {
+        this.databaseClient = databaseClient;
+        this.statusChangePublisher = statusChangePublisher;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Collects the given requests, requests which are not ready to collect are left untouched.
+     *
+     * @param requestIds The IDs of the requests to collect.
+     * @return A Mono emitting the IDs of the collected requests.
+     */
+    Mono<List<Integer>> collect(Collection<Integer> requestIds) {
+        return databaseClient.sql(COLLECT_QUERY)
+                .bind("requestIds", requestIds.toArray(Integer[]::new))
+                .map(row -> row.get("id", Integer.class))
+                .all()
+                .collectList()
+                .flatMap(this::publishStatusChanges);
+    }
+
+    /**
+     * Collects requests which have been ready to collect for longer than the given time, those waiting the longest first.
+     * The time is measured by the database clock, the same one that marked the requests ready to collect.
+     *
+     * @param collectAfter How long requests are ready to collect before they are collected.
+     * @param batchSize The maximum number of requests to collect.
+     * @return A Mono emitting the IDs of the collected requests.
+     */
+    Mono<List<Integer>> collectReadyLongerThan(Duration collectAfter, int batchSize) {
+        return databaseClient.sql(COLLECT_READY_BEFORE_QUERY)
+                .bind("collectAfter", collectAfter.toString())
+                .bind("batchSize", batchSize)
+                .map(row -> row.get("id", Integer.class))
+                .all()
+                .collectList()
+                .flatMap(this::publishStatusChanges);
+    }
+
+    /**
+     * Publishes a {@link RequestsCollectedEvent} of the collected requests.
+     * Must be called after the transaction collecting the requests committed.
+     *
+     * @param collectedIds The IDs of the collected requests.
+     */
+    void announceCollected(List<Integer> collectedIds) {
+        if (!collectedIds.isEmpty()) {
+            eventPublisher.publishEvent(new RequestsCollectedEvent(collectedIds));
+        }
+    }
+
+    private Mono<List<Integer>> publishStatusChanges(List<Integer> collectedIds) {
+        if (collectedIds.isEmpty()) {
+            return Mono.just(collectedIds);
+        }
+        logger.info("Collected {} requests: {}", collectedIds.size(), collectedIds);
+        List<RequestStatusChangeMessage> statusChanges = collectedIds.stream()
+                .map(requestId -> new RequestStatusChangeMessage(requestId, RequestStatus.COLLECTED, PackingStatus.COLLECTED))
+                .toList();
+        return statusChangePublisher.publishChanges(statusChanges)
+                .thenReturn(collectedIds);
+    }
+}
@@ -0,0 +1,33 @@
+package pl.codehouse.restaurant.orders.request;
+
+/**
+ * Represents the outcome of creating a single request within a bulk call.
+ *
+ * @param index The position of the request payload within the bulk call.
+ * @param status Whether the request was created or rejected.
+ * @param request The created request, null when rejected.
+ * @param error The reason the request was rejected, null when created.
+ */
+record RequestCreationResult(
+        int index,
+        CreationStatus status,
+        RequestDto request,
+        String error
+) {
+
+    static RequestCreationResult created(int index, RequestDto request) {
+        return new RequestCreationResult(index, CreationStatus.CREATED, request, null);
+    }
+
+    static RequestCreationResult rejected(int index, String error) {
+        return new RequestCreationResult(index, CreationStatus.REJECTED, null, error);
+    }
+
+    /**
+     * Possible outcomes of creating a request.
+     */
+    enum CreationStatus {
+        CREATED,
+        REJECTED
+    }
+}
@@ -1,7 +1,10 @@
 package pl.codehouse.restaurant.orders.request;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.function.Function;
+import java.util.Map;
 
 /**
  * Represents a data transfer object for a restaurant request.
@@ -24,29 +27,68 @@ public record RequestDto(
      * @return A new RequestDto instance.
      */
     public static RequestDto from(RequestEntity savedEntity, List<RequestMenuItemEntity> requestMenuItems, List<MenuItemEntity> menuItemEntities) {
-        var menuItemList = requestMenuItems.stream()
-                .map(mapRequestMenuItem(menuItemEntities))
-                .toList();
-        var preparedItemsCount = menuItemList.stream().mapToInt(RequestMenuItem::prepared).sum();
-        var totalItemsCount = menuItemList.stream().mapToInt(RequestMenuItem::quantity).sum();
+        return from(savedEntity, requestMenuItems, indexById(menuItemEntities));
+    }
+
+    /**
+     * Creates a RequestDto from the given entities, resolving menu items from an index built with {@link #indexById(Collection)}.
+     * Callers assembling many requests should build the index once and share it.
+     *
+     * @param savedEntity The saved request entity.
+     * @param requestMenuItems List of request menu item entities.
+     * @param menuItemsById Menu item entities indexed by their ID.
+     * @return A new RequestDto instance.
+     * @throws IllegalStateException if any of the request menu items refers to a menu item missing in the index.
+     */
+    public static RequestDto from(RequestEntity savedEntity, List<RequestMenuItemEntity> requestMenuItems, Map<Integer, MenuItemEntity> menuItemsById) {
+        List<RequestMenuItem> menuItemList = new ArrayList<>(requestMenuItems.size());
+        int preparedItemsCount = 0;
+        int totalItemsCount = 0;
+        for (RequestMenuItemEntity item : requestMenuItems) {
+            MenuItemEntity menuItem = menuItemsById.get(item.menuItemId());
+            if (menuItem == null) {
+                throw new IllegalStateException("Menu item not found");
+            }
+            menuItemList.add(RequestMenuItem.from(item.id(), menuItem.id(), menuItem.name(), item.quantity(), item.prepared(), item.immediate()));
+            preparedItemsCount += item.prepared();
+            totalItemsCount += item.quantity();
+        }
         var status = setCorrectStatus(preparedItemsCount, totalItemsCount);
-        return new RequestDto(savedEntity.id(), savedEntity.customerId(), menuItemList, preparedItemsCount, totalItemsCount, status);
+        return new RequestDto(savedEntity.id(), savedEntity.customerId(), List.copyOf(menuItemList), preparedItemsCount, totalItemsCount, status);
     }
 
     /**
-     * Maps a RequestMenuItemEntity to a RequestMenuItem.
+     * Creates a RequestDto from already resolved request menu items.
+     * Item counts and the request status are derived from the given menu items.
      *
-     * @param menuItemEntities List of menu item entities to search for the corresponding menu item.
-     * @return A function that performs the mapping.
+     * @param requestId The ID of the request.
+     * @param customerId The ID of the customer who placed the request.
+     * @param menuItemList List of resolved request menu items.
+     * @return A new RequestDto instance.
      */
-    private static Function<RequestMenuItemEntity, RequestMenuItem> mapRequestMenuItem(List<MenuItemEntity> menuItemEntities) {
-        return item -> {
-            var menuItem = menuItemEntities.stream()
-                    .filter(entity -> entity.id() == item.menuItemId())
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalStateException("Menu item not found"));
-            return RequestMenuItem.from(item.id(), menuItem.id(), menuItem.name(), item.quantity(), item.prepared(), item.immediate());
-        };
+    public static RequestDto of(int requestId, int customerId, List<RequestMenuItem> menuItemList) {
+        int preparedItemsCount = 0;
+        int totalItemsCount = 0;
+        for (RequestMenuItem menuItem : menuItemList) {
+            preparedItemsCount += menuItem.prepared();
+            totalItemsCount += menuItem.quantity();
+        }
+        var status = setCorrectStatus(preparedItemsCount, totalItemsCount);
+        return new RequestDto(requestId, customerId, List.copyOf(menuItemList), preparedItemsCount, totalItemsCount, status);
+    }
+
+    /**
+     * Indexes the given menu item entities by their ID.
+     *
+     * @param menuItemEntities The menu item entities to index.
+     * @return A map of menu item entities keyed by their ID.
+     */
+    static Map<Integer, MenuItemEntity> indexById(Collection<MenuItemEntity> menuItemEntities) {
+        Map<Integer, MenuItemEntity> menuItemsById = HashMap.newHashMap(menuItemEntities.size());
+        for (MenuItemEntity menuItemEntity : menuItemEntities) {
+            menuItemsById.put(menuItemEntity.id(), menuItemEntity);
+        }
+        return menuItemsById;
     }
 
     /**
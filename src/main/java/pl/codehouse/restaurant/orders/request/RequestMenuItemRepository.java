@@ -1,5 +1,8 @@
 package pl.codehouse.restaurant.orders.request;
 
+import java.util.Collection;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
@@ -10,4 +13,24 @@ interface RequestMenuItemRepository extends ReactiveCrudRepository<RequestMenuIt
     Mono<RequestMenuItemEntity> findByRequestIdAndMenuItemId(int requestId, int menuItemId);
 
     Flux<RequestMenuItemEntity> findByRequestId(int requestId);
+
+    Flux<RequestMenuItemEntity> findByRequestIdIn(Collection<Integer> requestIds);
+
+    /**
+     * Finds the requests which are not ready yet and still miss items of a menu item, which are taken from the shelf.
+     *
+     * @param menuItemId The ID of the menu item.
+     * @return A Flux emitting the IDs of the waiting requests, in the order the requests were created.
+     */
+    @Query("""
+            SELECT rmi.request_id
+            FROM request_menu_item rmi
+                     JOIN "request" r ON r.id = rmi.request_id
+            WHERE rmi.menu_item_id = :menuItemId
+              AND NOT rmi.immediate
+              AND rmi.prepared < rmi.quantity
+              AND r.status IN ('NEW', 'IN_PROGRESS')
+            ORDER BY rmi.request_id
+            """)
+    Flux<Integer> findWaitingRequestIds(@Param("menuItemId") int menuItemId);
 }
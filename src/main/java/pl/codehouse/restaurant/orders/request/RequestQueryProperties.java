@@ -0,0 +1,50 @@
+package pl.codehouse.restaurant.orders.request;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the read paths used when assembling {@link RequestDto} objects.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.request.query".</p>
+ *
+ * @param readStrategy The strategy used by {@code RequestService.findById}.
+ * @param batchedActiveRequests Whether active requests are assembled in chunks instead of one request at a time.
+ * @param activeRequestsChunkSize The number of active requests whose components are loaded with a single query.
+ */
+@ConfigurationProperties("app.request.query")
+record RequestQueryProperties(
+        @DefaultValue("JOINED") ReadStrategy readStrategy,
+        @DefaultValue("true") boolean batchedActiveRequests,
+        @DefaultValue("200") int activeRequestsChunkSize
+) {
+
+    /**
+     * Creates a new RequestQueryProperties instance.
+     *
+     * @param readStrategy The strategy used by {@code RequestService.findById}.
+     * @param batchedActiveRequests Whether active requests are assembled in chunks.
+     * @param activeRequestsChunkSize The number of active requests loaded per chunk, must be greater than zero.
+     */
+    RequestQueryProperties {
+        if (activeRequestsChunkSize <= 0) {
+            throw new IllegalArgumentException("Active requests chunk size must be greater than zero");
+        }
+    }
+
+    /**
+     * Available strategies for reading a single request.
+     */
+    enum ReadStrategy {
+        /**
+         * Single joined query over request, request_menu_item and menu_item tables.
+         */
+        JOINED,
+
+        /**
+         * Separate lookups through the request, request menu item and menu item repositories.
+         */
+        REPOSITORY,
+    }
+}
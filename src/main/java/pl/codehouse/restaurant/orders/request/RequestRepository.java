@@ -1,5 +1,6 @@
 package pl.codehouse.restaurant.orders.request;
 
+import java.util.Collection;
 import java.util.List;
 import org.springframework.data.r2dbc.repository.Modifying;
 import org.springframework.data.r2dbc.repository.Query;
@@ -13,9 +14,27 @@ import reactor.core.publisher.Mono;
 interface RequestRepository extends ReactiveCrudRepository<RequestEntity, Integer> {
 
     @Modifying
-    @Query("UPDATE request SET status = :status WHERE id = :requestId")
+    @Query("""
+            UPDATE request
+            SET status   = :status,
+                ready_at = CASE WHEN CAST(:status AS TEXT) = 'READY_TO_COLLECT' THEN COALESCE(ready_at, LOCALTIMESTAMP) END
+            WHERE id = :requestId
+            """)
     Mono<Boolean> updateStatusById(@Param("requestId") int requestId, @Param("status") RequestStatus requestStatus);
 
     @Query("SELECT * FROM request WHERE status IN (:statuses)")
     Flux<RequestEntity> findByStatus(@Param("statuses") List<RequestStatus> requestStatus);
+
+    /**
+     * Finds all requests which are not collected yet.
+     * The statuses are inlined, matching the predicate of the partial {@code request_active_status_idx} index,
+     * so the planner can prove the index applies regardless of whether the statement plan is generic.
+     *
+     * @return A Flux emitting all active requests.
+     */
+    @Query("SELECT * FROM request WHERE status IN ('NEW', 'IN_PROGRESS', 'READY_TO_COLLECT')")
+    Flux<RequestEntity> findActive();
+
+    @Query("SELECT * FROM request WHERE id IN (:requestIds) AND status IN (:statuses)")
+    Flux<RequestEntity> findByIdInAndStatus(@Param("requestIds") Collection<Integer> requestIds, @Param("statuses") List<RequestStatus> requestStatus);
 }
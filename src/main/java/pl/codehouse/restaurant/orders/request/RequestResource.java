@@ -23,14 +23,25 @@ import reactor.core.publisher.SignalType;
 @RequestMapping(value = "/request", consumes = {MediaType.APPLICATION_JSON_VALUE}, produces = {MediaType.APPLICATION_JSON_VALUE})
 class RequestResource {
     private static final Logger logger = LoggerFactory.getLogger(RequestResource.class);
-    private final MenuItemRepository menuItemRepository;
+    private final MenuCatalog menuCatalog;
     private final RequestService requestService;
     private final CreateCommand createCommand;
+    private final BatchCreateCommand batchCreateCommand;
+    private final CollectCommand collectCommand;
+    private final RequestStatusSubscriberBuffers subscriberBuffers;
 
-    RequestResource(MenuItemRepository menuItemRepository, RequestService requestService, CreateCommand createCommand) {
-        this.menuItemRepository = menuItemRepository;
+    RequestResource(MenuCatalog menuCatalog,
+                    RequestService requestService,
+                    CreateCommand createCommand,
+                    BatchCreateCommand batchCreateCommand,
+                    CollectCommand collectCommand,
+                    RequestStatusSubscriberBuffers subscriberBuffers) {
+        this.menuCatalog = menuCatalog;
         this.requestService = requestService;
         this.createCommand = createCommand;
+        this.batchCreateCommand = batchCreateCommand;
+        this.collectCommand = collectCommand;
+        this.subscriberBuffers = subscriberBuffers;
     }
 
     @PostMapping
@@ -40,6 +51,21 @@ class RequestResource {
                 .map(ExecutionResult::handle);
     }
 
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.OK)
+    Mono<List<RequestCreationResult>> createRequests(@RequestBody List<RequestPayload> requests) {
+        return batchCreateCommand.execute(new Context<>(requests))
+                .map(ExecutionResult::handle);
+    }
+
+    @PostMapping(value = "/{requestId}/collect", consumes = MediaType.ALL_VALUE)
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    Mono<Void> collectRequest(@PathVariable int requestId) {
+        return collectCommand.execute(new Context<>(requestId))
+                .map(ExecutionResult::handle)
+                .then();
+    }
+
     @GetMapping("/{requestId}")
     @ResponseStatus(HttpStatus.OK)
     Mono<RequestDto> fetchRequest(@PathVariable int requestId) {
@@ -48,14 +74,14 @@ class RequestResource {
 
     @GetMapping("/menu-items")
     Mono<List<MenuItem>> fetchAvailableMenuItems() {
-        return menuItemRepository.findAll()
+        return menuCatalog.findAll()
                 .map(MenuItem::from)
                 .collectList();
     }
 
     @GetMapping(value = "/notification/status", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
     Flux<ServerSentEvent<RequestStatusDto>> getStatusUpdates() {
-        return requestService.listenOnRequestUpdates()
+        return subscriberBuffers.attach(requestService.listenOnRequestUpdates())
                 .doOnSubscribe(subscription -> logger.info("Client subscribed to notifications"))
                 .doOnCancel(() -> logger.info("Client unsubscribed from notifications"))
                 .doFinally(signalType -> {
@@ -1,5 +1,6 @@
 package pl.codehouse.restaurant.orders.request;
 
+import java.util.Collection;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
@@ -16,6 +17,14 @@ public interface RequestService {
      */
     Mono<RequestDto> updateCollectedItems(UpdatePreparedMenuItemsDto updateDto);
 
+    /**
+     * Updates the collected items of several menu items of a specific request at once.
+     *
+     * @param batchDto The DTO containing the prepared quantities of all updated menu items.
+     * @return A Mono emitting the updated RequestDto.
+     */
+    Mono<RequestDto> updateCollectedItemsInBatch(UpdatePreparedMenuItemsBatchDto batchDto);
+
     /**
      * Retrieves a request by its ID.
      *
@@ -31,6 +40,22 @@ public interface RequestService {
      */
     Flux<RequestDto> fetchActive();
 
+    /**
+     * Fetches the active requests among the given request IDs.
+     *
+     * @param requestIds The IDs of the requests to fetch.
+     * @return A Flux emitting RequestDto objects for every active request with one of the given IDs.
+     */
+    Flux<RequestDto> fetchActiveByIds(Collection<Integer> requestIds);
+
+    /**
+     * Finds the active requests still missing items of a menu item taken from the shelf.
+     *
+     * @param menuItemId The ID of the menu item.
+     * @return A Flux emitting the IDs of the waiting requests, in the order the requests were created.
+     */
+    Flux<Integer> findRequestIdsWaitingFor(int menuItemId);
+
     /**
      * Listens for updates on request statuses.
      *
@@ -1,6 +1,8 @@
 package pl.codehouse.restaurant.orders.request;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -27,29 +29,46 @@ public class RequestServiceImpl implements RequestService {
 
     private final RequestRepository requestRepository;
     private final RequestMenuItemRepository requestMenuItemRepository;
-    private final MenuItemRepository menuItemRepository;
+    private final MenuCatalog menuCatalog;
     private final UpdatePrepairedMenuItemsCommand updatePrepairedMenuItemsCommand;
+    private final UpdatePreparedMenuItemsBatchCommand updatePreparedMenuItemsBatchCommand;
     private final RequestStatusChangeListener requestStatusChangeListener;
+    private final JoinedRequestQuery joinedRequestQuery;
+    private final RequestQueryProperties queryProperties;
+    private final Flux<RequestStatusDto> requestStatusUpdates;
 
     /**
      * Constructs a new RequestServiceImpl with the necessary dependencies.
      *
      * @param requestRepository The repository for managing request entities.
      * @param requestMenuItemRepository The repository for managing request menu item entities.
-     * @param menuItemRepository The repository for managing menu item entities.
+     * @param menuCatalog The in-memory catalog of menu items.
      * @param updatePrepairedMenuItemsCommand The command for updating prepared menu items.
+     * @param updatePreparedMenuItemsBatchCommand The command for updating prepared menu items of a request at once.
      * @param requestStatusChangeListener The listener for request status changes.
+     * @param joinedRequestQuery The single-query read path for request DTOs.
+     * @param queryProperties The properties selecting the read path strategy.
      */
     public RequestServiceImpl(RequestRepository requestRepository,
                               RequestMenuItemRepository requestMenuItemRepository,
-                              MenuItemRepository menuItemRepository,
+                              MenuCatalog menuCatalog,
                               UpdatePrepairedMenuItemsCommand updatePrepairedMenuItemsCommand,
-                              RequestStatusChangeListener requestStatusChangeListener) {
+                              UpdatePreparedMenuItemsBatchCommand updatePreparedMenuItemsBatchCommand,
+                              RequestStatusChangeListener requestStatusChangeListener,
+                              JoinedRequestQuery joinedRequestQuery,
+                              RequestQueryProperties queryProperties) {
         this.requestRepository = requestRepository;
         this.requestMenuItemRepository = requestMenuItemRepository;
-        this.menuItemRepository = menuItemRepository;
+        this.menuCatalog = menuCatalog;
         this.updatePrepairedMenuItemsCommand = updatePrepairedMenuItemsCommand;
+        this.updatePreparedMenuItemsBatchCommand = updatePreparedMenuItemsBatchCommand;
         this.requestStatusChangeListener = requestStatusChangeListener;
+        this.joinedRequestQuery = joinedRequestQuery;
+        this.queryProperties = queryProperties;
+        this.requestStatusUpdates = requestStatusChangeListener.getRequestStatusChanges()
+                .flatMap(this::toRequestStatusDto)
+                .publish()
+                .refCount();
     }
 
     /**
@@ -64,14 +83,35 @@ public class RequestServiceImpl implements RequestService {
                 .then(findById(updateDto.requestId()));
     }
 
+    /**
+     * Updates the collected items of several menu items of a request at once and returns the updated request.
+     *
+     * @param batchDto The DTO containing the prepared quantities of all updated menu items.
+     * @return A Mono emitting the updated RequestDto.
+     */
+    @Override
+    public Mono<RequestDto> updateCollectedItemsInBatch(UpdatePreparedMenuItemsBatchDto batchDto) {
+        return updatePreparedMenuItemsBatchCommand.execute(new Context<>(batchDto))
+                .then(findById(batchDto.requestId()));
+    }
+
     /**
      * Finds a request by its ID.
+     * Depending on the configured read strategy, the request is assembled either from a single joined query
+     * or from separate repository lookups.
      *
      * @param requestId The ID of the request to find.
      * @return A Mono emitting the RequestDto for the specified ID.
      */
     @Override
     public Mono<RequestDto> findById(int requestId) {
+        if (queryProperties.readStrategy() == RequestQueryProperties.ReadStrategy.JOINED) {
+            return joinedRequestQuery.findById(requestId);
+        }
+        return findByIdFromRepositories(requestId);
+    }
+
+    private Mono<RequestDto> findByIdFromRepositories(int requestId) {
         Mono<RequestEntity> entityMono = requestRepository.findById(requestId);
         Mono<Tuple2<List<RequestMenuItemEntity>, List<MenuItemEntity>>> tuple2Mono = requestMenuItemRepository.findByRequestId(requestId)
                 .collectList()
@@ -82,13 +122,21 @@ public class RequestServiceImpl implements RequestService {
 
     /**
      * Fetches all active requests.
+     * In batched mode the active requests are windowed into chunks and the components of each chunk
+     * are loaded with one request menu item query and one menu item lookup.
      *
      * @return A Flux emitting RequestDto objects for all active requests.
      */
     @Override
     public Flux<RequestDto> fetchActive() {
-        return requestRepository.findByStatus(ACTIVE_REQUEST_STATUSES)
-                .doOnComplete(() -> logger.info(">>.findByStatus({}) completed", ACTIVE_REQUEST_STATUSES))
+        Flux<RequestEntity> activeRequests = requestRepository.findActive()
+                .doOnComplete(() -> logger.info(">>.findActive() completed"));
+        if (queryProperties.batchedActiveRequests()) {
+            return activeRequests
+                    .buffer(queryProperties.activeRequestsChunkSize())
+                    .concatMap(this::fetchActiveChunk);
+        }
+        return activeRequests
                 .doOnNext(r -> logger.info("Fetching components of RequestDTO for {}, status: {}", r.id(), r.status()))
                 .flatMap(request -> requestMenuItemRepository.findByRequestId(request.id())
                         .collectList()
@@ -96,19 +144,67 @@ public class RequestServiceImpl implements RequestService {
                         .map(tuple -> RequestDto.from(request, tuple.getT1(), tuple.getT2())));
     }
 
+    /**
+     * Fetches the active requests among the given request IDs.
+     * The requests and their components are loaded with one query each, regardless of the number of requests.
+     *
+     * @param requestIds The IDs of the requests to fetch.
+     * @return A Flux emitting RequestDto objects for every active request with one of the given IDs.
+     */
+    @Override
+    public Flux<RequestDto> fetchActiveByIds(Collection<Integer> requestIds) {
+        if (requestIds.isEmpty()) {
+            return Flux.empty();
+        }
+        return requestRepository.findByIdInAndStatus(requestIds, ACTIVE_REQUEST_STATUSES)
+                .collectList()
+                .filter(requests -> !requests.isEmpty())
+                .flatMapMany(this::fetchActiveChunk);
+    }
+
+    private Flux<RequestDto> fetchActiveChunk(List<RequestEntity> requests) {
+        List<Integer> requestIds = requests.stream()
+                .map(RequestEntity::id)
+                .toList();
+        logger.info("Fetching components of RequestDTO for chunk of {} active requests", requestIds.size());
+        return requestMenuItemRepository.findByRequestIdIn(requestIds)
+                .collectList()
+                .flatMap(getListMonoFunction())
+                .flatMapIterable(tuple -> {
+                    Map<Integer, List<RequestMenuItemEntity>> itemsByRequestId = tuple.getT1().stream()
+                            .collect(Collectors.groupingBy(RequestMenuItemEntity::requestId));
+                    Map<Integer, MenuItemEntity> menuItemsById = RequestDto.indexById(tuple.getT2());
+                    return requests.stream()
+                            .map(request -> RequestDto.from(request, itemsByRequestId.getOrDefault(request.id(), List.of()), menuItemsById))
+                            .toList();
+                });
+    }
+
+    @Override
+    public Flux<Integer> findRequestIdsWaitingFor(int menuItemId) {
+        return requestMenuItemRepository.findWaitingRequestIds(menuItemId);
+    }
+
     /**
      * Listens for request status updates and emits RequestStatusDto objects.
+     * All subscribers share a single hot pipeline, so every status change is enriched only once,
+     * regardless of the number of subscribers.
      *
      * @return A Flux emitting RequestStatusDto objects for each status update.
      */
     public Flux<RequestStatusDto> listenOnRequestUpdates() {
-        return requestStatusChangeListener.getRequestStatusChanges()
-                .flatMap(notification -> {
-                    int requestId = notification.requestId();
-                    PackingStatus packingStatus = notification.packingStatus();
-                    return findById(requestId)
-                            .map(requestDto -> new RequestStatusDto(requestDto.requestId(), packingStatus, requestDto.preparedItemsCount(),
-                                    requestDto.totalItemsCount()));
+        return requestStatusUpdates;
+    }
+
+    private Mono<RequestStatusDto> toRequestStatusDto(RequestStatusChangeMessage notification) {
+        int requestId = notification.requestId();
+        PackingStatus packingStatus = notification.packingStatus();
+        return findById(requestId)
+                .map(requestDto -> new RequestStatusDto(requestDto.requestId(), packingStatus, requestDto.preparedItemsCount(),
+                        requestDto.totalItemsCount()))
+                .onErrorResume(error -> {
+                    logger.error("Unable to enrich status change of request: {}. Error: {}", requestId, error.getMessage(), error);
+                    return Mono.empty();
                 });
     }
 
@@ -123,7 +219,7 @@ public class RequestServiceImpl implements RequestService {
             Set<Integer> menuItemIds = entities.stream()
                     .map(RequestMenuItemEntity::menuItemId)
                     .collect(Collectors.toSet());
-            return Mono.zip(Mono.just(entities), menuItemRepository.findAllById(menuItemIds).collectList());
+            return Mono.zip(Mono.just(entities), menuCatalog.findAllById(menuItemIds).collectList());
         };
     }
 }
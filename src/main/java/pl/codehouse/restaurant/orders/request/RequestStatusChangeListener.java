@@ -1,9 +1,16 @@
 package pl.codehouse.restaurant.orders.request;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.stereotype.Component;
+import pl.codehouse.restaurant.orders.PipelineContext;
+import pl.codehouse.restaurant.orders.PipelineMetrics;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Sinks;
 
@@ -11,22 +18,72 @@ import reactor.core.publisher.Sinks;
 class RequestStatusChangeListener {
 
     private final Sinks.Many<RequestStatusChangeMessage> notificationSink;
+    private final RequestStatusStreamProperties streamProperties;
+    private final PipelineMetrics pipelineMetrics;
 
     private static final Logger logger = LoggerFactory.getLogger(RequestStatusChangeListener.class);
 
-    RequestStatusChangeListener() {
-        this.notificationSink = Sinks.many().multicast().onBackpressureBuffer();
+    RequestStatusChangeListener(RequestStatusStreamProperties streamProperties, PipelineMetrics pipelineMetrics) {
+        // nothing is buffered while no subscriber is connected, so reconnecting subscribers get no replay of stale changes,
+        // and the sink stays open when the last subscriber leaves
+        this.notificationSink = Sinks.many().multicast().directBestEffort();
+        this.streamProperties = streamProperties;
+        this.pipelineMetrics = pipelineMetrics;
     }
 
+    /**
+     * Receives a request status change and emits it to the subscribers of the status stream.
+     * The time since the request was created is recorded as the stage of its new status, collected requests excluded,
+     * as their collection is driven by the customer, and as the time to ready once the request became ready to collect.
+     *
+     * @param message The request status change.
+     * @param headers The headers of the received message, carrying the pipeline context of the request.
+     */
     @KafkaListener(
             topics = "${app.kafka.request-status.topic.topic-name}",
             groupId = "request-status-change-group")
-    void listen(RequestStatusChangeMessage message) {
+    void listen(RequestStatusChangeMessage message, @Headers Map<String, Object> headers) {
         logger.info("Received request status change: {}", message);
-        notificationSink.tryEmitNext(message);
+        if (message.requestStatus() != RequestStatus.COLLECTED) {
+            PipelineContext.fromHeaders(headers).ifPresent(pipelineContext -> recordStatusChange(message, pipelineContext));
+        }
+        Sinks.EmitResult emitResult = notificationSink.tryEmitNext(message);
+        if (emitResult == Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            logger.debug("No subscribers of request status changes, dropped change of request: {}", message.requestId());
+        } else if (emitResult.isFailure()) {
+            logger.warn("Unable to emit status change of request: {}. Result: {}", message.requestId(), emitResult);
+        }
     }
 
+    /**
+     * Returns the stream of request status changes.
+     * When coalescing is enabled, changes received within the configured window are grouped by request
+     * and only the latest change of every request is emitted, in the order the requests first changed.
+     *
+     * @return A Flux of request status changes.
+     */
     Flux<RequestStatusChangeMessage> getRequestStatusChanges() {
-        return notificationSink.asFlux();
+        if (!streamProperties.coalescingEnabled()) {
+            return notificationSink.asFlux();
+        }
+        return notificationSink.asFlux()
+                .bufferTimeout(streamProperties.coalesceMaxChanges(), streamProperties.coalesceWindow(), true)
+                .concatMapIterable(RequestStatusChangeListener::latestPerRequest);
+    }
+
+    private void recordStatusChange(RequestStatusChangeMessage message, PipelineContext pipelineContext) {
+        pipelineMetrics.recordStage("status-" + message.requestStatus().name().toLowerCase(Locale.ROOT).replace('_', '-'), pipelineContext);
+        if (message.requestStatus() == RequestStatus.READY_TO_COLLECT) {
+            pipelineMetrics.recordReady(pipelineContext);
+        }
+    }
+
+    private static Iterable<RequestStatusChangeMessage> latestPerRequest(List<RequestStatusChangeMessage> changes) {
+        Map<Integer, RequestStatusChangeMessage> latestChanges = new LinkedHashMap<>();
+        changes.forEach(change -> latestChanges.put(change.requestId(), change));
+        if (latestChanges.size() < changes.size()) {
+            logger.debug("Coalesced {} status changes into {}", changes.size(), latestChanges.size());
+        }
+        return latestChanges.values();
     }
 }
@@ -1,30 +1,63 @@
 package pl.codehouse.restaurant.orders.request;
 
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
 import org.springframework.messaging.Message;
-import org.springframework.messaging.support.GenericMessage;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Component;
+import pl.codehouse.restaurant.orders.outbox.OutboxWriter;
 import pl.codehouse.restaurant.orders.shelf.PackingStatus;
+import reactor.core.publisher.Mono;
 
 @Component
 class RequestStatusChangePublisher {
     private static final Logger logger = LoggerFactory.getLogger(RequestStatusChangePublisher.class);
 
-    private final KafkaTemplate<String, RequestStatusChangeMessage> kafkaTemplate;
+    private final OutboxWriter outboxWriter;
     private final RequestStatusChangeKafkaProperties kafkaProperties;
 
-    RequestStatusChangePublisher(KafkaTemplate<String, RequestStatusChangeMessage> kafkaTemplate,
+    RequestStatusChangePublisher(OutboxWriter outboxWriter,
                                         RequestStatusChangeKafkaProperties kafkaProperties) {
-        this.kafkaTemplate = kafkaTemplate;
+        this.outboxWriter = outboxWriter;
         this.kafkaProperties = kafkaProperties;
     }
 
-    void publishChange(int requestId, RequestStatus newStatus, PackingStatus packingStatus) {
+    /**
+     * Publishes the status change of a request through the outbox, within the current transaction.
+     * The message is keyed by the request ID, so status changes of a request are relayed in the order they were published.
+     *
+     * @param requestId The ID of the changed request.
+     * @param newStatus The new status of the request.
+     * @param packingStatus The packing status of the request.
+     * @return A Mono completing once the status change message was written to the outbox.
+     */
+    Mono<Void> publishChange(int requestId, RequestStatus newStatus, PackingStatus packingStatus) {
         RequestStatusChangeMessage payload = new RequestStatusChangeMessage(requestId, newStatus, packingStatus);
-        Message<RequestStatusChangeMessage> message = new GenericMessage<>(payload, kafkaProperties.kafkaHeaders());
+        Message<RequestStatusChangeMessage> message = toMessage(payload);
         logger.info("Notifying on request status update event: {} for the following request: {}", payload.getClass().getSimpleName(), requestId);
-        kafkaTemplate.send(message);
+        return outboxWriter.write(message);
+    }
+
+    /**
+     * Publishes the status changes of several requests through the outbox with a single write, within the current transaction.
+     *
+     * @param changes The status changes to publish.
+     * @return A Mono completing once all status change messages were written to the outbox.
+     */
+    Mono<Void> publishChanges(List<RequestStatusChangeMessage> changes) {
+        logger.info("Notifying on {} request status update events", changes.size());
+        List<Message<RequestStatusChangeMessage>> messages = changes.stream()
+                .map(this::toMessage)
+                .toList();
+        return outboxWriter.writeAll(messages);
+    }
+
+    private Message<RequestStatusChangeMessage> toMessage(RequestStatusChangeMessage payload) {
+        return MessageBuilder.withPayload(payload)
+                .copyHeaders(kafkaProperties.kafkaHeaders())
+                .setHeader(KafkaHeaders.KEY, String.valueOf(payload.requestId()))
+                .build();
     }
 }
@@ -0,0 +1,80 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the coalescing and per-subscriber buffering of the request status notification stream.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.request-status.stream".</p>
+ *
+ * @param overflowStrategy The strategy applied when a subscriber cannot keep up with status updates.
+ * @param bufferSize The maximum number of undelivered updates kept for a single subscriber.
+ * @param maxLag The maximum age of the oldest undelivered update before the subscriber is disconnected.
+ * @param coalesceWindow The window over which status changes of the same request are coalesced, zero disables coalescing.
+ * @param coalesceMaxChanges The maximum number of status changes collected within a single coalescing window.
+ */
+@ConfigurationProperties("app.request-status.stream")
+record RequestStatusStreamProperties(
+        @DefaultValue("BUFFER") OverflowStrategy overflowStrategy,
+        @DefaultValue("256") int bufferSize,
+        @DefaultValue("PT30S") Duration maxLag,
+        @DefaultValue("PT0.2S") Duration coalesceWindow,
+        @DefaultValue("256") int coalesceMaxChanges
+) {
+
+    /**
+     * Creates a new RequestStatusStreamProperties instance.
+     *
+     * @param overflowStrategy The strategy applied when a subscriber cannot keep up with status updates.
+     * @param bufferSize The maximum number of undelivered updates per subscriber, must be greater than zero.
+     * @param maxLag The maximum age of the oldest undelivered update, must be positive.
+     * @param coalesceWindow The coalescing window, must not be negative.
+     * @param coalesceMaxChanges The maximum number of status changes per coalescing window, must be greater than zero.
+     */
+    RequestStatusStreamProperties {
+        if (bufferSize <= 0) {
+            throw new IllegalArgumentException("Subscriber buffer size must be greater than zero");
+        }
+        if (maxLag.isZero() || maxLag.isNegative()) {
+            throw new IllegalArgumentException("Subscriber max lag must be positive");
+        }
+        if (coalesceWindow.isNegative()) {
+            throw new IllegalArgumentException("Coalesce window must not be negative");
+        }
+        if (coalesceMaxChanges <= 0) {
+            throw new IllegalArgumentException("Coalesce max changes must be greater than zero");
+        }
+    }
+
+    /**
+     * Checks whether status changes should be coalesced per request before they are enriched.
+     *
+     * @return true if the coalescing window is greater than zero.
+     */
+    boolean coalescingEnabled() {
+        return !coalesceWindow.isZero();
+    }
+
+    /**
+     * Strategies applied to updates that a subscriber has not consumed yet.
+     */
+    enum OverflowStrategy {
+        /**
+         * Buffer updates up to the buffer size and disconnect the subscriber when the buffer overflows.
+         */
+        BUFFER,
+
+        /**
+         * Buffer updates up to the buffer size and drop the oldest update when the buffer is full.
+         */
+        DROP_OLDEST,
+
+        /**
+         * Keep only the latest undelivered update of every request.
+         */
+        LATEST_PER_REQUEST,
+    }
+}
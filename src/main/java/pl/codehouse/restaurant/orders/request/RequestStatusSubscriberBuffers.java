@@ -0,0 +1,194 @@
+package pl.codehouse.restaurant.orders.request;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+/**
+ * Decouples every status notification subscriber from the shared status stream.
+ * Each subscriber gets its own bounded buffer, handled according to the configured overflow strategy,
+ * so a stalled client can neither grow the heap without limit nor hold back other subscribers.
+ * Subscribers that overflow their buffer or fall behind by more than the configured lag are disconnected.
+ * The lag is checked whenever an update is offered and periodically, so a stalled subscriber is disconnected
+ * even when the requests it waits for do not change any more.
+ */
+@Component
+class RequestStatusSubscriberBuffers {
+    private static final Logger logger = LoggerFactory.getLogger(RequestStatusSubscriberBuffers.class);
+
+    private final RequestStatusStreamProperties properties;
+    private final Clock clock;
+    private final Set<SubscriberBuffer> subscribers = ConcurrentHashMap.newKeySet();
+    private final Counter overflowEvictions;
+    private final Counter lagEvictions;
+    private final Counter droppedUpdates;
+
+    RequestStatusSubscriberBuffers(RequestStatusStreamProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.clock = clock;
+        this.overflowEvictions = meterRegistry.counter("request.status.stream.evictions", "reason", "overflow");
+        this.lagEvictions = meterRegistry.counter("request.status.stream.evictions", "reason", "lag");
+        this.droppedUpdates = meterRegistry.counter("request.status.stream.dropped", "strategy", properties.overflowStrategy().name());
+        Gauge.builder("request.status.stream.subscribers", subscribers, Set::size)
+                .register(meterRegistry);
+        Gauge.builder("request.status.stream.buffer.depth", subscribers, buffers -> buffers.stream().mapToInt(SubscriberBuffer::depth).sum())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Attaches a dedicated subscriber buffer to the shared status stream.
+     *
+     * @param updates The shared stream of status updates.
+     * @return A Flux delivering the status updates to a single subscriber at its own pace.
+     */
+    Flux<RequestStatusDto> attach(Flux<RequestStatusDto> updates) {
+        return Flux.create(sink -> {
+            SubscriberBuffer buffer = new SubscriberBuffer(sink);
+            subscribers.add(buffer);
+            sink.onRequest(requested -> buffer.drain());
+            Disposable upstream = updates.subscribe(buffer::offer, sink::error, sink::complete);
+            sink.onDispose(() -> {
+                upstream.dispose();
+                subscribers.remove(buffer);
+            });
+        }, FluxSink.OverflowStrategy.IGNORE);
+    }
+
+    /**
+     * Discards pending updates of collected requests from the buffers of all subscribers.
+     * Subscribers still receive the update announcing the collection, which is published afterwards.
+     *
+     * @param event The event carrying the IDs of the collected requests.
+     */
+    @EventListener
+    void onRequestsCollected(RequestsCollectedEvent event) {
+        Set<Integer> collectedIds = Set.copyOf(event.requestIds());
+        subscribers.forEach(buffer -> buffer.discard(collectedIds));
+    }
+
+    /**
+     * Disconnects subscribers whose oldest undelivered update is older than the configured max lag.
+     */
+    @Scheduled(fixedDelayString = "${app.request-status.stream.lag-check-interval:PT1S}")
+    void evictLaggingSubscribers() {
+        long now = clock.millis();
+        subscribers.forEach(buffer -> buffer.evictWhenLagging(now));
+    }
+
+    private record PendingUpdate(RequestStatusDto update, long enqueuedAt) {
+    }
+
+    private final class SubscriberBuffer {
+        private final FluxSink<RequestStatusDto> sink;
+        private final Map<Object, PendingUpdate> pending = new LinkedHashMap<>();
+        private long sequence;
+        private volatile int depth;
+        private boolean draining;
+        private boolean evicted;
+
+        SubscriberBuffer(FluxSink<RequestStatusDto> sink) {
+            this.sink = sink;
+        }
+
+        int depth() {
+            return depth;
+        }
+
+        synchronized void offer(RequestStatusDto update) {
+            if (evicted) {
+                return;
+            }
+            long now = clock.millis();
+            switch (properties.overflowStrategy()) {
+                case BUFFER -> {
+                    if (pending.size() >= properties.bufferSize()) {
+                        evict(overflowEvictions, "buffer overflow");
+                        return;
+                    }
+                    pending.put(sequence++, new PendingUpdate(update, now));
+                }
+                case DROP_OLDEST -> {
+                    if (pending.size() >= properties.bufferSize()) {
+                        removeOldest();
+                        droppedUpdates.increment();
+                    }
+                    pending.put(sequence++, new PendingUpdate(update, now));
+                }
+                case LATEST_PER_REQUEST -> {
+                    PendingUpdate previous = pending.get(update.requestId());
+                    if (previous != null) {
+                        // keep the original position and age, the subscriber is still behind since then
+                        pending.put(update.requestId(), new PendingUpdate(update, previous.enqueuedAt()));
+                        droppedUpdates.increment();
+                    } else if (pending.size() >= properties.bufferSize()) {
+                        evict(overflowEvictions, "buffer overflow");
+                        return;
+                    } else {
+                        pending.put(update.requestId(), new PendingUpdate(update, now));
+                    }
+                }
+                default -> throw new IllegalStateException("Unexpected overflow strategy: " + properties.overflowStrategy());
+            }
+            drain();
+            evictWhenLagging(now);
+        }
+
+        synchronized void evictWhenLagging(long now) {
+            if (!evicted && !pending.isEmpty() && now - pending.values().iterator().next().enqueuedAt() > properties.maxLag().toMillis()) {
+                evict(lagEvictions, "lag threshold exceeded");
+            }
+        }
+
+        synchronized void drain() {
+            if (draining || evicted) {
+                return;
+            }
+            draining = true;
+            try {
+                while (!pending.isEmpty() && sink.requestedFromDownstream() > 0) {
+                    sink.next(removeOldest().update());
+                }
+            } finally {
+                draining = false;
+                depth = pending.size();
+            }
+        }
+
+        synchronized void discard(Set<Integer> requestIds) {
+            if (pending.values().removeIf(pendingUpdate -> requestIds.contains(pendingUpdate.update().requestId()))) {
+                depth = pending.size();
+            }
+        }
+
+        private PendingUpdate removeOldest() {
+            Iterator<PendingUpdate> iterator = pending.values().iterator();
+            PendingUpdate oldest = iterator.next();
+            iterator.remove();
+            depth = pending.size();
+            return oldest;
+        }
+
+        private void evict(Counter reason, String description) {
+            logger.warn("Disconnecting slow status notification subscriber with {} pending updates: {}", pending.size(), description);
+            evicted = true;
+            pending.clear();
+            depth = 0;
+            reason.increment();
+            sink.complete();
+        }
+    }
+}
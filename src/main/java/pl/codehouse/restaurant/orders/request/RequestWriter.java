@@ -0,0 +1,133 @@
+package pl.codehouse.restaurant.orders.request;
+
+import io.r2dbc.spi.Row;
+import java.util.Comparator;
+import java.util.List;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Inserts requests and their menu items with multi-row statements.
+ * Rows are passed as arrays and expanded with {@code UNNEST}, so any number of requests is written with two statements,
+ * while a single request is written together with its menu items in one statement.
+ */
+@Component
+class RequestWriter {
+
+    private static final String INSERT_REQUESTS_QUERY = """
+            INSERT INTO request (id, customer_id, status)
+            SELECT NEXTVAL('order_id_seq'), u.customer_id, :status
+            FROM UNNEST(CAST(:customerIds AS INT[])) WITH ORDINALITY AS u(customer_id, idx)
+            ORDER BY u.idx
+            RETURNING id, customer_id, status
+            """;
+
+    private static final String INSERT_MENU_ITEMS_QUERY = """
+            INSERT INTO request_menu_item (request_id, menu_item_id, quantity, prepared, immediate)
+            SELECT *
+            FROM UNNEST(CAST(:requestIds AS INT[]), CAST(:menuItemIds AS INT[]), CAST(:quantities AS INT[]),
+                        CAST(:prepared AS INT[]), CAST(:immediates AS BOOLEAN[]))
+            RETURNING id, request_id, menu_item_id, quantity, prepared, immediate
+            """;
+
+    private static final String INSERT_REQUEST_WITH_MENU_ITEMS_QUERY = """
+            WITH new_request AS (
+                INSERT INTO request (id, customer_id, status)
+                VALUES (NEXTVAL('order_id_seq'), :customerId, :status)
+                RETURNING id
+            )
+            INSERT INTO request_menu_item (request_id, menu_item_id, quantity, prepared, immediate)
+            SELECT r.id, u.menu_item_id, u.quantity, u.prepared, u.immediate
+            FROM new_request r
+            CROSS JOIN UNNEST(CAST(:menuItemIds AS INT[]), CAST(:quantities AS INT[]),
+                              CAST(:prepared AS INT[]), CAST(:immediates AS BOOLEAN[])) AS u(menu_item_id, quantity, prepared, immediate)
+            RETURNING id, request_id, menu_item_id, quantity, prepared, immediate
+            """;
+
+    private final DatabaseClient databaseClient;
+
+    RequestWriter(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    /**
+     * Inserts new requests for the given customers.
+     *
+     * @param customerIds The IDs of the customers, one per request.
+     * @return A Mono emitting the inserted requests, in the order of the given customers.
+     */
+    Mono<List<RequestEntity>> insertRequests(List<Integer> customerIds) {
+        return databaseClient.sql(INSERT_REQUESTS_QUERY)
+                .bind("customerIds", customerIds.toArray(Integer[]::new))
+                .bind("status", RequestStatus.NEW.name())
+                .map(row -> new RequestEntity(
+                        row.get("id", Integer.class),
+                        row.get("customer_id", Integer.class),
+                        RequestStatus.valueOf(row.get("status", String.class))))
+                .all()
+                .sort(Comparator.comparingInt(RequestEntity::id))
+                .collectList();
+    }
+
+    /**
+     * Inserts a new request for the given customer together with its menu items, in a single statement.
+     * The request ID is allocated by the statement itself, so the request IDs of the given menu items are ignored.
+     *
+     * @param customerId The ID of the customer placing the request.
+     * @param menuItems The menu items of the request.
+     * @return A Mono emitting the inserted request and its menu items, with their generated IDs.
+     */
+    Mono<Tuple2<RequestEntity, List<RequestMenuItemEntity>>> insertRequest(int customerId, List<RequestMenuItemEntity> menuItems) {
+        if (menuItems.isEmpty()) {
+            return insertRequests(List.of(customerId))
+                    .map(requests -> Tuples.<RequestEntity, List<RequestMenuItemEntity>>of(requests.getFirst(), List.of()));
+        }
+        return databaseClient.sql(INSERT_REQUEST_WITH_MENU_ITEMS_QUERY)
+                .bind("customerId", customerId)
+                .bind("status", RequestStatus.NEW.name())
+                .bind("menuItemIds", menuItems.stream().map(RequestMenuItemEntity::menuItemId).toArray(Integer[]::new))
+                .bind("quantities", menuItems.stream().map(RequestMenuItemEntity::quantity).toArray(Integer[]::new))
+                .bind("prepared", menuItems.stream().map(RequestMenuItemEntity::prepared).toArray(Integer[]::new))
+                .bind("immediates", menuItems.stream().map(RequestMenuItemEntity::immediate).toArray(Boolean[]::new))
+                .map(RequestWriter::toRequestMenuItem)
+                .all()
+                .collectList()
+                .map(savedMenuItems -> Tuples.of(
+                        new RequestEntity(savedMenuItems.getFirst().requestId(), customerId, RequestStatus.NEW),
+                        savedMenuItems));
+    }
+
+    /**
+     * Inserts request menu items.
+     *
+     * @param menuItems The request menu items to insert.
+     * @return A Flux emitting the inserted request menu items, with their generated IDs.
+     */
+    Flux<RequestMenuItemEntity> insertMenuItems(List<RequestMenuItemEntity> menuItems) {
+        if (menuItems.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql(INSERT_MENU_ITEMS_QUERY)
+                .bind("requestIds", menuItems.stream().map(RequestMenuItemEntity::requestId).toArray(Integer[]::new))
+                .bind("menuItemIds", menuItems.stream().map(RequestMenuItemEntity::menuItemId).toArray(Integer[]::new))
+                .bind("quantities", menuItems.stream().map(RequestMenuItemEntity::quantity).toArray(Integer[]::new))
+                .bind("prepared", menuItems.stream().map(RequestMenuItemEntity::prepared).toArray(Integer[]::new))
+                .bind("immediates", menuItems.stream().map(RequestMenuItemEntity::immediate).toArray(Boolean[]::new))
+                .map(RequestWriter::toRequestMenuItem)
+                .all();
+    }
+
+    private static RequestMenuItemEntity toRequestMenuItem(Row row) {
+        return new RequestMenuItemEntity(
+                row.get("id", Integer.class),
+                row.get("request_id", Integer.class),
+                row.get("menu_item_id", Integer.class),
+                row.get("quantity", Integer.class),
+                row.get("prepared", Integer.class),
+                row.get("immediate", Boolean.class));
+    }
+}
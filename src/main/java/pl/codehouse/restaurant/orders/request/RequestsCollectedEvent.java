@@ -0,0 +1,12 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.util.List;
+
+/**
+ * Application event published once requests were marked as collected.
+ * Components keeping in-memory state of active requests listen to it to evict the collected ones.
+ *
+ * @param requestIds The IDs of the collected requests.
+ */
+public record RequestsCollectedEvent(List<Integer> requestIds) {
+}
@@ -46,14 +46,9 @@ class UpdatePrepairedMenuItemsCommand implements Command<UpdatePreparedMenuItems
                     PackingStatus packingStatus = allItemsCollected ? PackingStatus.READY_TO_COLLECT : PackingStatus.IN_PROGRESS;
 
                     return requestRepository.updateStatusById(requestId, newStatus)
-                            .then(notifyStatusChange(requestId, newStatus, packingStatus))
+                            .then(Mono.defer(() -> statusChangePublisher.publishChange(requestId, newStatus, packingStatus)))
                             .thenReturn(packingStatus);
                 })
                 .map(ExecutionResult::success);
     }
-
-    private Mono<Void> notifyStatusChange(int requestId, RequestStatus newStatus, PackingStatus packingStatus) {
-        statusChangePublisher.publishChange(requestId, newStatus, packingStatus);
-        return Mono.empty();
-    }
 }
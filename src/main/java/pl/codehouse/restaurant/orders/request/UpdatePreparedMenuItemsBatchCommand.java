@@ -0,0 +1,98 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.time.OffsetDateTime;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import pl.codehouse.restaurant.orders.Command;
+import pl.codehouse.restaurant.orders.Context;
+import pl.codehouse.restaurant.orders.ExecutionResult;
+import pl.codehouse.restaurant.orders.PipelineContext;
+import pl.codehouse.restaurant.orders.shelf.PackingStatus;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuples;
+
+/**
+ * Command for updating the prepared count of several menu items of a request at once.
+ * All prepared quantities are applied with a single batched UPDATE, the request status is computed
+ * once by the database afterwards and a single status change is published,
+ * so the cost of the command does not depend on the number of updated menu items.
+ * The status change is published as part of the pipeline started when the request was created,
+ * so the time to ready is measured from the creation of the request even when it was packed after a restock.
+ */
+@Component
+class UpdatePreparedMenuItemsBatchCommand implements Command<UpdatePreparedMenuItemsBatchDto, PackingStatus> {
+    private static final Logger logger = LoggerFactory.getLogger(UpdatePreparedMenuItemsBatchCommand.class);
+
+    private static final String UPDATE_PREPARED_QUERY = """
+            UPDATE request_menu_item rmi
+            SET prepared = rmi.prepared + u.prepared_quantity
+            FROM UNNEST(CAST(:menuItemIds AS INT[]), CAST(:preparedQuantities AS INT[])) AS u(menu_item_id, prepared_quantity)
+            WHERE rmi.request_id = :requestId
+              AND rmi.menu_item_id = u.menu_item_id
+            """;
+
+    private static final String UPDATE_STATUS_QUERY = """
+            UPDATE request r
+            SET status   = s.status,
+                ready_at = CASE WHEN s.status = 'READY_TO_COLLECT' THEN COALESCE(r.ready_at, LOCALTIMESTAMP) END
+            FROM (SELECT CASE
+                             WHEN EXISTS (SELECT 1 FROM request_menu_item WHERE request_id = :requestId AND prepared <> quantity)
+                                 THEN 'IN_PROGRESS'
+                             ELSE 'READY_TO_COLLECT'
+                             END AS status) s
+            WHERE r.id = :requestId
+            RETURNING r.status, CAST(r.created_at AS TIMESTAMPTZ) AS created_at
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final RequestStatusChangePublisher statusChangePublisher;
+
+    UpdatePreparedMenuItemsBatchCommand(DatabaseClient databaseClient, RequestStatusChangePublisher statusChangePublisher) {
+        this.databaseClient = databaseClient;
+        this.statusChangePublisher = statusChangePublisher;
+    }
+
+    @Override
+    @Transactional
+    public Mono<ExecutionResult<PackingStatus>> execute(Context<UpdatePreparedMenuItemsBatchDto> context) {
+        UpdatePreparedMenuItemsBatchDto batchDto = context.request();
+        int requestId = batchDto.requestId();
+        if (batchDto.preparedQuantities().isEmpty()) {
+            return Mono.empty();
+        }
+        logger.info("Updating prepared count of {} request menu items: {}", batchDto.preparedQuantities().size(), batchDto);
+
+        Integer[] menuItemIds = new Integer[batchDto.preparedQuantities().size()];
+        Integer[] preparedQuantities = new Integer[menuItemIds.length];
+        int idx = 0;
+        for (Map.Entry<Integer, Integer> entry : batchDto.preparedQuantities().entrySet()) {
+            menuItemIds[idx] = entry.getKey();
+            preparedQuantities[idx] = entry.getValue();
+            idx++;
+        }
+
+        return databaseClient.sql(UPDATE_PREPARED_QUERY)
+                .bind("requestId", requestId)
+                .bind("menuItemIds", menuItemIds)
+                .bind("preparedQuantities", preparedQuantities)
+                .fetch()
+                .rowsUpdated()
+                .filter(updatedRows -> updatedRows > 0)
+                .flatMap(updatedRows -> databaseClient.sql(UPDATE_STATUS_QUERY)
+                        .bind("requestId", requestId)
+                        .map(row -> Tuples.of(RequestStatus.valueOf(row.get("status", String.class)), row.get("created_at", OffsetDateTime.class).toInstant()))
+                        .one())
+                .flatMap(updatedRequest -> {
+                    RequestStatus newStatus = updatedRequest.getT1();
+                    PackingStatus packingStatus = newStatus == RequestStatus.READY_TO_COLLECT ? PackingStatus.READY_TO_COLLECT : PackingStatus.IN_PROGRESS;
+                    return statusChangePublisher.publishChange(requestId, newStatus, packingStatus)
+                            .contextWrite(PipelineContext.startedAt(updatedRequest.getT2()))
+                            .thenReturn(packingStatus);
+                })
+                .map(ExecutionResult::success);
+    }
+}
@@ -0,0 +1,23 @@
+package pl.codehouse.restaurant.orders.request;
+
+import java.util.Map;
+
+/**
+ * Data Transfer Object (DTO) for updating the prepared quantities of several menu items of a single request at once.
+ * This record encapsulates the prepared quantity of every menu item, keyed by the menu item ID.
+ */
+public record UpdatePreparedMenuItemsBatchDto(
+        int requestId,
+        Map<Integer, Integer> preparedQuantities
+) {
+
+    /**
+     * Creates a new UpdatePreparedMenuItemsBatchDto instance.
+     *
+     * @param requestId The ID of the request whose menu items are updated.
+     * @param preparedQuantities The additional prepared quantity of every menu item, keyed by the menu item ID.
+     */
+    public UpdatePreparedMenuItemsBatchDto {
+        preparedQuantities = Map.copyOf(preparedQuantities);
+    }
+}
@@ -0,0 +1,103 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import pl.codehouse.restaurant.orders.Command;
+import pl.codehouse.restaurant.orders.Context;
+import pl.codehouse.restaurant.orders.ExecutionResult;
+import pl.codehouse.restaurant.orders.request.PackingActionResult;
+import pl.codehouse.restaurant.orders.request.RequestDto;
+import pl.codehouse.restaurant.orders.request.RequestMenuItem;
+import pl.codehouse.restaurant.orders.request.RequestService;
+import pl.codehouse.restaurant.orders.request.UpdatePreparedMenuItemsBatchDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Command packing several requests at once.
+ * All active requests are loaded with one query and the shelf is queried once for every menu item involved,
+ * items taken from the shelf are handed out to the requests in the order of the given request IDs.
+ */
+@Component
+class BatchPackingCommand implements Command<List<Integer>, List<PackingActionResult>> {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchPackingCommand.class);
+
+    private final Shelf shelf;
+    private final RequestService requestService;
+    private final WaitingRequestsIndex waitingRequestsIndex;
+
+    BatchPackingCommand(Shelf shelf, RequestService requestService, WaitingRequestsIndex waitingRequestsIndex) {
+        this.shelf = shelf;
+        this.requestService = requestService;
+        this.waitingRequestsIndex = waitingRequestsIndex;
+    }
+
+    @Override
+    public Mono<ExecutionResult<List<PackingActionResult>>> execute(Context<List<Integer>> context) {
+        List<Integer> requestIds = context.request().stream().distinct().toList();
+        logger.info("Starting collecting requested menu items for {} requests", requestIds.size());
+
+        return requestService.fetchActiveByIds(requestIds)
+                .collectMap(RequestDto::requestId, Function.identity())
+                .map(requestsById -> requestIds.stream().map(requestsById::get).filter(Objects::nonNull).toList())
+                .flatMap(this::packRequests)
+                .map(ExecutionResult::success);
+    }
+
+    private Mono<List<PackingActionResult>> packRequests(List<RequestDto> requests) {
+        List<RequestMenuItem> shelfItems = requests.stream()
+                .flatMap(request -> request.menuItems().stream())
+                .filter(RequestMenuItem::notFinished)
+                .filter(menuItem -> !menuItem.immediatePreparation())
+                .toList();
+
+        return shelf.takeAll(shelfItems)
+                .flatMap(takeResults -> {
+                    Map<Integer, Integer> itemsTakenByRequestMenuItemId = new HashMap<>();
+                    for (int idx = 0; idx < shelfItems.size(); idx++) {
+                        itemsTakenByRequestMenuItemId.put(shelfItems.get(idx).id(), takeResults.get(idx).itemsTakenFromShelf());
+                    }
+                    registerWaitingRequests(requests, shelfItems, takeResults);
+                    return Flux.fromIterable(requests)
+                            .concatMap(request -> updatePreparedMenuItems(request, itemsTakenByRequestMenuItemId))
+                            .map(PackingActionResult::from)
+                            .collectList();
+                });
+    }
+
+    private void registerWaitingRequests(List<RequestDto> requests, List<RequestMenuItem> shelfItems, List<ShelfTakeResult> takeResults) {
+        Map<Integer, Integer> requestIdByRequestMenuItemId = new HashMap<>();
+        requests.forEach(request -> request.menuItems().forEach(menuItem -> requestIdByRequestMenuItemId.put(menuItem.id(), request.requestId())));
+        for (int idx = 0; idx < shelfItems.size(); idx++) {
+            if (takeResults.get(idx).packingStatus() == PackingStatus.REQUESTED_ITEMS) {
+                RequestMenuItem menuItem = shelfItems.get(idx);
+                waitingRequestsIndex.register(menuItem.menuItemId(), requestIdByRequestMenuItemId.get(menuItem.id()));
+            }
+        }
+    }
+
+    private Mono<RequestDto> updatePreparedMenuItems(RequestDto request, Map<Integer, Integer> itemsTakenByRequestMenuItemId) {
+        Map<Integer, Integer> preparedQuantities = new HashMap<>();
+        request.menuItems().stream()
+                .filter(RequestMenuItem::notFinished)
+                .forEach(menuItem -> {
+                    int prepared = menuItem.immediatePreparation()
+                            ? menuItem.remainingItems()
+                            : itemsTakenByRequestMenuItemId.getOrDefault(menuItem.id(), 0);
+                    if (prepared > 0) {
+                        preparedQuantities.put(menuItem.menuItemId(), prepared);
+                    }
+                });
+        if (preparedQuantities.isEmpty()) {
+            return Mono.just(request);
+        }
+        return requestService.updateCollectedItemsInBatch(new UpdatePreparedMenuItemsBatchDto(request.requestId(), preparedQuantities));
+    }
+}
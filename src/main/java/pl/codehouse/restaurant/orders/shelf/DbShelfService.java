@@ -1,12 +1,20 @@
 package pl.codehouse.restaurant.orders.shelf;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import pl.codehouse.restaurant.orders.request.RequestMenuItem;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
 
 @Service
 @ConditionalOnProperty(value = "app.shelf.integration.type", havingValue = "db", matchIfMissing = true)
@@ -15,10 +23,16 @@ class DbShelfService implements ShelfService {
 
     private final Clock clock;
     private final ShelfRepository shelfRepository;
+    private final ShelfDbProperties properties;
+    private final Counter versionConflicts;
+    private final Counter versionRetries;
 
-    DbShelfService(Clock clock, ShelfRepository shelfRepository) {
+    DbShelfService(Clock clock, ShelfRepository shelfRepository, ShelfDbProperties properties, MeterRegistry meterRegistry) {
         this.clock = clock;
         this.shelfRepository = shelfRepository;
+        this.properties = properties;
+        this.versionConflicts = meterRegistry.counter("shelf.version.conflicts");
+        this.versionRetries = meterRegistry.counter("shelf.version.retries");
     }
 
     @Override
@@ -26,6 +40,27 @@ class DbShelfService implements ShelfService {
         return shelfRepository.save(shelfEntity);
     }
 
+    /**
+     * Writes the shelf entity only if the stored row still has the expected version.
+     *
+     * @param shelfEntity the shelf values to write, including the new version.
+     * @param expectedVersion the version the stored row is expected to have, usually the version the entity was read with.
+     * @return the stored Shelf Entity, or an {@link OptimisticLockingFailureException} when the row was changed concurrently.
+     */
+    Mono<ShelfEntity> compareAndSet(ShelfEntity shelfEntity, long expectedVersion) {
+        return shelfRepository.updateIfVersionMatches(
+                        shelfEntity.id(), shelfEntity.quantity(), shelfEntity.version(), shelfEntity.updatedAt(), expectedVersion)
+                .flatMap(updatedRows -> {
+                    if (updatedRows == 0) {
+                        log.debug("Version conflict while updating Shelf of MenuItemId: {}", shelfEntity.menuItemId());
+                        versionConflicts.increment();
+                        return Mono.error(new OptimisticLockingFailureException(
+                                "Shelf of menu item %d was modified concurrently".formatted(shelfEntity.menuItemId())));
+                    }
+                    return Mono.just(shelfEntity);
+                });
+    }
+
     @Override
     public Mono<ShelfEntity> findByMenuItem(RequestMenuItem menuItem) {
         log.info("Find Shelf by MenuItemId: {}", menuItem.menuItemId());
@@ -34,7 +69,64 @@ class DbShelfService implements ShelfService {
                 .switchIfEmpty(Mono.defer(() -> {
                     ShelfEntity newShelf = createNewShelfItemFor(menuItem, clock);
                     log.info("Couldn't find Shelf by MenuItemId: {}. Creating new one: {}", menuItem.menuItemId(), newShelf);
-                    return shelfRepository.save(newShelf);
+                    return shelfRepository.insertIfAbsent(
+                            newShelf.itemName(), newShelf.menuItemId(), newShelf.quantity(), newShelf.version(), newShelf.updatedAt())
+                            .switchIfEmpty(Mono.defer(() -> shelfRepository.findByMenuItemId(menuItem.menuItemId())));
                 }));
     }
+
+    @Override
+    public Mono<Integer> take(RequestMenuItem menuItem, int quantity) {
+        log.info("Take {} items from Shelf by MenuItemId: {}", quantity, menuItem.menuItemId());
+
+        if (properties.concurrencyMode() == ShelfDbProperties.ConcurrencyMode.OPTIMISTIC) {
+            return takeWithVersionCheck(menuItem, quantity);
+        }
+        return shelfRepository.takeByMenuItemId(menuItem.menuItemId(), quantity, LocalDateTime.now(clock))
+                .switchIfEmpty(Mono.defer(() -> findByMenuItem(menuItem).thenReturn(0)));
+    }
+
+    /**
+     * Takes the requested quantities of several menu items from the shelf.
+     * In atomic mode all menu items are taken with a single statement, shelf items missing on the shelf are created afterwards.
+     *
+     * @param demands the total requested quantity of every menu item.
+     * @return the number of items actually taken, keyed by menu item ID.
+     */
+    @Override
+    public Mono<Map<Integer, Integer>> takeAll(Collection<ShelfDemand> demands) {
+        if (properties.concurrencyMode() == ShelfDbProperties.ConcurrencyMode.OPTIMISTIC) {
+            return ShelfService.super.takeAll(demands);
+        }
+        Integer[] menuItemIds = demands.stream().map(demand -> demand.menuItem().menuItemId()).toArray(Integer[]::new);
+        Integer[] quantities = demands.stream().map(ShelfDemand::quantity).toArray(Integer[]::new);
+        log.info("Take items of {} menu items from Shelf at once", menuItemIds.length);
+
+        return shelfRepository.takeAllByMenuItemIds(menuItemIds, quantities, LocalDateTime.now(clock))
+                .collectMap(ShelfTakeRow::menuItemId, ShelfTakeRow::itemsTaken)
+                .flatMap(itemsTaken -> Flux.fromIterable(demands)
+                        .filter(demand -> !itemsTaken.containsKey(demand.menuItem().menuItemId()))
+                        .concatMap(demand -> findByMenuItem(demand.menuItem()))
+                        .then(Mono.just(itemsTaken)));
+    }
+
+    private Mono<Integer> takeWithVersionCheck(RequestMenuItem menuItem, int quantity) {
+        return Mono.defer(() -> findByMenuItem(menuItem)
+                        .flatMap(shelfEntity -> {
+                            int itemsTaken = Math.min(shelfEntity.quantity(), quantity);
+                            if (itemsTaken == 0) {
+                                return Mono.just(0);
+                            }
+                            ShelfEntity updateEntity = shelfEntity.withQuantityUpdate(shelfEntity.quantity() - itemsTaken, LocalDateTime.now(clock));
+                            return compareAndSet(updateEntity, shelfEntity.version()).thenReturn(itemsTaken);
+                        }))
+                .retryWhen(Retry.backoff(properties.maxRetries(), properties.retryBackoff())
+                        .jitter(properties.retryJitter())
+                        .filter(OptimisticLockingFailureException.class::isInstance)
+                        .doBeforeRetry(signal -> {
+                            log.debug("Retrying take from Shelf of MenuItemId: {} after version conflict", menuItem.menuItemId());
+                            versionRetries.increment();
+                        })
+                        .onRetryExhaustedThrow((retrySpec, signal) -> signal.failure()));
+    }
 }
@@ -0,0 +1,42 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for requesting missing menu items from the kitchen.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.kitchen.requests".</p>
+ *
+ * @param aggregationWindow The time shortages of the same menu item are summed up before a single kitchen request is sent.
+ * @param maxShortages The maximum number of shortages aggregated at once, the window is closed earlier when reached.
+ * @param inFlightTimeout The time after which items requested from the kitchen, but not added on the shelf, are no longer considered in flight.
+ */
+@ConfigurationProperties("app.kitchen.requests")
+record KitchenWorkerRequestProperties(
+        @DefaultValue("PT0.2S") Duration aggregationWindow,
+        @DefaultValue("1000") int maxShortages,
+        @DefaultValue("PT2M") Duration inFlightTimeout
+) {
+
+    /**
+     * Creates a new KitchenWorkerRequestProperties instance.
+     *
+     * @param aggregationWindow The aggregation window, must be positive.
+     * @param maxShortages The maximum number of shortages aggregated at once, must be greater than zero.
+     * @param inFlightTimeout The in-flight timeout, must be positive.
+     */
+    KitchenWorkerRequestProperties {
+        if (aggregationWindow == null || aggregationWindow.isNegative() || aggregationWindow.isZero()) {
+            throw new IllegalArgumentException("Kitchen requests aggregation window must be positive");
+        }
+        if (maxShortages <= 0) {
+            throw new IllegalArgumentException("Kitchen requests max shortages must be greater than zero");
+        }
+        if (inFlightTimeout == null || inFlightTimeout.isNegative() || inFlightTimeout.isZero()) {
+            throw new IllegalArgumentException("Kitchen requests in-flight timeout must be positive");
+        }
+    }
+}
@@ -1,30 +1,147 @@
 package pl.codehouse.restaurant.orders.shelf;
 
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.support.GenericMessage;
 import org.springframework.stereotype.Component;
+import pl.codehouse.restaurant.orders.KafkaMessageSender;
 import pl.codehouse.restaurant.orders.request.RequestMenuItem;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+/**
+ * Publisher requesting missing menu items from the kitchen.
+ * Shortages are aggregated per menu item over a short window, a shortage of the same requested menu item reported
+ * more than once within the window is counted once. Only the quantity exceeding the items already requested
+ * from the kitchen, and not yet added on the shelf, is requested, with a single message per menu item.
+ * Items are reserved as requested before the message is sent, the reservation is released when the broker rejected it.
+ * A failure to request a menu item is logged and does not stop the aggregation, so later shortages are still requested.
+ */
 @Component
 class KitchenWorkerRequestPublisher {
     private static final Logger logger = LoggerFactory.getLogger(KitchenWorkerRequestPublisher.class);
+    private static final Duration EMIT_RETRY_DURATION = Duration.ofSeconds(1);
 
     private final KafkaTemplate<String, KitchenWorkerRequestMessage> kafkaTemplate;
+    private final KafkaMessageSender kafkaMessageSender;
     private final KitchenWorkerKafkaProperties kafkaProperties;
+    private final KitchenWorkerRequestProperties properties;
+    private final Clock clock;
+    private final Sinks.Many<Shortage> shortages = Sinks.many().unicast().onBackpressureBuffer();
+    private final Map<Integer, InFlightItems> inFlightItems = new ConcurrentHashMap<>();
+    private final Disposable aggregation;
 
     KitchenWorkerRequestPublisher(KafkaTemplate<String, KitchenWorkerRequestMessage> kafkaTemplate,
-                                  KitchenWorkerKafkaProperties kafkaProperties) {
+                                  KafkaMessageSender kafkaMessageSender,
+                                  KitchenWorkerKafkaProperties kafkaProperties,
+                                  KitchenWorkerRequestProperties properties,
+                                  Clock clock) {
         this.kafkaTemplate = kafkaTemplate;
+        this.kafkaMessageSender = kafkaMessageSender;
         this.kafkaProperties = kafkaProperties;
+        this.properties = properties;
+        this.clock = clock;
+        this.aggregation = shortages.asFlux()
+                .bufferTimeout(properties.maxShortages(), properties.aggregationWindow())
+                .subscribe(this::publishAggregated, error -> logger.error("Aggregation of menu item shortages terminated", error));
     }
 
     void publishRequest(RequestMenuItem menuItem, int quantityToRequest) {
+        logger.debug("Shortage of {} {} menu items reported", quantityToRequest, menuItem.menuItemName());
+        shortages.emitNext(new Shortage(menuItem, quantityToRequest), Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY_DURATION));
+    }
+
+    /**
+     * Marks items requested from the kitchen as delivered, once they were added on the shelf.
+     *
+     * @param menuItemId The ID of the menu item added on the shelf.
+     * @param quantity The number of items added on the shelf.
+     */
+    void itemsAddedOnShelf(int menuItemId, int quantity) {
+        inFlightItems.computeIfPresent(menuItemId, (id, inFlight) -> inFlight.quantity() > quantity
+                ? new InFlightItems(inFlight.quantity() - quantity, inFlight.requestedAt())
+                : null);
+    }
+
+    @PreDestroy
+    void stopAggregation() {
+        shortages.tryEmitComplete();
+        aggregation.dispose();
+    }
+
+    private void publishAggregated(List<Shortage> windowShortages) {
+        Map<Integer, Map<Integer, Shortage>> shortagesByMenuItemId = new LinkedHashMap<>();
+        windowShortages.forEach(shortage -> shortagesByMenuItemId
+                .computeIfAbsent(shortage.menuItem().menuItemId(), menuItemId -> new LinkedHashMap<>())
+                .merge(shortage.menuItem().id(), shortage, (current, next) -> current.quantity() >= next.quantity() ? current : next));
+
+        shortagesByMenuItemId.forEach((menuItemId, shortagesOfRequestedItems) -> {
+            try {
+                requestMissingItems(menuItemId, shortagesOfRequestedItems);
+            } catch (RuntimeException e) {
+                logger.error("Error while requesting missing menu items with ID {} from Kitchen", menuItemId, e);
+            }
+        });
+    }
+
+    private void requestMissingItems(int menuItemId, Map<Integer, Shortage> shortagesOfRequestedItems) {
+        RequestMenuItem menuItem = shortagesOfRequestedItems.values().iterator().next().menuItem();
+        int missingItems = shortagesOfRequestedItems.values().stream().mapToInt(Shortage::quantity).sum();
+        int quantityToRequest = reserve(menuItemId, missingItems);
+        if (quantityToRequest <= 0) {
+            logger.info("{} missing {} menu items are already requested from Kitchen", missingItems, menuItem.menuItemName());
+            return;
+        }
+        send(menuItem, quantityToRequest);
+    }
+
+    private int reserve(int menuItemId, int missingItems) {
+        Instant now = clock.instant();
+        int[] quantityToRequest = {0};
+        inFlightItems.compute(menuItemId, (id, inFlight) -> {
+            int alreadyRequested = inFlight == null || inFlight.expiredAt(now, properties.inFlightTimeout()) ? 0 : inFlight.quantity();
+            if (missingItems <= alreadyRequested) {
+                return inFlight;
+            }
+            quantityToRequest[0] = missingItems - alreadyRequested;
+            return new InFlightItems(missingItems, now);
+        });
+        return quantityToRequest[0];
+    }
+
+    private void send(RequestMenuItem menuItem, int quantityToRequest) {
         logger.info("Requesting Kitchen to create {} new {} menu items", quantityToRequest, menuItem.menuItemName());
-        KitchenWorkerRequestMessage payload = new KitchenWorkerRequestMessage(menuItem.menuItemId(), quantityToRequest);
-        Message<KitchenWorkerRequestMessage> message = new GenericMessage<>(payload, kafkaProperties.kafkaHeaders());
-        kafkaTemplate.send(message);
+        Mono.defer(() -> {
+                    KitchenWorkerRequestMessage payload = new KitchenWorkerRequestMessage(menuItem.menuItemId(), quantityToRequest);
+                    Message<KitchenWorkerRequestMessage> message = new GenericMessage<>(payload, kafkaProperties.kafkaHeaders());
+                    return kafkaMessageSender.send(kafkaTemplate, message);
+                })
+                .subscribe(
+                        result -> logger.debug("Kitchen acknowledged request of {} {} menu items", quantityToRequest, menuItem.menuItemName()),
+                        error -> {
+                            logger.error("Error while requesting {} {} menu items from Kitchen, releasing the reservation",
+                                    quantityToRequest, menuItem.menuItemName(), error);
+                            itemsAddedOnShelf(menuItem.menuItemId(), quantityToRequest);
+                        });
+    }
+
+    private record Shortage(RequestMenuItem menuItem, int quantity) {
+    }
+
+    private record InFlightItems(int quantity, Instant requestedAt) {
+        boolean expiredAt(Instant now, Duration timeout) {
+            return requestedAt.plus(timeout).isBefore(now);
+        }
     }
 }
@@ -0,0 +1,186 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import pl.codehouse.restaurant.orders.request.RequestMenuItem;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Shelf kept in memory, for stores where the shelf throughput is the bottleneck.
+ * Quantities of every menu item are held in lock-free counters, sharded by menu item ID,
+ * so taking items is a compare-and-set decrement without a database round trip.
+ * The shelf is loaded from the database on startup and changed items are persisted by the {@link ShelfWriteBehind}.
+ * While the in-memory shelf is active it owns the stock, so items added on the shelf are added to the counters
+ * from the shelf events and reach the database through the write-behind as well.
+ */
+@Service
+@ConditionalOnProperty(value = "app.shelf.integration.type", havingValue = "memory")
+class MemoryShelfService implements ShelfService {
+    private static final Logger log = LoggerFactory.getLogger(MemoryShelfService.class);
+
+    private final Clock clock;
+    private final ShelfRepository shelfRepository;
+    private final ShelfWriteBehind writeBehind;
+    private final List<Map<Integer, ShelfSlot>> shards;
+    private final Mono<Void> initialLoad;
+
+    MemoryShelfService(Clock clock, ShelfRepository shelfRepository, ShelfWriteBehind writeBehind, ShelfMemoryProperties properties) {
+        this.clock = clock;
+        this.shelfRepository = shelfRepository;
+        this.writeBehind = writeBehind;
+        this.shards = IntStream.range(0, properties.shards())
+                .<Map<Integer, ShelfSlot>>mapToObj(shard -> new ConcurrentHashMap<>())
+                .toList();
+        this.initialLoad = shelfRepository.findAll()
+                .doOnNext(this::register)
+                .count()
+                .doOnNext(loadedItems -> log.info("Loaded {} shelf items into memory", loadedItems))
+                .retryWhen(Retry.backoff(3, Duration.ofSeconds(1)))
+                .then()
+                .cache();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void loadOnStartup() {
+        initialLoad.subscribe(null, error -> log.error("Failed to load shelf items into memory", error));
+    }
+
+    @Override
+    public Mono<ShelfEntity> save(ShelfEntity shelfEntity) {
+        if (shelfEntity.id() == 0) {
+            return shelfRepository.save(shelfEntity)
+                    .map(savedEntity -> register(savedEntity).snapshot());
+        }
+        ShelfSlot slot = shardFor(shelfEntity.menuItemId()).computeIfAbsent(shelfEntity.menuItemId(), menuItemId -> new ShelfSlot(shelfEntity));
+        slot.overwrite(shelfEntity);
+        ShelfEntity savedEntity = slot.snapshot();
+        writeBehind.enqueue(savedEntity);
+        return Mono.just(savedEntity);
+    }
+
+    @Override
+    public Mono<ShelfEntity> findByMenuItem(RequestMenuItem menuItem) {
+        return findSlot(menuItem).map(ShelfSlot::snapshot);
+    }
+
+    @Override
+    public Mono<Integer> take(RequestMenuItem menuItem, int quantity) {
+        return findSlot(menuItem).map(slot -> {
+            int itemsTaken = slot.take(quantity, LocalDateTime.now(clock));
+            if (itemsTaken > 0) {
+                writeBehind.enqueue(slot.snapshot());
+            }
+            return itemsTaken;
+        });
+    }
+
+    @Override
+    public Mono<Void> restock(int menuItemId, int quantity) {
+        if (quantity <= 0) {
+            return Mono.empty();
+        }
+        return initialLoad.then(Mono.defer(() -> {
+                    ShelfSlot slot = shardFor(menuItemId).get(menuItemId);
+                    if (slot != null) {
+                        return Mono.just(slot);
+                    }
+                    return shelfRepository.findByMenuItemId(menuItemId).map(this::register);
+                }))
+                .doOnNext(slot -> {
+                    slot.add(quantity, LocalDateTime.now(clock));
+                    writeBehind.enqueue(slot.snapshot());
+                })
+                .switchIfEmpty(Mono.fromRunnable(() ->
+                        log.warn("Couldn't find Shelf by MenuItemId: {}. Skipping {} items added on shelf", menuItemId, quantity)))
+                .then();
+    }
+
+    private Mono<ShelfSlot> findSlot(RequestMenuItem menuItem) {
+        return initialLoad.then(Mono.defer(() -> {
+            ShelfSlot slot = shardFor(menuItem.menuItemId()).get(menuItem.menuItemId());
+            if (slot != null) {
+                return Mono.just(slot);
+            }
+            return shelfRepository.findByMenuItemId(menuItem.menuItemId())
+                    .switchIfEmpty(Mono.defer(() -> {
+                        ShelfEntity newShelf = createNewShelfItemFor(menuItem, clock);
+                        log.info("Couldn't find Shelf by MenuItemId: {}. Creating new one: {}", menuItem.menuItemId(), newShelf);
+                        return shelfRepository.insertIfAbsent(
+                                newShelf.itemName(), newShelf.menuItemId(), newShelf.quantity(), newShelf.version(), newShelf.updatedAt())
+                                .switchIfEmpty(Mono.defer(() -> shelfRepository.findByMenuItemId(menuItem.menuItemId())));
+                    }))
+                    .map(this::register);
+        }));
+    }
+
+    private ShelfSlot register(ShelfEntity shelfEntity) {
+        return shardFor(shelfEntity.menuItemId()).computeIfAbsent(shelfEntity.menuItemId(), menuItemId -> new ShelfSlot(shelfEntity));
+    }
+
+    private Map<Integer, ShelfSlot> shardFor(int menuItemId) {
+        return shards.get(Math.floorMod(menuItemId, shards.size()));
+    }
+
+    private static final class ShelfSlot {
+        private final int id;
+        private final String itemName;
+        private final int menuItemId;
+        private final AtomicInteger quantity;
+        private final AtomicLong version;
+        private volatile LocalDateTime updatedAt;
+
+        ShelfSlot(ShelfEntity shelfEntity) {
+            this.id = shelfEntity.id();
+            this.itemName = shelfEntity.itemName();
+            this.menuItemId = shelfEntity.menuItemId();
+            this.quantity = new AtomicInteger(shelfEntity.quantity());
+            this.version = new AtomicLong(shelfEntity.version());
+            this.updatedAt = shelfEntity.updatedAt();
+        }
+
+        int take(int requested, LocalDateTime now) {
+            while (true) {
+                int current = quantity.get();
+                int itemsTaken = Math.min(current, requested);
+                if (itemsTaken == 0) {
+                    return 0;
+                }
+                if (quantity.compareAndSet(current, current - itemsTaken)) {
+                    version.incrementAndGet();
+                    updatedAt = now;
+                    return itemsTaken;
+                }
+            }
+        }
+
+        void add(int added, LocalDateTime now) {
+            quantity.addAndGet(added);
+            version.incrementAndGet();
+            updatedAt = now;
+        }
+
+        void overwrite(ShelfEntity shelfEntity) {
+            quantity.set(shelfEntity.quantity());
+            version.set(shelfEntity.version());
+            updatedAt = shelfEntity.updatedAt();
+        }
+
+        ShelfEntity snapshot() {
+            return new ShelfEntity(id, itemName, menuItemId, quantity.get(), version.get(), updatedAt);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package pl.codehouse.restaurant.orders.shelf;
 
+import java.util.Map;
 import org.slf4j.Logger;
 import org.springframework.stereotype.Component;
 import pl.codehouse.restaurant.orders.Command;
@@ -9,7 +10,7 @@ import pl.codehouse.restaurant.orders.request.PackingActionResult;
 import pl.codehouse.restaurant.orders.request.RequestDto;
 import pl.codehouse.restaurant.orders.request.RequestMenuItem;
 import pl.codehouse.restaurant.orders.request.RequestService;
-import pl.codehouse.restaurant.orders.request.UpdatePreparedMenuItemsDto;
+import pl.codehouse.restaurant.orders.request.UpdatePreparedMenuItemsBatchDto;
 import reactor.core.publisher.Mono;
 import reactor.util.function.Tuple2;
 import reactor.util.function.Tuples;
@@ -21,10 +22,12 @@ class PackingCommand implements Command<Integer, PackingActionResult> {
 
     private final Shelf shelf;
     private final RequestService requestService;
+    private final WaitingRequestsIndex waitingRequestsIndex;
 
-    PackingCommand(Shelf shelf, RequestService requestService) {
+    PackingCommand(Shelf shelf, RequestService requestService, WaitingRequestsIndex waitingRequestsIndex) {
         this.shelf = shelf;
         this.requestService = requestService;
+        this.waitingRequestsIndex = waitingRequestsIndex;
     }
 
     @Override
@@ -37,19 +40,25 @@ class PackingCommand implements Command<Integer, PackingActionResult> {
                 .filter(RequestMenuItem::notFinished)
                 .doOnNext(signal -> logger.info("Searching for following item on shelf -> {}", signal))
                 .flatMap(this::mapShelfTakeResultStatusBasedOnRequestedMenuItem)
-                .flatMap(itemStatus -> updatePreparedMenuItems(requestId, itemStatus))
-                .then(requestService.findById(requestId).map(this::fromRequest))
+                .doOnNext(itemStatus -> registerWhenWaiting(requestId, itemStatus.getT1(), itemStatus.getT2()))
+                .filter(itemStatus -> itemStatus.getT2().itemsTakenFromShelf() > 0)
+                .collectMap(itemStatus -> itemStatus.getT1().menuItemId(), itemStatus -> itemStatus.getT2().itemsTakenFromShelf())
+                .flatMap(preparedQuantities -> updatePreparedMenuItems(requestId, preparedQuantities))
+                .map(PackingActionResult::from)
                 .map(ExecutionResult::success);
     }
 
-    private Mono<RequestDto> updatePreparedMenuItems(int requestId, Tuple2<RequestMenuItem, ShelfTakeResult> itemStatus) {
-        RequestMenuItem requestMenuItem = itemStatus.getT1();
-        ShelfTakeResult shelfTakeResult = itemStatus.getT2();
-        if (shelfTakeResult.itemsTakenFromShelf() == 0) {
-            return Mono.empty();
+    private void registerWhenWaiting(int requestId, RequestMenuItem menuItem, ShelfTakeResult takeResult) {
+        if (takeResult.packingStatus() == PackingStatus.REQUESTED_ITEMS) {
+            waitingRequestsIndex.register(menuItem.menuItemId(), requestId);
         }
-        return requestService.updateCollectedItems(
-                new UpdatePreparedMenuItemsDto(requestId, requestMenuItem.menuItemId(), shelfTakeResult.itemsTakenFromShelf()));
+    }
+
+    private Mono<RequestDto> updatePreparedMenuItems(int requestId, Map<Integer, Integer> preparedQuantities) {
+        if (preparedQuantities.isEmpty()) {
+            return requestService.findById(requestId);
+        }
+        return requestService.updateCollectedItemsInBatch(new UpdatePreparedMenuItemsBatchDto(requestId, preparedQuantities));
     }
 
     private Mono<Tuple2<RequestMenuItem, ShelfTakeResult>> mapShelfTakeResultStatusBasedOnRequestedMenuItem(RequestMenuItem missingItem) {
@@ -61,8 +70,4 @@ class PackingCommand implements Command<Integer, PackingActionResult> {
         return Mono.just(missingItem)
                 .zipWhen(shelf::take);
     }
-
-    private PackingActionResult fromRequest(RequestDto requestDto) {
-        return new PackingActionResult(requestDto.requestId(), requestDto.preparedItemsCount(), requestDto.totalItemsCount(), requestDto.status());
-    }
 }
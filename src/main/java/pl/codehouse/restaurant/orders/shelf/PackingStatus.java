@@ -24,4 +24,9 @@ public enum PackingStatus {
      * Indicates that the packing process for the request has not yet started.
      */
     NOT_STARTED,
+
+    /**
+     * Indicates that the request was handed over to the customer.
+     */
+    COLLECTED,
 }
@@ -1,7 +1,10 @@
 package pl.codehouse.restaurant.orders.shelf;
 
-import java.time.Clock;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -16,24 +19,23 @@ import reactor.core.publisher.Mono;
 @Service
 public class Shelf {
     private static final Logger logger = LoggerFactory.getLogger(Shelf.class);
-    private final Clock clock;
     private final ShelfService shelfService;
     private final KitchenWorkerRequestPublisher workerRequestPublisher;
 
     /**
-     * Constructs a new ShelfBO with the specified clock and repository.
+     * Constructs a new ShelfBO with the specified shelf service and kitchen worker publisher.
      *
-     * @param clock The clock to use for timestamp operations.
+     * @param shelfService The service taking menu items from the shelf.
+     * @param workerRequestPublisher The publisher requesting missing menu items from the kitchen.
      */
-    Shelf(Clock clock, ShelfService shelfService, KitchenWorkerRequestPublisher workerRequestPublisher) {
-        this.clock = clock;
+    Shelf(ShelfService shelfService, KitchenWorkerRequestPublisher workerRequestPublisher) {
         this.shelfService = shelfService;
         this.workerRequestPublisher = workerRequestPublisher;
     }
 
     /**
      * Attempts to take a requested menu item from the shelf.
-     * This method handles the logic for updating shelf quantities and requesting new items if necessary.
+     * The shelf quantity is decremented atomically by the shelf service and missing items are requested from the kitchen.
      *
      * @param menuItem The requested menu item to take from the shelf.
      * @return A Mono emitting a ShelfTakeResult indicating the result of the operation.
@@ -48,26 +50,56 @@ public class Shelf {
             return Mono.error(new IllegalArgumentException("Requested menu item amount need to be greater than zero"));
         }
 
-        Mono<ShelfEntity> entityMono = shelfService.findByMenuItem(menuItem);
+        return shelfService.take(menuItem, menuItem.remainingItems())
+                .map(itemsTaken -> toTakeResult(menuItem, itemsTaken));
+    }
+
+    /**
+     * Attempts to take several requested menu items, possibly of different requests, from the shelf at once.
+     * The shelf is queried once for all involved menu items and the items taken are handed out
+     * to the requested menu items in the given order, missing items are requested from the kitchen.
+     *
+     * @param menuItems The requested menu items to take from the shelf, in the order they should be served.
+     * @return A Mono emitting the ShelfTakeResult of every requested menu item, in the given order.
+     * @throws IllegalArgumentException if any of the requested quantities is not positive.
+     */
+    public Mono<List<ShelfTakeResult>> takeAll(List<RequestMenuItem> menuItems) {
+        logger.info("Collecting {} requested menu items from the shelf at once", menuItems.size());
+        if (menuItems.stream().anyMatch(menuItem -> menuItem.remainingItems() <= 0)) {
+            return Mono.error(new IllegalArgumentException("Requested menu item amount need to be greater than zero"));
+        }
+        if (menuItems.isEmpty()) {
+            return Mono.just(List.of());
+        }
 
-        return entityMono.flatMap(shelfEntity -> takeFromShelfOrRequestFromKitchen(menuItem, shelfEntity));
+        Map<Integer, ShelfDemand> demands = new LinkedHashMap<>();
+        menuItems.forEach(menuItem -> demands.merge(menuItem.menuItemId(), new ShelfDemand(menuItem, menuItem.remainingItems()),
+                (demand, other) -> new ShelfDemand(demand.menuItem(), demand.quantity() + other.quantity())));
+
+        return shelfService.takeAll(demands.values())
+                .map(itemsTaken -> handOut(menuItems, new HashMap<>(itemsTaken)));
+    }
+
+    private List<ShelfTakeResult> handOut(List<RequestMenuItem> menuItems, Map<Integer, Integer> availableItems) {
+        List<ShelfTakeResult> results = new ArrayList<>(menuItems.size());
+        for (RequestMenuItem menuItem : menuItems) {
+            int available = availableItems.getOrDefault(menuItem.menuItemId(), 0);
+            int itemsTaken = Math.min(available, menuItem.remainingItems());
+            availableItems.put(menuItem.menuItemId(), available - itemsTaken);
+            results.add(toTakeResult(menuItem, itemsTaken));
+        }
+        return results;
     }
 
-    private Mono<ShelfTakeResult> takeFromShelfOrRequestFromKitchen(RequestMenuItem menuItem, ShelfEntity shelfEntity) {
-        if (shelfEntity.quantity() < menuItem.remainingItems()) {
-            logger.info("On the Shelf, the menu items of {}: {} have less items then requested in order - {}, requested: {}", shelfEntity.itemName(),
-                        shelfEntity.menuItemId(), shelfEntity.quantity(), menuItem.remainingItems()
+    private ShelfTakeResult toTakeResult(RequestMenuItem menuItem, int itemsTaken) {
+        if (itemsTaken < menuItem.remainingItems()) {
+            logger.info("On the Shelf, the menu items of {}: {} have less items then requested in order - {}, requested: {}", menuItem.menuItemName(),
+                        menuItem.menuItemId(), itemsTaken, menuItem.remainingItems()
             );
-            int quantityToRequest = menuItem.remainingItems() - shelfEntity.quantity();
+            int quantityToRequest = menuItem.remainingItems() - itemsTaken;
             workerRequestPublisher.publishRequest(menuItem, quantityToRequest);
-            ShelfEntity updateEntity = shelfEntity.withQuantityUpdate(0, LocalDateTime.now(clock));
-
-            return shelfService.save(updateEntity).thenReturn(new ShelfTakeResult(PackingStatus.REQUESTED_ITEMS, shelfEntity.quantity()));
+            return new ShelfTakeResult(PackingStatus.REQUESTED_ITEMS, itemsTaken);
         }
-
-        int itemsTaken = shelfEntity.quantity() - menuItem.remainingItems();
-        ShelfEntity updateEntity = shelfEntity.withQuantityUpdate(itemsTaken, LocalDateTime.now(clock));
-
-        return shelfService.save(updateEntity).thenReturn(new ShelfTakeResult(PackingStatus.READY_TO_COLLECT, menuItem.remainingItems()));
+        return new ShelfTakeResult(PackingStatus.READY_TO_COLLECT, itemsTaken);
     }
 }
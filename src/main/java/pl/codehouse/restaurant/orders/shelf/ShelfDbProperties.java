@@ -0,0 +1,61 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the database backed shelf.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.shelf.db".</p>
+ *
+ * @param concurrencyMode The way concurrent takes of the same menu item are handled.
+ * @param maxRetries The maximum number of retries after a version conflict.
+ * @param retryBackoff The minimum backoff before retrying after a version conflict.
+ * @param retryJitter The jitter factor applied to the retry backoff, between 0 and 1.
+ */
+@ConfigurationProperties("app.shelf.db")
+record ShelfDbProperties(
+        @DefaultValue("ATOMIC") ConcurrencyMode concurrencyMode,
+        @DefaultValue("5") int maxRetries,
+        @DefaultValue("PT0.01S") Duration retryBackoff,
+        @DefaultValue("0.5") double retryJitter
+) {
+
+    /**
+     * Creates a new ShelfDbProperties instance.
+     *
+     * @param concurrencyMode The way concurrent takes of the same menu item are handled.
+     * @param maxRetries The maximum number of retries after a version conflict, must not be negative.
+     * @param retryBackoff The minimum backoff before retrying, must not be negative.
+     * @param retryJitter The jitter factor applied to the retry backoff, must be between 0 and 1.
+     */
+    ShelfDbProperties {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException("Shelf max retries must not be negative");
+        }
+        if (retryBackoff.isNegative()) {
+            throw new IllegalArgumentException("Shelf retry backoff must not be negative");
+        }
+        if (retryJitter < 0 || retryJitter > 1) {
+            throw new IllegalArgumentException("Shelf retry jitter must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Ways of handling concurrent takes of the same menu item.
+     */
+    enum ConcurrencyMode {
+        /**
+         * Decrement the shelf quantity with a single atomic UPDATE statement.
+         */
+        ATOMIC,
+
+        /**
+         * Read the shelf entity, compute the new quantity and write it back with a version check,
+         * retrying with jittered backoff on conflicts.
+         */
+        OPTIMISTIC,
+    }
+}
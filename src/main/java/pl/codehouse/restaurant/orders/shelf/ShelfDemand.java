@@ -0,0 +1,12 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import pl.codehouse.restaurant.orders.request.RequestMenuItem;
+
+/**
+ * The total quantity of a menu item requested from the shelf.
+ *
+ * @param menuItem The requested menu item, used to identify the shelf item or to create it when missing.
+ * @param quantity The total requested quantity.
+ */
+record ShelfDemand(RequestMenuItem menuItem, int quantity) {
+}
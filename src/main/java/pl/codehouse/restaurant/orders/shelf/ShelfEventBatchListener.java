@@ -0,0 +1,96 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+import pl.codehouse.restaurant.orders.Context;
+import pl.codehouse.restaurant.orders.ExecutionResult;
+import pl.codehouse.restaurant.orders.PipelineContext;
+import pl.codehouse.restaurant.orders.PipelineMetrics;
+import pl.codehouse.restaurant.orders.request.EventType;
+import pl.codehouse.restaurant.orders.request.ShelfEventDto;
+
+/**
+ * Listener packing requests on batches of shelf events.
+ * Every poll delivers a batch of events, which are deduplicated by request ID and packed together
+ * with shared request and shelf lookups. Items added on the shelf are added to the {@link ShelfService}
+ * and re-pack the requests waiting for them, in the order they started waiting. Offsets of the batch are committed once the whole batch was packed.
+ * The time new requests were received is recorded by the {@link PipelineMetrics}, the batch is packed on behalf
+ * of many requests at once, so their pipeline contexts are not carried further.
+ */
+@Component
+@ConditionalOnProperty(value = "app.shelf.events.listener-mode", havingValue = "batch")
+class ShelfEventBatchListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShelfEventBatchListener.class);
+
+    private final BatchPackingCommand batchPackingCommand;
+    private final ShelfService shelfService;
+    private final WaitingRequestsIndex waitingRequestsIndex;
+    private final KitchenWorkerRequestPublisher workerRequestPublisher;
+    private final PipelineMetrics pipelineMetrics;
+
+    ShelfEventBatchListener(BatchPackingCommand batchPackingCommand,
+                            ShelfService shelfService,
+                            WaitingRequestsIndex waitingRequestsIndex,
+                            KitchenWorkerRequestPublisher workerRequestPublisher,
+                            PipelineMetrics pipelineMetrics) {
+        this.batchPackingCommand = batchPackingCommand;
+        this.shelfService = shelfService;
+        this.waitingRequestsIndex = waitingRequestsIndex;
+        this.workerRequestPublisher = workerRequestPublisher;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
+    @KafkaListener(
+            topics = "${app.kafka.shelf.topic.topic-name}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "shelfEventBatchListenerContainerFactory")
+    public void listen(List<ShelfEventDto> events,
+                       @Header(name = KafkaHeaders.BATCH_CONVERTED_HEADERS, required = false) List<Map<String, Object>> headers) {
+        recordReceivedRequests(events, headers);
+        List<Integer> requestIds = requestIdsToPack(events);
+        if (requestIds.isEmpty()) {
+            return;
+        }
+        logger.info("Received batch of {} shelf events for {} requests", events.size(), requestIds.size());
+
+        batchPackingCommand.execute(new Context<>(requestIds))
+                .map(ExecutionResult::handle)
+                .doOnSuccess(results -> logger.info("Packing command for batch of {} requests finished with the following:{}", requestIds.size(), results))
+                .block();
+    }
+
+    private void recordReceivedRequests(List<ShelfEventDto> events, List<Map<String, Object>> headers) {
+        if (headers == null) {
+            return;
+        }
+        for (int idx = 0; idx < events.size() && idx < headers.size(); idx++) {
+            if (events.get(idx).eventType() != EventType.ITEM_ADDED_ON_SHELF) {
+                PipelineContext.fromHeaders(headers.get(idx))
+                        .ifPresent(pipelineContext -> pipelineMetrics.recordStage("shelf-event-received", pipelineContext));
+            }
+        }
+    }
+
+    private List<Integer> requestIdsToPack(List<ShelfEventDto> events) {
+        LinkedHashSet<Integer> requestIds = new LinkedHashSet<>();
+        for (ShelfEventDto event : events) {
+            if (event.eventType() != EventType.ITEM_ADDED_ON_SHELF) {
+                requestIds.add(event.requestId());
+                continue;
+            }
+            workerRequestPublisher.itemsAddedOnShelf(event.menuItemId(), event.quantity());
+            shelfService.restock(event.menuItemId(), event.quantity()).block();
+            requestIds.addAll(waitingRequestsIndex.drain(event.menuItemId()).block());
+        }
+        return List.copyOf(requestIds);
+    }
+}
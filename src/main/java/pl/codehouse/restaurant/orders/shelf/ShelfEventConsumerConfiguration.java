@@ -0,0 +1,67 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import java.util.Properties;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+
+/**
+ * Configuration of the Kafka consumer for shelf events.
+ */
+@Configuration
+class ShelfEventConsumerConfiguration {
+
+    /**
+     * Creates the listener container factory used by the shelf event listener.
+     * Offsets are acknowledged manually once packing of an event completes, and acknowledgements
+     * may arrive out of order, the container commits an offset only when all preceding ones were acknowledged.
+     *
+     * @param configurer The Spring Boot configurer applying the {@code spring.kafka} properties.
+     * @param consumerFactory The Kafka consumer factory.
+     * @return The listener container factory for shelf events.
+     */
+    @Bean
+    ConcurrentKafkaListenerContainerFactory<Object, Object> shelfEventListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
+    }
+
+    /**
+     * Creates the listener container factory used by the batch shelf event listener.
+     * A single poll returns up to the configured batch size of events, the broker waits at most the configured time to fill it.
+     * Offsets of a batch are committed once the listener returns.
+     *
+     * @param configurer The Spring Boot configurer applying the {@code spring.kafka} properties.
+     * @param consumerFactory The Kafka consumer factory.
+     * @param properties The shelf event processing properties.
+     * @return The batch listener container factory for shelf events.
+     */
+    @Bean
+    @ConditionalOnProperty(value = "app.shelf.events.listener-mode", havingValue = "batch")
+    ConcurrentKafkaListenerContainerFactory<Object, Object> shelfEventBatchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            ShelfEventProcessingProperties properties
+    ) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        Properties consumerProperties = new Properties();
+        consumerProperties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(properties.batchSize()));
+        consumerProperties.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, String.valueOf(properties.batchMaxWait().toMillis()));
+        factory.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        return factory;
+    }
+}
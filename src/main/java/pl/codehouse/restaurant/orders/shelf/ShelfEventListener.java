@@ -1,36 +1,177 @@
 package pl.codehouse.restaurant.orders.shelf;
 
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.messaging.handler.annotation.Headers;
 import org.springframework.stereotype.Component;
 import pl.codehouse.restaurant.orders.Context;
 import pl.codehouse.restaurant.orders.ExecutionResult;
+import pl.codehouse.restaurant.orders.PipelineContext;
+import pl.codehouse.restaurant.orders.PipelineMetrics;
+import pl.codehouse.restaurant.orders.request.EventType;
+import pl.codehouse.restaurant.orders.request.PackingActionResult;
 import pl.codehouse.restaurant.orders.request.ShelfEventDto;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 
+/**
+ * Listener packing requests on shelf events.
+ * Events are spread over a fixed number of lanes by request ID, every lane packs its events one after another,
+ * so events of the same request never race, while different requests are packed in parallel.
+ * Items added on the shelf are first added to the {@link ShelfService}, then they re-pack only the requests waiting for them,
+ * one after another in the order they started waiting.
+ * The number of received but not packed events is bounded, and the offset of an event is acknowledged
+ * only after its packing finished, so events received but not packed yet are redelivered after a restart.
+ * A packing which failed is logged and acknowledged as well, the event is not redelivered.
+ * Events of new requests without a request ID are skipped.
+ * A new request is packed within the {@link PipelineContext} received with its event, so the status changes it causes
+ * carry it further, and the time it was received and packed is recorded by the {@link PipelineMetrics}.
+ */
 @Component
+@ConditionalOnProperty(value = "app.shelf.events.listener-mode", havingValue = "record", matchIfMissing = true)
 class ShelfEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(ShelfEventListener.class);
+    private static final Duration EMIT_RETRY_DURATION = Duration.ofSeconds(1);
 
     private final PackingCommand packingCommand;
+    private final ShelfService shelfService;
+    private final WaitingRequestsIndex waitingRequestsIndex;
+    private final KitchenWorkerRequestPublisher workerRequestPublisher;
+    private final PipelineMetrics pipelineMetrics;
+    private final Semaphore inFlightEvents;
+    private final Sinks.Many<PackingTask> packingTasks = Sinks.many().unicast().onBackpressureBuffer();
+    private final Sinks.Many<ReceivedRestock> receivedRestocks = Sinks.many().unicast().onBackpressureBuffer();
+    private final Disposable processing;
 
-    ShelfEventListener(PackingCommand packingCommand) {
+    ShelfEventListener(PackingCommand packingCommand,
+                       ShelfService shelfService,
+                       WaitingRequestsIndex waitingRequestsIndex,
+                       KitchenWorkerRequestPublisher workerRequestPublisher,
+                       PipelineMetrics pipelineMetrics,
+                       ShelfEventProcessingProperties properties) {
         this.packingCommand = packingCommand;
+        this.shelfService = shelfService;
+        this.waitingRequestsIndex = waitingRequestsIndex;
+        this.workerRequestPublisher = workerRequestPublisher;
+        this.pipelineMetrics = pipelineMetrics;
+        this.inFlightEvents = new Semaphore(properties.maxInFlight());
+        this.processing = Disposables.composite(
+                packingTasks.asFlux()
+                        .groupBy(task -> Math.floorMod(task.requestId(), properties.concurrency()))
+                        .flatMap(lane -> lane.concatMap(this::pack), properties.concurrency())
+                        .then()
+                        .subscribe(),
+                receivedRestocks.asFlux()
+                        .groupBy(restock -> Math.floorMod(restock.menuItemId(), properties.concurrency()))
+                        .flatMap(lane -> lane.concatMap(this::repackWaitingRequests), properties.concurrency())
+                        .then()
+                        .subscribe()
+        );
     }
 
-    @KafkaListener(topics = "${app.kafka.shelf.topic.topic-name}", groupId = "${spring.kafka.consumer.group-id}")
-    public void listen(ShelfEventDto event) {
+    @KafkaListener(
+            topics = "${app.kafka.shelf.topic.topic-name}",
+            groupId = "${spring.kafka.consumer.group-id}",
+            containerFactory = "shelfEventListenerContainerFactory")
+    public void listen(ShelfEventDto event, @Headers Map<String, Object> headers, Acknowledgment acknowledgment) throws InterruptedException {
         logger.info("Received shelf event: {}", event);
-        // Add your event processing logic here
-        packingCommand.execute(new Context<Integer>(event.requestId()))
+        if (event.eventType() != EventType.ITEM_ADDED_ON_SHELF && event.requestId() == null) {
+            logger.warn("Skipping shelf event without request ID: {}", event);
+            acknowledgment.acknowledge();
+            return;
+        }
+        inFlightEvents.acquire();
+        try {
+            if (event.eventType() == EventType.ITEM_ADDED_ON_SHELF) {
+                workerRequestPublisher.itemsAddedOnShelf(event.menuItemId(), event.quantity());
+                receivedRestocks.emitNext(
+                        new ReceivedRestock(event.menuItemId(), event.quantity(), acknowledgment), Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY_DURATION));
+                return;
+            }
+            PipelineContext pipelineContext = PipelineContext.fromHeaders(headers).orElse(null);
+            if (pipelineContext != null) {
+                pipelineMetrics.recordStage("shelf-event-received", pipelineContext);
+            }
+            enqueue(new PackingTask(event.requestId(), pipelineContext, () -> {
+                acknowledgment.acknowledge();
+                inFlightEvents.release();
+            }));
+        } catch (RuntimeException e) {
+            inFlightEvents.release();
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    void stopProcessing() {
+        processing.dispose();
+    }
+
+    private void enqueue(PackingTask task) {
+        packingTasks.emitNext(task, Sinks.EmitFailureHandler.busyLooping(EMIT_RETRY_DURATION));
+    }
+
+    private Mono<Void> pack(PackingTask task) {
+        int requestId = task.requestId();
+        PipelineContext pipelineContext = task.pipelineContext();
+        Mono<ExecutionResult<PackingActionResult>> packing = Mono.defer(() -> packingCommand.execute(new Context<Integer>(requestId)));
+        if (pipelineContext != null) {
+            packing = packing
+                    .doOnSuccess(result -> pipelineMetrics.recordStage("packed", pipelineContext))
+                    .contextWrite(pipelineContext.bind());
+        }
+        return packing
                 .map(ExecutionResult::handle)
-                .doOnSuccess(result -> logger.info("Packing command for the following request:{} finished with the following:{}", event.requestId(), result))
+                .doOnSuccess(result -> logger.info("Packing command for the following request:{} finished with the following:{}", requestId, result))
                 .doOnError(error -> logger.error("Error while processing packing command for request: {}. Error:{}",
-                        event.requestId(),
+                        requestId,
                         error.getMessage(),
                         error)
                 )
-                .subscribe();
+                .onErrorResume(error -> Mono.empty())
+                .then(Mono.fromRunnable(task.onPacked()));
+    }
+
+    private Mono<Void> repackWaitingRequests(ReceivedRestock restock) {
+        return Mono.defer(() -> shelfService.restock(restock.menuItemId(), restock.quantity()))
+                .doOnError(error -> logger.error("Error while adding {} items of menu item {} on shelf. Error:{}",
+                        restock.quantity(),
+                        restock.menuItemId(),
+                        error.getMessage(),
+                        error)
+                )
+                .onErrorResume(error -> Mono.empty())
+                .then(Mono.defer(() -> waitingRequestsIndex.drain(restock.menuItemId())))
+                .doOnNext(requestIds -> logger.info("Menu item {} added on shelf, re-packing {} waiting requests", restock.menuItemId(), requestIds.size()))
+                .flatMapIterable(requestIds -> requestIds)
+                .concatMap(this::packInLane)
+                .then(Mono.fromRunnable(restock.acknowledgment()::acknowledge))
+                .doFinally(signalType -> inFlightEvents.release())
+                .then();
+    }
+
+    private Mono<Void> packInLane(int requestId) {
+        return Mono.defer(() -> {
+            Sinks.Empty<Void> packed = Sinks.empty();
+            enqueue(new PackingTask(requestId, null, packed::tryEmitEmpty));
+            return packed.asMono();
+        });
+    }
+
+    private record PackingTask(int requestId, PipelineContext pipelineContext, Runnable onPacked) {
+    }
+
+    private record ReceivedRestock(int menuItemId, int quantity, Acknowledgment acknowledgment) {
     }
 }
@@ -0,0 +1,68 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for processing shelf events.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.shelf.events".</p>
+ *
+ * @param concurrency The number of requests packed in parallel, events of the same request are always packed in order.
+ * @param maxInFlight The maximum number of received shelf events which are not packed yet.
+ * @param listenerMode Whether events are consumed one by one or in batches packed together.
+ * @param batchSize The maximum number of events in a single batch, used in batch listener mode.
+ * @param batchMaxWait The maximum time the broker waits to fill a batch, used in batch listener mode.
+ */
+@ConfigurationProperties("app.shelf.events")
+record ShelfEventProcessingProperties(
+        @DefaultValue("8") int concurrency,
+        @DefaultValue("256") int maxInFlight,
+        @DefaultValue("RECORD") ListenerMode listenerMode,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("PT0.5S") Duration batchMaxWait
+) {
+
+    /**
+     * Creates a new ShelfEventProcessingProperties instance.
+     *
+     * @param concurrency The number of requests packed in parallel, must be greater than zero.
+     * @param maxInFlight The maximum number of events not packed yet, must not be lower than concurrency.
+     * @param listenerMode The listener mode, must not be null.
+     * @param batchSize The maximum number of events in a batch, must be greater than zero.
+     * @param batchMaxWait The maximum time to wait for a batch, must not be negative.
+     */
+    ShelfEventProcessingProperties {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Shelf events concurrency must be greater than zero");
+        }
+        if (maxInFlight < concurrency) {
+            throw new IllegalArgumentException("Shelf events max in-flight must not be lower than concurrency");
+        }
+        if (listenerMode == null) {
+            throw new IllegalArgumentException("Shelf events listener mode must be set");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Shelf events batch size must be greater than zero");
+        }
+        if (batchMaxWait == null || batchMaxWait.isNegative()) {
+            throw new IllegalArgumentException("Shelf events batch max wait must not be negative");
+        }
+    }
+
+    /**
+     * Defines how shelf events are consumed.
+     */
+    enum ListenerMode {
+        /**
+         * Every event is packed separately, with bounded concurrency.
+         */
+        RECORD,
+        /**
+         * Events of a single poll are packed together with shared lookups.
+         */
+        BATCH
+    }
+}
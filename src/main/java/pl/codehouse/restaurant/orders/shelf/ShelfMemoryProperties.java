@@ -0,0 +1,30 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the in-memory shelf.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.shelf.memory". Writing changed items back to the database is configured
+ * by the {@link ShelfWriteBehindProperties} under "app.shelf.write-behind".</p>
+ *
+ * @param shards The number of shards the shelf items are spread across by menu item ID.
+ */
+@ConfigurationProperties("app.shelf.memory")
+record ShelfMemoryProperties(
+        @DefaultValue("16") int shards
+) {
+
+    /**
+     * Creates a new ShelfMemoryProperties instance.
+     *
+     * @param shards The number of shards, must be greater than zero.
+     */
+    ShelfMemoryProperties {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("Shelf shards must be greater than zero");
+        }
+    }
+}
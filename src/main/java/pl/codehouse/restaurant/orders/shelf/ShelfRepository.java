@@ -1,10 +1,113 @@
 package pl.codehouse.restaurant.orders.shelf;
 
+import java.time.LocalDateTime;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Repository
 interface ShelfRepository extends ReactiveCrudRepository<ShelfEntity, Integer> {
     Mono<ShelfEntity> findByMenuItemId(Integer menuItemId);
+
+    /**
+     * Inserts a new shelf row for the menu item, unless the menu item is already on the shelf.
+     * Relies on the unique index on the menu item ID, so concurrent inserts cannot create duplicated rows.
+     *
+     * @param itemName The name of the menu item.
+     * @param menuItemId The ID of the menu item.
+     * @param quantity The initial quantity.
+     * @param version The initial version.
+     * @param updatedAt The timestamp of the insert.
+     * @return A Mono emitting the inserted shelf row, or an empty Mono when the menu item was already on the shelf.
+     */
+    @Query("""
+            INSERT INTO shelf (item_name, menu_item_id, quantity, version, updated_at)
+            VALUES (:itemName, :menuItemId, :quantity, :version, :updatedAt)
+            ON CONFLICT (menu_item_id) DO NOTHING
+            RETURNING *
+            """)
+    Mono<ShelfEntity> insertIfAbsent(@Param("itemName") String itemName,
+                                     @Param("menuItemId") int menuItemId,
+                                     @Param("quantity") int quantity,
+                                     @Param("version") long version,
+                                     @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Atomically takes up to the given quantity of a menu item from the shelf.
+     * The shelf row is locked and decremented in a single statement, so concurrent takes cannot lose updates.
+     *
+     * @param menuItemId The ID of the menu item to take.
+     * @param quantity The requested quantity.
+     * @param updatedAt The timestamp of the update.
+     * @return A Mono emitting the number of items actually taken, or an empty Mono when the menu item is not on the shelf.
+     */
+    @Query("""
+            UPDATE shelf s
+            SET quantity   = GREATEST(s.quantity - :quantity, 0),
+                version    = s.version + 1,
+                updated_at = :updatedAt
+            FROM (SELECT id, quantity FROM shelf WHERE menu_item_id = :menuItemId ORDER BY id LIMIT 1 FOR UPDATE) previous
+            WHERE s.id = previous.id
+            RETURNING previous.quantity - s.quantity
+            """)
+    Mono<Integer> takeByMenuItemId(@Param("menuItemId") int menuItemId,
+                                   @Param("quantity") int quantity,
+                                   @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * Updates the shelf row only if it still has the expected version.
+     *
+     * @param id The ID of the shelf row.
+     * @param quantity The new quantity.
+     * @param version The new version.
+     * @param updatedAt The timestamp of the update.
+     * @param expectedVersion The version the row is expected to have before the update.
+     * @return A Mono emitting the number of updated rows, zero when the version did not match.
+     */
+    @Modifying
+    @Query("""
+            UPDATE shelf
+            SET quantity   = :quantity,
+                version    = :version,
+                updated_at = :updatedAt
+            WHERE id = :id
+              AND version = :expectedVersion
+            """)
+    Mono<Integer> updateIfVersionMatches(@Param("id") int id,
+                                         @Param("quantity") int quantity,
+                                         @Param("version") long version,
+                                         @Param("updatedAt") LocalDateTime updatedAt,
+                                         @Param("expectedVersion") long expectedVersion);
+
+    /**
+     * Atomically takes the requested quantities of several menu items from the shelf with a single statement.
+     * Shelf rows are locked in ID order, so concurrent batched takes cannot deadlock.
+     *
+     * @param menuItemIds The IDs of the menu items to take.
+     * @param quantities The requested quantity of every menu item, in the order of the menu item IDs.
+     * @param updatedAt The timestamp of the update.
+     * @return A Flux emitting the number of items taken for every menu item present on the shelf.
+     */
+    @Query("""
+            UPDATE shelf s
+            SET quantity   = GREATEST(s.quantity - d.quantity, 0),
+                version    = s.version + 1,
+                updated_at = :updatedAt
+            FROM (SELECT id, quantity
+                  FROM shelf
+                  WHERE id IN (SELECT MIN(id) FROM shelf WHERE menu_item_id = ANY (CAST(:menuItemIds AS INT[])) GROUP BY menu_item_id)
+                  ORDER BY id
+                  FOR UPDATE) previous,
+                 UNNEST(CAST(:menuItemIds AS INT[]), CAST(:quantities AS INT[])) AS d(menu_item_id, quantity)
+            WHERE s.id = previous.id
+              AND s.menu_item_id = d.menu_item_id
+            RETURNING s.menu_item_id AS menu_item_id, previous.quantity - s.quantity AS items_taken
+            """)
+    Flux<ShelfTakeRow> takeAllByMenuItemIds(@Param("menuItemIds") Integer[] menuItemIds,
+                                            @Param("quantities") Integer[] quantities,
+                                            @Param("updatedAt") LocalDateTime updatedAt);
 }
@@ -21,4 +21,9 @@ class ShelfRestService implements ShelfService {
     public Mono<ShelfEntity> findByMenuItem(RequestMenuItem menuItem) {
         return Mono.empty();
     }
+
+    @Override
+    public Mono<Integer> take(RequestMenuItem menuItem, int quantity) {
+        return Mono.empty();
+    }
 }
@@ -2,7 +2,10 @@ package pl.codehouse.restaurant.orders.shelf;
 
 import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
 import pl.codehouse.restaurant.orders.request.RequestMenuItem;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 /**
@@ -26,6 +29,41 @@ interface ShelfService {
      */
     Mono<ShelfEntity> findByMenuItem(RequestMenuItem menuItem);
 
+    /**
+     * Takes up to the given quantity of a menu item from the shelf.
+     * In case if given Menu Item does not exist on the shelf yet, one should be created and nothing is taken.
+     *
+     * @param menuItem to extract Menu Item ID or Menu Item Name and Id in case when one does not exist yet.
+     * @param quantity the number of items to take.
+     * @return the number of items actually taken from the shelf.
+     */
+    Mono<Integer> take(RequestMenuItem menuItem, int quantity);
+
+    /**
+     * Takes the requested quantities of several menu items from the shelf.
+     * By default every menu item is taken separately.
+     *
+     * @param demands the total requested quantity of every menu item.
+     * @return the number of items actually taken, keyed by menu item ID.
+     */
+    default Mono<Map<Integer, Integer>> takeAll(Collection<ShelfDemand> demands) {
+        return Flux.fromIterable(demands)
+                .concatMap(demand -> take(demand.menuItem(), demand.quantity())
+                        .map(itemsTaken -> Map.entry(demand.menuItem().menuItemId(), itemsTaken)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    /**
+     * Adds items the kitchen put on the shelf.
+     * By default nothing is added, as the stock is read from the database, where the kitchen puts the items.
+     *
+     * @param menuItemId the ID of the menu item added on the shelf.
+     * @param quantity the number of items added.
+     * @return completes once the items are available to take.
+     */
+    default Mono<Void> restock(int menuItemId, int quantity) {
+        return Mono.empty();
+    }
 
     /**
      * Creates a new ShelfEntity for a given RequestMenuItem.
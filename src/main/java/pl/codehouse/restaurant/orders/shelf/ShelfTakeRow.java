@@ -0,0 +1,10 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+/**
+ * The number of items of a menu item taken from the shelf by a batched take.
+ *
+ * @param menuItemId The ID of the menu item.
+ * @param itemsTaken The number of items actually taken.
+ */
+record ShelfTakeRow(int menuItemId, int itemsTaken) {
+}
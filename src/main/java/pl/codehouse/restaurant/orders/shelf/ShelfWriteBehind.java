@@ -0,0 +1,164 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Write-behind persistence of shelf changes.
+ * Only the latest state of every menu item is kept until the next flush, which happens on a fixed interval
+ * or as soon as the configured number of menu items changed, and is written with batched UPDATE statements.
+ * Database writes therefore scale with time rather than with the number of takes.
+ * Pending changes are flushed once more when the application shuts down.
+ */
+@Component
+@ConditionalOnProperty(value = "app.shelf.integration.type", havingValue = "memory")
+class ShelfWriteBehind {
+    private static final Logger log = LoggerFactory.getLogger(ShelfWriteBehind.class);
+    private static final Duration SHUTDOWN_FLUSH_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final String BATCH_UPDATE_QUERY = """
+            UPDATE shelf s
+            SET quantity   = u.quantity,
+                version    = u.version,
+                updated_at = CAST(u.updated_at AS TIMESTAMP)
+            FROM UNNEST(CAST(:ids AS INT[]), CAST(:quantities AS INT[]), CAST(:versions AS BIGINT[]), CAST(:updatedAts AS TEXT[]))
+                     AS u(id, quantity, version, updated_at)
+            WHERE s.id = u.id
+              AND s.version < u.version
+            """;
+
+    private final DatabaseClient databaseClient;
+    private final ShelfWriteBehindProperties properties;
+    private final Clock clock;
+    private final Map<Integer, ShelfEntity> pending = new ConcurrentHashMap<>();
+    private final AtomicLong oldestPendingSince = new AtomicLong();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final Counter writtenRows;
+    private final Counter failedFlushes;
+
+    ShelfWriteBehind(DatabaseClient databaseClient, ShelfWriteBehindProperties properties, Clock clock, MeterRegistry meterRegistry) {
+        this.databaseClient = databaseClient;
+        this.properties = properties;
+        this.clock = clock;
+        this.writtenRows = meterRegistry.counter("shelf.write.behind.rows");
+        this.failedFlushes = meterRegistry.counter("shelf.write.behind.failures");
+        Gauge.builder("shelf.write.behind.pending", pending, Map::size)
+                .register(meterRegistry);
+        Gauge.builder("shelf.write.behind.lag", this, ShelfWriteBehind::lagSeconds)
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the latest state of a shelf item to be written with the next flush.
+     * An already pending state of the same menu item is replaced unless it is newer.
+     *
+     * @param shelfEntity The changed shelf item.
+     */
+    void enqueue(ShelfEntity shelfEntity) {
+        pending.merge(shelfEntity.menuItemId(), shelfEntity, ShelfWriteBehind::newer);
+        oldestPendingSince.compareAndSet(0, clock.millis());
+        if (pending.size() >= properties.dirtyThreshold()) {
+            scheduledFlush();
+        }
+    }
+
+    /**
+     * Writes all pending shelf changes to the database, unless a flush is already running.
+     */
+    @Scheduled(fixedDelayString = "${app.shelf.write-behind.flush-interval}")
+    void scheduledFlush() {
+        flush().subscribe(null, error -> log.error("Failed to write shelf changes to the database", error));
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush().block(SHUTDOWN_FLUSH_TIMEOUT);
+    }
+
+    Mono<Void> flush() {
+        return Mono.defer(() -> {
+            if (pending.isEmpty() || !flushing.compareAndSet(false, true)) {
+                return Mono.empty();
+            }
+            List<ShelfEntity> changes = drainPending();
+            return Flux.fromIterable(changes)
+                    .buffer(properties.batchSize())
+                    .concatMap(this::writeBatch)
+                    .then()
+                    .doFinally(signalType -> flushing.set(false));
+        });
+    }
+
+    private List<ShelfEntity> drainPending() {
+        oldestPendingSince.set(0);
+        List<ShelfEntity> changes = new ArrayList<>(pending.size());
+        pending.forEach((menuItemId, shelfEntity) -> {
+            if (pending.remove(menuItemId, shelfEntity)) {
+                changes.add(shelfEntity);
+            }
+        });
+        if (!pending.isEmpty()) {
+            oldestPendingSince.compareAndSet(0, clock.millis());
+        }
+        return changes;
+    }
+
+    private Mono<Long> writeBatch(List<ShelfEntity> batch) {
+        Integer[] ids = new Integer[batch.size()];
+        Integer[] quantities = new Integer[batch.size()];
+        Long[] versions = new Long[batch.size()];
+        String[] updatedAts = new String[batch.size()];
+        for (int idx = 0; idx < batch.size(); idx++) {
+            ShelfEntity shelfEntity = batch.get(idx);
+            ids[idx] = shelfEntity.id();
+            quantities[idx] = shelfEntity.quantity();
+            versions[idx] = shelfEntity.version();
+            updatedAts[idx] = shelfEntity.updatedAt().toString();
+        }
+        return databaseClient.sql(BATCH_UPDATE_QUERY)
+                .bind("ids", ids)
+                .bind("quantities", quantities)
+                .bind("versions", versions)
+                .bind("updatedAts", updatedAts)
+                .fetch()
+                .rowsUpdated()
+                .doOnNext(updatedRows -> {
+                    log.debug("Written {} shelf changes to the database", updatedRows);
+                    writtenRows.increment(updatedRows);
+                })
+                .onErrorResume(error -> {
+                    log.warn("Failed to write {} shelf changes to the database, retrying with next flush", batch.size(), error);
+                    failedFlushes.increment();
+                    batch.forEach(this::enqueue);
+                    return Mono.empty();
+                });
+    }
+
+    private double lagSeconds() {
+        long since = oldestPendingSince.get();
+        return since == 0 ? 0 : (clock.millis() - since) / 1000.0;
+    }
+
+    private static ShelfEntity newer(ShelfEntity pendingEntity, ShelfEntity changedEntity) {
+        return changedEntity.version() >= pendingEntity.version() ? changedEntity : pendingEntity;
+    }
+}
@@ -0,0 +1,42 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Configuration properties for the write-behind persistence of shelf changes.
+ *
+ * <p>The properties are typically loaded from the application's configuration
+ * file using the prefix "app.shelf.write-behind".</p>
+ *
+ * @param flushInterval The interval in which pending shelf changes are written to the database.
+ * @param dirtyThreshold The number of changed menu items that triggers a flush before the interval elapses.
+ * @param batchSize The maximum number of shelf rows written by a single UPDATE statement.
+ */
+@ConfigurationProperties("app.shelf.write-behind")
+record ShelfWriteBehindProperties(
+        @DefaultValue("PT1S") Duration flushInterval,
+        @DefaultValue("500") int dirtyThreshold,
+        @DefaultValue("500") int batchSize
+) {
+
+    /**
+     * Creates a new ShelfWriteBehindProperties instance.
+     *
+     * @param flushInterval The flush interval, must be positive.
+     * @param dirtyThreshold The number of changed menu items triggering a flush, must be greater than zero.
+     * @param batchSize The maximum number of rows per UPDATE statement, must be greater than zero.
+     */
+    ShelfWriteBehindProperties {
+        if (flushInterval.isZero() || flushInterval.isNegative()) {
+            throw new IllegalArgumentException("Shelf write-behind flush interval must be positive");
+        }
+        if (dirtyThreshold <= 0) {
+            throw new IllegalArgumentException("Shelf write-behind dirty threshold must be greater than zero");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Shelf write-behind batch size must be greater than zero");
+        }
+    }
+}
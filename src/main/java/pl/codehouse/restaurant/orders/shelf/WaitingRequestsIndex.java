@@ -0,0 +1,91 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import pl.codehouse.restaurant.orders.request.RequestService;
+import pl.codehouse.restaurant.orders.request.RequestsCollectedEvent;
+import reactor.core.publisher.Mono;
+
+/**
+ * Index of requests waiting for menu items missing on the shelf.
+ * Requests are registered when packing could not take all requested items of a menu item,
+ * and are drained in the order they started waiting once the menu item is added on the shelf.
+ * Collected requests are removed, so they are never packed again.
+ * The index is kept in memory of a single instance, so it is lost on restart and misses requests packed by other instances.
+ * Draining therefore also reads the requests still missing the menu item from the database, and appends the ones
+ * not registered here in the order they were created.
+ */
+@Component
+class WaitingRequestsIndex {
+    private static final Logger logger = LoggerFactory.getLogger(WaitingRequestsIndex.class);
+
+    private final Map<Integer, Set<Integer>> waitingRequests = new ConcurrentHashMap<>();
+    private final RequestService requestService;
+
+    WaitingRequestsIndex(RequestService requestService) {
+        this.requestService = requestService;
+    }
+
+    /**
+     * Registers a request as waiting for a menu item, a request already waiting keeps its position.
+     *
+     * @param menuItemId The ID of the missing menu item.
+     * @param requestId The ID of the waiting request.
+     */
+    void register(int menuItemId, int requestId) {
+        waitingRequests.compute(menuItemId, (id, requests) -> {
+            Set<Integer> waiting = requests == null ? new LinkedHashSet<>() : requests;
+            waiting.add(requestId);
+            return waiting;
+        });
+    }
+
+    /**
+     * Removes and returns all requests waiting for a menu item.
+     * When the stored requests cannot be read, only the requests registered in this index are returned.
+     *
+     * @param menuItemId The ID of the menu item added on the shelf.
+     * @return The IDs of the waiting requests, the registered ones in the order they started waiting, followed by the stored ones.
+     */
+    Mono<List<Integer>> drain(int menuItemId) {
+        return Mono.defer(() -> {
+            Set<Integer> registered = waitingRequests.remove(menuItemId);
+            Set<Integer> waiting = registered == null ? new LinkedHashSet<>() : registered;
+            return requestService.findRequestIdsWaitingFor(menuItemId)
+                    .collect(() -> waiting, Set::add)
+                    .<List<Integer>>map(List::copyOf)
+                    .onErrorResume(error -> {
+                        logger.warn("Unable to read requests waiting for menu item {}, re-packing only {} registered requests",
+                                menuItemId, waiting.size(), error);
+                        return Mono.just(List.copyOf(waiting));
+                    });
+        });
+    }
+
+    /**
+     * Removes collected requests from the waiting requests of all menu items.
+     *
+     * @param event The event carrying the IDs of the collected requests.
+     */
+    @EventListener
+    void onRequestsCollected(RequestsCollectedEvent event) {
+        remove(event.requestIds());
+    }
+
+    private void remove(Collection<Integer> requestIds) {
+        for (Integer menuItemId : waitingRequests.keySet()) {
+            waitingRequests.computeIfPresent(menuItemId, (id, requests) -> {
+                requests.removeAll(requestIds);
+                return requests.isEmpty() ? null : requests;
+            });
+        }
+    }
+}
@@ -0,0 +1,10 @@
+-- Transactional outbox of messages relayed to Kafka
+CREATE TABLE "outbox"
+(
+    id           BIGSERIAL PRIMARY KEY,
+    topic        TEXT      NOT NULL,
+    message_key  TEXT,
+    payload_type TEXT      NOT NULL,
+    payload      JSONB     NOT NULL,
+    created_at   TIMESTAMP NOT NULL DEFAULT NOW()
+);
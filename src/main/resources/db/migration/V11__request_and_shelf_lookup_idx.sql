@@ -0,0 +1,22 @@
+-- Partial index covering only requests which are still active, collected requests are never scanned
+CREATE INDEX request_active_status_idx
+    ON "request" (status)
+    WHERE status IN ('NEW', 'IN_PROGRESS', 'READY_TO_COLLECT');
+
+-- Merge duplicated shelf rows into the oldest one before making the menu item unique on the shelf
+UPDATE "shelf" s
+SET quantity = d.quantity
+FROM (SELECT MIN(id) AS id, SUM(quantity) AS quantity
+      FROM "shelf"
+      GROUP BY menu_item_id
+      HAVING COUNT(*) > 1) d
+WHERE s.id = d.id;
+
+DELETE
+FROM "shelf" s
+    USING "shelf" kept
+WHERE s.menu_item_id = kept.menu_item_id
+  AND s.id > kept.id;
+
+CREATE UNIQUE INDEX shelf_menu_item_idx
+    ON "shelf" (menu_item_id);
@@ -0,0 +1,34 @@
+-- Creation time of requests, the archive is partitioned by it
+ALTER TABLE "request"
+    ADD COLUMN created_at TIMESTAMP NOT NULL DEFAULT NOW();
+
+-- Lets the archival job find collected requests past the retention without scanning open ones
+CREATE INDEX request_collected_created_at_idx
+    ON "request" (created_at)
+    WHERE status = 'COLLECTED';
+
+-- Archive of collected requests, monthly partitions are created by the archival job on demand
+CREATE TABLE "request_archive"
+(
+    id          INT       NOT NULL,
+    customer_id INT       NOT NULL,
+    status      TEXT      NOT NULL,
+    created_at  TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE "request_menu_item_archive"
+(
+    id           INT       NOT NULL,
+    request_id   INT       NOT NULL,
+    menu_item_id INT       NOT NULL,
+    quantity     INT       NOT NULL,
+    prepared     INT       NOT NULL,
+    immediate    BOOLEAN   NOT NULL,
+    created_at   TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX request_menu_item_archive_request_idx
+    ON "request_menu_item_archive" (request_id);
@@ -0,0 +1,3 @@
+-- Headers relayed with the outbox message, carrying the pipeline context of the request
+ALTER TABLE "outbox"
+    ADD COLUMN headers JSONB;
@@ -0,0 +1,6 @@
+-- Outbox messages are spread over lanes by message key, every lane is relayed by a single instance at a time in id order
+ALTER TABLE "outbox"
+    ADD COLUMN lane INT NOT NULL DEFAULT 0;
+
+CREATE INDEX outbox_lane_idx
+    ON "outbox" (lane, id);
@@ -0,0 +1,12 @@
+-- Time the request became ready to collect, the sweeper collects requests never picked up measured from it
+ALTER TABLE "request"
+    ADD COLUMN ready_at TIMESTAMP;
+
+UPDATE "request"
+SET ready_at = created_at
+WHERE status = 'READY_TO_COLLECT';
+
+-- Lets the sweeper find overdue requests ready to collect without scanning the other ones
+CREATE INDEX request_ready_to_collect_ready_at_idx
+    ON "request" (ready_at)
+    WHERE status = 'READY_TO_COLLECT';
@@ -0,0 +1,135 @@
+package pl.codehouse.restaurant.orders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class CommandMetricsInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private DefaultListableBeanFactory beanFactory;
+
+    @BeforeEach
+    void setUp() {
+        beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerSingleton("meterRegistry", meterRegistry);
+    }
+
+    @Test
+    @DisplayName("should record execution latency tagged with success outcome when command succeeds")
+    void should_RecordSuccess_When_CommandSucceeds() {
+        // given
+        Command<Integer, Integer> sut = instrumented(new EchoCommand());
+
+        // when & then
+        StepVerifier.create(sut.execute(new Context<>(1)))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(meterRegistry.get("command.execution").tag("command", "EchoCommand").tag("outcome", "success").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should record failure outcome when execution result is a failure")
+    void should_RecordFailure_When_ExecutionResultIsFailure() {
+        // given
+        Command<Integer, Integer> sut = instrumented(new EchoCommand());
+
+        // when & then
+        StepVerifier.create(sut.execute(new Context<>(-1)))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(meterRegistry.get("command.execution").tag("command", "EchoCommand").tag("outcome", "failure").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should record error outcome when command signals an error")
+    void should_RecordError_When_CommandSignalsError() {
+        // given
+        Command<Integer, Integer> sut = instrumented(new EchoCommand());
+
+        // when & then
+        StepVerifier.create(sut.execute(new Context<>(0)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        assertThat(meterRegistry.get("command.execution").tag("command", "EchoCommand").tag("outcome", "error").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should count executions in progress until they complete")
+    void should_CountInFlightExecutions_When_ExecutionInProgress() {
+        // given
+        Sinks.One<ExecutionResult<Integer>> pendingResult = Sinks.one();
+        Command<Integer, Integer> sut = instrumented(new PendingCommand(pendingResult));
+
+        // when
+        StepVerifier.create(sut.execute(new Context<>(1)))
+                .then(() -> {
+                    assertThat(meterRegistry.get("command.in.flight").tag("command", "PendingCommand").gauge().value()).isEqualTo(1);
+                    pendingResult.tryEmitValue(ExecutionResult.success(1));
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // then
+        assertThat(meterRegistry.get("command.in.flight").tag("command", "PendingCommand").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("should record cancelled outcome and stop counting execution when subscriber cancels it")
+    void should_RecordCancelled_When_ExecutionCancelled() {
+        // given
+        Sinks.One<ExecutionResult<Integer>> pendingResult = Sinks.one();
+        Command<Integer, Integer> sut = instrumented(new PendingCommand(pendingResult));
+
+        // when
+        StepVerifier.create(sut.execute(new Context<>(1)))
+                .thenCancel()
+                .verify();
+
+        // then
+        assertThat(meterRegistry.get("command.execution").tag("command", "PendingCommand").tag("outcome", "cancelled").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("command.in.flight").tag("command", "PendingCommand").gauge().value()).isZero();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Command<Integer, Integer> instrumented(Command<Integer, Integer> command) {
+        ProxyFactory proxyFactory = new ProxyFactory(command);
+        proxyFactory.addAdvisor(CommandMetricsConfiguration.commandMetricsAdvisor(beanFactory.getBeanProvider(MeterRegistry.class)));
+        return (Command<Integer, Integer>) proxyFactory.getProxy();
+    }
+
+    private static class EchoCommand implements Command<Integer, Integer> {
+        @Override
+        public Mono<ExecutionResult<Integer>> execute(Context<Integer> context) {
+            int request = context.request();
+            if (request == 0) {
+                return Mono.error(new IllegalArgumentException("Zero is not accepted"));
+            }
+            if (request < 0) {
+                return Mono.just(ExecutionResult.failure(new IllegalStateException("Negative values fail")));
+            }
+            return Mono.just(ExecutionResult.success(request));
+        }
+    }
+
+    private record PendingCommand(Sinks.One<ExecutionResult<Integer>> result) implements Command<Integer, Integer> {
+        @Override
+        public Mono<ExecutionResult<Integer>> execute(Context<Integer> context) {
+            return result.asMono();
+        }
+    }
+}
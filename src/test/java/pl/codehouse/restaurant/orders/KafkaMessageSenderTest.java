@@ -0,0 +1,75 @@
+package pl.codehouse.restaurant.orders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.GenericMessage;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaMessageSenderTest {
+    private static final String TOPIC = "test-topic";
+
+    @Mock
+    private KafkaTemplate<String, String> kafkaTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private KafkaMessageSender sut;
+
+    @BeforeEach
+    void setUp() {
+        sut = new KafkaMessageSender(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("should complete once the broker acknowledged the message and record send latency")
+    void should_CompleteAndRecordLatency_When_MessageAcknowledged() {
+        // given
+        Message<String> message = new GenericMessage<>("payload", Map.of(KafkaHeaders.TOPIC, TOPIC));
+        CompletableFuture<SendResult<String, String>> sendFuture = new CompletableFuture<>();
+        given(kafkaTemplate.send(message)).willReturn(sendFuture);
+
+        // when & then
+        StepVerifier.create(sut.send(kafkaTemplate, message))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(50))
+                .then(() -> sendFuture.complete(new SendResult<>(null, null)))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("kafka.send.latency").tag("topic", TOPIC).tag("result", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("kafka.send.failures").counter()).isNull();
+    }
+
+    @Test
+    @DisplayName("should fail and count the failure when the send failed")
+    void should_FailAndCountFailure_When_SendFailed() {
+        // given
+        Message<String> message = new GenericMessage<>("payload", Map.of(KafkaHeaders.TOPIC, TOPIC));
+        given(kafkaTemplate.send(message)).willReturn(CompletableFuture.failedFuture(new KafkaException("broker unavailable")));
+
+        // when & then
+        StepVerifier.create(sut.send(kafkaTemplate, message))
+                .expectError(KafkaException.class)
+                .verify();
+
+        assertThat(meterRegistry.get("kafka.send.failures").tag("topic", TOPIC).counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("kafka.send.latency").tag("result", "failure").timer().count()).isEqualTo(1);
+    }
+}
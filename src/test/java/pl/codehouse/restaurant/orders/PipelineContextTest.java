@@ -0,0 +1,70 @@
+package pl.codehouse.restaurant.orders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class PipelineContextTest {
+    private static final Instant CREATED_AT = Instant.parse("2024-09-01T12:00:00Z");
+    private static final String TRACE_PARENT = "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01";
+
+    @Test
+    @DisplayName("should read pipeline context from headers written by another hop")
+    void should_ReadPipelineContext_When_HeadersWrittenByAnotherHop() {
+        // given
+        PipelineContext pipelineContext = new PipelineContext(CREATED_AT, TRACE_PARENT);
+
+        // when
+        Optional<PipelineContext> result = PipelineContext.fromHeaders(pipelineContext.toHeaders());
+
+        // then
+        assertThat(result).contains(pipelineContext);
+    }
+
+    @Test
+    @DisplayName("should read pipeline context from raw header values")
+    void should_ReadPipelineContext_When_HeaderValuesAreRawBytes() {
+        // given
+        Map<String, Object> headers = Map.of(
+                PipelineContext.CREATED_AT_HEADER, Long.toString(CREATED_AT.toEpochMilli()).getBytes(StandardCharsets.UTF_8),
+                PipelineContext.TRACE_PARENT_HEADER, TRACE_PARENT.getBytes(StandardCharsets.UTF_8));
+
+        // when
+        Optional<PipelineContext> result = PipelineContext.fromHeaders(headers);
+
+        // then
+        assertThat(result).contains(new PipelineContext(CREATED_AT, TRACE_PARENT));
+    }
+
+    @Test
+    @DisplayName("should return empty pipeline context when creation time is missing or malformed")
+    void should_ReturnEmpty_When_CreationTimeIsMissingOrMalformed() {
+        // when & then
+        assertThat(PipelineContext.fromHeaders(Map.of(PipelineContext.TRACE_PARENT_HEADER, TRACE_PARENT))).isEmpty();
+        assertThat(PipelineContext.fromHeaders(Map.of(PipelineContext.CREATED_AT_HEADER, "yesterday"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("should restart pipeline at the given time keeping the trace parent of the current pipeline")
+    void should_KeepTraceParent_When_PipelineRestartedAtCreationTime() {
+        // given
+        Instant requestCreatedAt = CREATED_AT.minusSeconds(60);
+
+        // when
+        Mono<PipelineContext> result = Mono.deferContextual(contextView -> Mono.justOrEmpty(PipelineContext.current(contextView)))
+                .contextWrite(PipelineContext.startedAt(requestCreatedAt))
+                .contextWrite(new PipelineContext(CREATED_AT, TRACE_PARENT).bind());
+
+        // then
+        StepVerifier.create(result)
+                .expectNext(new PipelineContext(requestCreatedAt, TRACE_PARENT))
+                .verifyComplete();
+    }
+}
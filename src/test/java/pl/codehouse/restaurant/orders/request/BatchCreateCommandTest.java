@@ -0,0 +1,144 @@
+package pl.codehouse.restaurant.orders.request;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_1_ID;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_2_ID;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.aMenuItemEntityOne;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.aMenuItemEntityTwo;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.web.server.ResponseStatusException;
+import pl.codehouse.restaurant.orders.Context;
+import pl.codehouse.restaurant.orders.ExecutionResult;
+import pl.codehouse.restaurant.orders.outbox.OutboxWriter;
+import pl.codehouse.restaurant.orders.shelf.ShelfKafkaProperties;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class BatchCreateCommandTest {
+    private static final int UNKNOWN_MENU_ITEM_ID = 9999;
+    private static final int FIRST_REQUEST_ID = 1000;
+    private static final int SECOND_REQUEST_ID = 1001;
+
+    @Mock
+    private MenuCatalog menuCatalog;
+
+    @Mock
+    private RequestWriter requestWriter;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @Mock
+    private RequestStatusChangePublisher requestStatusChangePublisher;
+
+    @Captor
+    private ArgumentCaptor<List<Integer>> menuItemIdsCaptor;
+
+    @Captor
+    private ArgumentCaptor<List<Message<?>>> shelfMessagesCaptor;
+
+    private BatchCreateCommand sut;
+
+    @BeforeEach
+    void setUp() {
+        sut = new BatchCreateCommand(
+                menuCatalog,
+                requestWriter,
+                outboxWriter,
+                new ShelfKafkaProperties("shelf-events", 1),
+                requestStatusChangePublisher,
+                new RequestBatchProperties(2)
+        );
+    }
+
+    @Test
+    @DisplayName("should create valid requests with a single catalog lookup and report requests with unknown menu items as rejected")
+    void should_CreateValidRequestsAndRejectUnknownMenuItems_When_CreatingBatch() {
+        // given
+        List<RequestPayload> payloads = List.of(
+                new RequestPayload(List.of(new RequestedMenuItemsPayload(MENU_ITEM_1_ID, 1)), 1010),
+                new RequestPayload(List.of(new RequestedMenuItemsPayload(UNKNOWN_MENU_ITEM_ID, 1)), 1011),
+                new RequestPayload(List.of(new RequestedMenuItemsPayload(MENU_ITEM_1_ID, 1), new RequestedMenuItemsPayload(MENU_ITEM_2_ID, 2)), 1012)
+        );
+        sut = new BatchCreateCommand(menuCatalog, requestWriter, outboxWriter, new ShelfKafkaProperties("shelf-events", 1),
+                requestStatusChangePublisher, new RequestBatchProperties(10));
+
+        given(menuCatalog.findAllById(anyList())).willReturn(Flux.just(aMenuItemEntityOne().build(), aMenuItemEntityTwo().build()));
+        given(requestWriter.insertRequests(List.of(1010, 1012))).willReturn(Mono.just(List.of(
+                new RequestEntity(FIRST_REQUEST_ID, 1010, RequestStatus.NEW),
+                new RequestEntity(SECOND_REQUEST_ID, 1012, RequestStatus.NEW))));
+        given(requestWriter.insertMenuItems(anyList())).willAnswer(invocation -> {
+            List<RequestMenuItemEntity> menuItems = invocation.getArgument(0);
+            return Flux.range(0, menuItems.size())
+                    .map(idx -> new RequestMenuItemEntity(idx + 1, menuItems.get(idx).requestId(), menuItems.get(idx).menuItemId(),
+                            menuItems.get(idx).quantity(), 0, menuItems.get(idx).immediate()));
+        });
+        given(outboxWriter.writeAll(anyList())).willReturn(Mono.empty());
+        given(requestStatusChangePublisher.publishChanges(anyList())).willReturn(Mono.empty());
+
+        // when
+        Mono<ExecutionResult<List<RequestCreationResult>>> result = sut.execute(new Context<>(payloads));
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(executionResult -> assertThat(executionResult.handle())
+                        .satisfiesExactly(
+                                created -> assertThat(created)
+                                        .hasFieldOrPropertyWithValue("index", 0)
+                                        .hasFieldOrPropertyWithValue("status", RequestCreationResult.CreationStatus.CREATED)
+                                        .extracting(RequestCreationResult::request)
+                                        .hasFieldOrPropertyWithValue("requestId", FIRST_REQUEST_ID)
+                                        .hasFieldOrPropertyWithValue("totalItemsCount", 1),
+                                rejected -> assertThat(rejected)
+                                        .hasFieldOrPropertyWithValue("index", 1)
+                                        .hasFieldOrPropertyWithValue("status", RequestCreationResult.CreationStatus.REJECTED)
+                                        .hasFieldOrPropertyWithValue("error", "Not all request components were found"),
+                                created -> assertThat(created)
+                                        .hasFieldOrPropertyWithValue("index", 2)
+                                        .extracting(RequestCreationResult::request)
+                                        .hasFieldOrPropertyWithValue("requestId", SECOND_REQUEST_ID)
+                                        .hasFieldOrPropertyWithValue("totalItemsCount", 3)))
+                .verifyComplete();
+
+        then(menuCatalog).should(times(1)).findAllById(menuItemIdsCaptor.capture());
+        assertThat(menuItemIdsCaptor.getValue()).containsExactly(MENU_ITEM_1_ID, UNKNOWN_MENU_ITEM_ID, MENU_ITEM_2_ID);
+        then(outboxWriter).should(times(1)).writeAll(shelfMessagesCaptor.capture());
+        assertThat(shelfMessagesCaptor.getValue())
+                .extracting(Message::getPayload)
+                .containsExactly(ShelfEventDto.newRequestEvent(FIRST_REQUEST_ID), ShelfEventDto.newRequestEvent(SECOND_REQUEST_ID));
+    }
+
+    @Test
+    @DisplayName("should reject the whole batch when it exceeds the maximum size")
+    void should_RejectBatch_When_MaxSizeExceeded() {
+        // given
+        RequestPayload payload = new RequestPayload(List.of(new RequestedMenuItemsPayload(MENU_ITEM_1_ID, 1)), 1010);
+
+        // when
+        Mono<ExecutionResult<List<RequestCreationResult>>> result = sut.execute(new Context<>(List.of(payload, payload, payload)));
+
+        // then
+        StepVerifier.create(result)
+                .expectError(ResponseStatusException.class)
+                .verify();
+        then(requestWriter).should(never()).insertRequests(any());
+    }
+}
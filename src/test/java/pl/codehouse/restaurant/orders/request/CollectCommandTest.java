@@ -0,0 +1,129 @@
+package pl.codehouse.restaurant.orders.request;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static pl.codehouse.restaurant.orders.request.RequestEntityBuilder.REQUEST_ID;
+import static pl.codehouse.restaurant.orders.request.RequestEntityBuilder.aRequestEntity;
+
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+import pl.codehouse.restaurant.orders.Context;
+import pl.codehouse.restaurant.orders.ExecutionResult;
+import pl.codehouse.restaurant.orders.exceptions.ResourceNotFoundException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class CollectCommandTest {
+
+    @Mock
+    private RequestCollector requestCollector;
+
+    @Mock
+    private RequestRepository requestRepository;
+
+    @Mock
+    private ReactiveTransactionManager transactionManager;
+
+    @Mock
+    private ReactiveTransaction transaction;
+
+    private CollectCommand sut;
+
+    @BeforeEach
+    void setUp() {
+        given(transactionManager.getReactiveTransaction(any())).willReturn(Mono.just(transaction));
+        sut = new CollectCommand(requestCollector, requestRepository, transactionManager);
+    }
+
+    @Test
+    @DisplayName("should collect request when it is ready to collect")
+    void should_CollectRequest_When_ReadyToCollect() {
+        // given
+        given(requestCollector.collect(List.of(REQUEST_ID))).willReturn(Mono.just(List.of(REQUEST_ID)));
+        given(transactionManager.commit(transaction)).willReturn(Mono.empty());
+
+        // when
+        Mono<ExecutionResult<Integer>> result = sut.execute(new Context<>(REQUEST_ID));
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(executionResult -> assertThat(executionResult.handle()).isEqualTo(REQUEST_ID))
+                .verifyComplete();
+        then(requestRepository).should(never()).findById(anyInt());
+        InOrder inOrder = inOrder(transactionManager, requestCollector);
+        inOrder.verify(transactionManager).commit(transaction);
+        inOrder.verify(requestCollector).announceCollected(List.of(REQUEST_ID));
+    }
+
+    @Test
+    @DisplayName("should succeed without collecting again when request is already collected")
+    void should_Succeed_When_RequestAlreadyCollected() {
+        // given
+        given(requestCollector.collect(List.of(REQUEST_ID))).willReturn(Mono.just(List.of()));
+        given(requestRepository.findById(REQUEST_ID)).willReturn(Mono.just(aRequestEntity().withStatus(RequestStatus.COLLECTED).build()));
+        given(transactionManager.commit(transaction)).willReturn(Mono.empty());
+
+        // when
+        Mono<ExecutionResult<Integer>> result = sut.execute(new Context<>(REQUEST_ID));
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(executionResult -> assertThat(executionResult.handle()).isEqualTo(REQUEST_ID))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should fail with conflict when request is not ready to collect")
+    void should_FailWithConflict_When_RequestNotReadyToCollect() {
+        // given
+        given(requestCollector.collect(List.of(REQUEST_ID))).willReturn(Mono.just(List.of()));
+        given(requestRepository.findById(REQUEST_ID)).willReturn(Mono.just(aRequestEntity().withStatus(RequestStatus.IN_PROGRESS).build()));
+        given(transactionManager.rollback(transaction)).willReturn(Mono.empty());
+
+        // when
+        Mono<ExecutionResult<Integer>> result = sut.execute(new Context<>(REQUEST_ID));
+
+        // then
+        StepVerifier.create(result)
+                .expectErrorSatisfies(error -> assertThat(error)
+                        .isInstanceOf(ResponseStatusException.class)
+                        .extracting(exception -> ((ResponseStatusException) exception).getStatusCode())
+                        .isEqualTo(HttpStatus.CONFLICT))
+                .verify();
+        then(requestCollector).should(never()).announceCollected(anyList());
+    }
+
+    @Test
+    @DisplayName("should fail with not found when request does not exist")
+    void should_FailWithNotFound_When_RequestDoesNotExist() {
+        // given
+        given(requestCollector.collect(List.of(REQUEST_ID))).willReturn(Mono.just(List.of()));
+        given(requestRepository.findById(REQUEST_ID)).willReturn(Mono.empty());
+        given(transactionManager.rollback(transaction)).willReturn(Mono.empty());
+
+        // when
+        Mono<ExecutionResult<Integer>> result = sut.execute(new Context<>(REQUEST_ID));
+
+        // then
+        StepVerifier.create(result)
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+    }
+}
@@ -0,0 +1,127 @@
+package pl.codehouse.restaurant.orders.request;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_1_ID;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_2_ID;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_3_ID;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.aMenuItemEntityOne;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.aMenuItemEntityThree;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.aMenuItemEntityTwo;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class MenuCatalogTest {
+    private final Clock clock = Clock.fixed(Instant.parse("2024-12-30T10:15:30.00Z"), ZoneOffset.UTC);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private MenuItemRepository menuItemRepository;
+
+    private MenuCatalog sut;
+
+    @BeforeEach
+    void setUp() {
+        MenuCatalogProperties properties = new MenuCatalogProperties(Duration.ofMinutes(5), Duration.ofMinutes(15));
+        sut = new MenuCatalog(menuItemRepository, properties, clock, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("should serve menu items from memory once catalog is loaded")
+    void should_ServeMenuItemsFromMemory_When_CatalogIsLoaded() {
+        // given
+        given(menuItemRepository.findAll()).willReturn(Flux.just(aMenuItemEntityOne().build(), aMenuItemEntityTwo().build()));
+
+        // when
+        StepVerifier.create(sut.findAllById(List.of(MENU_ITEM_1_ID, MENU_ITEM_2_ID)).collectList())
+                .assertNext(menuItems -> assertThat(menuItems).extracting(MenuItemEntity::id).containsExactly(MENU_ITEM_1_ID, MENU_ITEM_2_ID))
+                .verifyComplete();
+        StepVerifier.create(sut.findAllById(List.of(MENU_ITEM_2_ID)).collectList())
+                .assertNext(menuItems -> assertThat(menuItems).extracting(MenuItemEntity::id).containsExactly(MENU_ITEM_2_ID))
+                .verifyComplete();
+
+        // then
+        then(menuItemRepository).should(times(1)).findAll();
+        then(menuItemRepository).should(never()).findAllById(anyList());
+        assertThat(meterRegistry.get("menu.catalog.lookups").tag("result", "hit").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should fall back to database for menu items missing in catalog")
+    void should_FallBackToDatabase_When_MenuItemIsMissingInCatalog() {
+        // given
+        given(menuItemRepository.findAll()).willReturn(Flux.just(aMenuItemEntityOne().build()));
+        given(menuItemRepository.findAllById(anyList())).willReturn(Flux.just(aMenuItemEntityThree().build()));
+
+        // when
+        StepVerifier.create(sut.findAllById(List.of(MENU_ITEM_1_ID, MENU_ITEM_3_ID)).collectList())
+                .assertNext(menuItems -> assertThat(menuItems).extracting(MenuItemEntity::id).containsExactly(MENU_ITEM_1_ID, MENU_ITEM_3_ID))
+                .verifyComplete();
+
+        // then
+        then(menuItemRepository).should(times(1)).findAllById(List.of(MENU_ITEM_3_ID));
+        assertThat(meterRegistry.get("menu.catalog.lookups").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should serve menu items fetched from database from memory without reloading catalog")
+    void should_ServeFetchedMenuItemFromMemory_When_ItWasMissingInCatalog() {
+        // given
+        given(menuItemRepository.findAll()).willReturn(Flux.just(aMenuItemEntityOne().build()));
+        given(menuItemRepository.findAllById(anyList())).willReturn(Flux.just(aMenuItemEntityThree().build()));
+        StepVerifier.create(sut.findAllById(List.of(MENU_ITEM_3_ID)).collectList())
+                .assertNext(menuItems -> assertThat(menuItems).extracting(MenuItemEntity::id).containsExactly(MENU_ITEM_3_ID))
+                .verifyComplete();
+
+        // when
+        StepVerifier.create(sut.findAllById(List.of(MENU_ITEM_1_ID, MENU_ITEM_3_ID)).collectList())
+                .assertNext(menuItems -> assertThat(menuItems).extracting(MenuItemEntity::id).containsExactly(MENU_ITEM_1_ID, MENU_ITEM_3_ID))
+                .verifyComplete();
+
+        // then
+        then(menuItemRepository).should(times(1)).findAll();
+        then(menuItemRepository).should(times(1)).findAllById(anyList());
+        StepVerifier.create(sut.findAll().collectList())
+                .assertNext(menuItems -> assertThat(menuItems).extracting(MenuItemEntity::id).containsExactly(MENU_ITEM_1_ID, MENU_ITEM_3_ID))
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should reload catalog after invalidation")
+    void should_ReloadCatalog_When_Invalidated() {
+        // given
+        given(menuItemRepository.findAll())
+                .willReturn(Flux.just(aMenuItemEntityOne().build()))
+                .willReturn(Flux.just(aMenuItemEntityOne().build(), aMenuItemEntityTwo().build()));
+        StepVerifier.create(sut.findAll().collectList())
+                .assertNext(menuItems -> assertThat(menuItems).hasSize(1))
+                .verifyComplete();
+
+        // when
+        sut.invalidate();
+
+        // then
+        StepVerifier.create(sut.findAll().collectList())
+                .assertNext(menuItems -> assertThat(menuItems).extracting(MenuItemEntity::id).containsExactly(MENU_ITEM_1_ID, MENU_ITEM_2_ID))
+                .verifyComplete();
+        assertThat(meterRegistry.get("menu.catalog.refreshes").tag("result", "success").counter().count()).isEqualTo(2);
+    }
+}
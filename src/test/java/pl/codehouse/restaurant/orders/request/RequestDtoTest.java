@@ -5,6 +5,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_1_ID;
@@ -91,4 +92,27 @@ class RequestDtoTest {
                 .isInstanceOf(IllegalStateException.class)
                 .hasMessage("Menu item not found");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should convert using menu items indexed by id and sum item counts in a single pass")
+    void shouldConvertUsingMenuItemsIndexedById() {
+        // given
+        List<RequestMenuItemEntity> requestMenuItems = List.of(
+                RequestMenuItemEntityBuilder.aRequestMenuItemEntityTwo().withQuantity(4).build(),
+                RequestMenuItemEntityBuilder.aRequestMenuItemEntityOne().withQuantity(2).build()
+        );
+        Map<Integer, MenuItemEntity> menuItemsById = RequestDto.indexById(List.of(item1, item2));
+
+        // when
+        RequestDto dto = RequestDto.from(entity, requestMenuItems, menuItemsById);
+
+        // then
+        assertThat(dto)
+                .isEqualTo(RequestDto.from(entity, requestMenuItems, List.of(item1, item2)))
+                .hasFieldOrPropertyWithValue("totalItemsCount", 6)
+                .hasFieldOrPropertyWithValue("status", RequestStatus.NEW);
+        assertThat(dto.menuItems())
+                .extracting(RequestMenuItem::menuItemName)
+                .containsExactly("Item 2", "Item 1");
+    }
+}
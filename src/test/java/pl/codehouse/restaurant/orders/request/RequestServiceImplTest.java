@@ -0,0 +1,158 @@
+package pl.codehouse.restaurant.orders.request;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.aMenuItemEntityOne;
+import static pl.codehouse.restaurant.orders.request.RequestDtoBuilder.aRequestDto;
+import static pl.codehouse.restaurant.orders.request.RequestEntityBuilder.REQUEST_ID;
+import static pl.codehouse.restaurant.orders.request.RequestEntityBuilder.aRequestEntity;
+import static pl.codehouse.restaurant.orders.request.RequestMenuItemEntityBuilder.aRequestMenuItemEntityOne;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.codehouse.restaurant.orders.PipelineMetrics;
+import pl.codehouse.restaurant.orders.shelf.PackingStatus;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class RequestServiceImplTest {
+    private static final int STATUS_CHANGES = 3;
+
+    @Mock
+    private RequestRepository requestRepository;
+
+    @Mock
+    private RequestMenuItemRepository requestMenuItemRepository;
+
+    @Mock
+    private MenuCatalog menuCatalog;
+
+    @Mock
+    private UpdatePrepairedMenuItemsCommand updatePrepairedMenuItemsCommand;
+
+    @Mock
+    private UpdatePreparedMenuItemsBatchCommand updatePreparedMenuItemsBatchCommand;
+
+    @Mock
+    private JoinedRequestQuery joinedRequestQuery;
+
+    private RequestStatusChangeListener requestStatusChangeListener;
+
+    private RequestServiceImpl sut;
+
+    @BeforeEach
+    void setUp() {
+        RequestStatusStreamProperties streamProperties = new RequestStatusStreamProperties(
+                RequestStatusStreamProperties.OverflowStrategy.BUFFER, 256, Duration.ofSeconds(30), Duration.ZERO, 256);
+        requestStatusChangeListener = new RequestStatusChangeListener(streamProperties, new PipelineMetrics(new SimpleMeterRegistry(), Clock.systemUTC()));
+        sut = new RequestServiceImpl(
+                requestRepository,
+                requestMenuItemRepository,
+                menuCatalog,
+                updatePrepairedMenuItemsCommand,
+                updatePreparedMenuItemsBatchCommand,
+                requestStatusChangeListener,
+                joinedRequestQuery,
+                new RequestQueryProperties(RequestQueryProperties.ReadStrategy.JOINED, true, 200)
+        );
+    }
+
+    @ParameterizedTest(name = "{0} subscribers")
+    @ValueSource(ints = {1, 50, 500})
+    @DisplayName("should enrich every status change once regardless of the number of subscribers")
+    void should_EnrichStatusChangeOnce_When_ManySubscribersListenOnUpdates(int subscribersCount) {
+        // given
+        given(joinedRequestQuery.findById(REQUEST_ID)).willReturn(Mono.just(aRequestDto().build()));
+        List<List<RequestStatusDto>> receivedUpdates = IntStream.range(0, subscribersCount)
+                .<List<RequestStatusDto>>mapToObj(i -> new CopyOnWriteArrayList<>())
+                .toList();
+        List<Disposable> subscriptions = receivedUpdates.stream()
+                .map(updates -> sut.listenOnRequestUpdates().subscribe(updates::add))
+                .toList();
+
+        // when
+        IntStream.range(0, STATUS_CHANGES)
+                .forEach(i -> requestStatusChangeListener.listen(
+                        new RequestStatusChangeMessage(REQUEST_ID, RequestStatus.IN_PROGRESS, PackingStatus.IN_PROGRESS), Map.of()));
+
+        // then
+        assertThat(receivedUpdates)
+                .allSatisfy(updates -> assertThat(updates)
+                        .hasSize(STATUS_CHANGES)
+                        .allSatisfy(update -> assertThat(update.requestId()).isEqualTo(REQUEST_ID)));
+        then(joinedRequestQuery).should(times(STATUS_CHANGES)).findById(REQUEST_ID);
+
+        subscriptions.forEach(Disposable::dispose);
+    }
+
+    @Test
+    @DisplayName("should assemble active requests in order with one menu items query per chunk")
+    void should_AssembleActiveRequestsInOrder_When_MoreRequestsThanChunkSize() {
+        // given
+        RequestServiceImpl chunkedSut = serviceWithChunkSize(2);
+        given(requestRepository.findActive()).willReturn(Flux.range(1, 5).map(requestId -> aRequestEntity(requestId).build()));
+        given(requestMenuItemRepository.findByRequestIdIn(List.of(1, 2)))
+                .willReturn(Flux.just(requestMenuItem(10, 2), requestMenuItem(11, 1)));
+        given(requestMenuItemRepository.findByRequestIdIn(List.of(3, 4)))
+                .willReturn(Flux.just(requestMenuItem(12, 4)));
+        given(requestMenuItemRepository.findByRequestIdIn(List.of(5)))
+                .willReturn(Flux.just(requestMenuItem(13, 5)));
+        given(menuCatalog.findAllById(anyCollection())).willReturn(Flux.just(aMenuItemEntityOne().build()));
+
+        // when & then
+        StepVerifier.create(chunkedSut.fetchActive())
+                .assertNext(request -> assertThat(request).returns(1, RequestDto::requestId).returns(1, RequestDto::totalItemsCount))
+                .assertNext(request -> assertThat(request).returns(2, RequestDto::requestId).returns(1, RequestDto::totalItemsCount))
+                .assertNext(request -> {
+                    assertThat(request.requestId()).isEqualTo(3);
+                    assertThat(request.menuItems()).isEmpty();
+                })
+                .assertNext(request -> assertThat(request).returns(4, RequestDto::requestId).returns(1, RequestDto::totalItemsCount))
+                .assertNext(request -> assertThat(request).returns(5, RequestDto::requestId).returns(1, RequestDto::totalItemsCount))
+                .verifyComplete();
+
+        then(requestMenuItemRepository).should(times(3)).findByRequestIdIn(anyCollection());
+        then(requestMenuItemRepository).should(never()).findByRequestId(anyInt());
+    }
+
+    private RequestServiceImpl serviceWithChunkSize(int chunkSize) {
+        return new RequestServiceImpl(
+                requestRepository,
+                requestMenuItemRepository,
+                menuCatalog,
+                updatePrepairedMenuItemsCommand,
+                updatePreparedMenuItemsBatchCommand,
+                requestStatusChangeListener,
+                joinedRequestQuery,
+                new RequestQueryProperties(RequestQueryProperties.ReadStrategy.JOINED, true, chunkSize)
+        );
+    }
+
+    private static RequestMenuItemEntity requestMenuItem(int requestMenuItemId, int requestId) {
+        return aRequestMenuItemEntityOne()
+                .withId(requestMenuItemId)
+                .withRequestId(requestId)
+                .build();
+    }
+}
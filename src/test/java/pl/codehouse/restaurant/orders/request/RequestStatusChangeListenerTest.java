@@ -0,0 +1,117 @@
+package pl.codehouse.restaurant.orders.request;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pl.codehouse.restaurant.orders.PipelineContext;
+import pl.codehouse.restaurant.orders.PipelineMetrics;
+import pl.codehouse.restaurant.orders.shelf.PackingStatus;
+import reactor.test.StepVerifier;
+
+class RequestStatusChangeListenerTest {
+    private static final int REQUEST_ID = 1111;
+    private static final int REQUEST_2_ID = 1121;
+    private static final Duration COALESCE_WINDOW = Duration.ofMillis(200);
+    private static final Instant CREATED_AT = Instant.parse("2024-09-01T12:00:00Z");
+    private static final Duration TIME_TO_READY = Duration.ofSeconds(3);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("should emit only the latest status change of every request within coalescing window")
+    void should_EmitLatestStatusChangePerRequest_When_ChangesArriveWithinWindow() {
+        // given
+        RequestStatusChangeListener sut = listenerWithCoalesceWindow(COALESCE_WINDOW);
+        RequestStatusChangeMessage request1InProgress = new RequestStatusChangeMessage(REQUEST_ID, RequestStatus.IN_PROGRESS, PackingStatus.IN_PROGRESS);
+        RequestStatusChangeMessage request2InProgress = new RequestStatusChangeMessage(REQUEST_2_ID, RequestStatus.IN_PROGRESS, PackingStatus.IN_PROGRESS);
+        RequestStatusChangeMessage request1Ready = new RequestStatusChangeMessage(REQUEST_ID, RequestStatus.READY_TO_COLLECT, PackingStatus.READY_TO_COLLECT);
+
+        // when & then
+        StepVerifier.withVirtualTime(sut::getRequestStatusChanges)
+                .expectSubscription()
+                .then(() -> {
+                    sut.listen(request1InProgress, Map.of());
+                    sut.listen(request2InProgress, Map.of());
+                    sut.listen(request1Ready, Map.of());
+                })
+                .expectNoEvent(COALESCE_WINDOW.minusMillis(1))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext(request1Ready, request2InProgress)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("should emit every status change when coalescing is disabled")
+    void should_EmitEveryStatusChange_When_CoalescingIsDisabled() {
+        // given
+        RequestStatusChangeListener sut = listenerWithCoalesceWindow(Duration.ZERO);
+        RequestStatusChangeMessage inProgress = new RequestStatusChangeMessage(REQUEST_ID, RequestStatus.IN_PROGRESS, PackingStatus.IN_PROGRESS);
+        RequestStatusChangeMessage ready = new RequestStatusChangeMessage(REQUEST_ID, RequestStatus.READY_TO_COLLECT, PackingStatus.READY_TO_COLLECT);
+
+        // when & then
+        StepVerifier.create(sut.getRequestStatusChanges())
+                .then(() -> {
+                    sut.listen(inProgress, Map.of());
+                    sut.listen(ready, Map.of());
+                })
+                .expectNext(inProgress, ready)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("should not replay status changes received while no subscriber was connected")
+    void should_NotReplayStatusChanges_When_ReceivedWithoutSubscribers() {
+        // given
+        RequestStatusChangeListener sut = listenerWithCoalesceWindow(Duration.ZERO);
+        RequestStatusChangeMessage stale = new RequestStatusChangeMessage(REQUEST_ID, RequestStatus.IN_PROGRESS, PackingStatus.IN_PROGRESS);
+        RequestStatusChangeMessage ready = new RequestStatusChangeMessage(REQUEST_ID, RequestStatus.READY_TO_COLLECT, PackingStatus.READY_TO_COLLECT);
+        sut.listen(stale, Map.of());
+
+        // when & then
+        StepVerifier.create(sut.getRequestStatusChanges())
+                .then(() -> sut.listen(ready, Map.of()))
+                .expectNext(ready)
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("should record time to ready when request became ready to collect")
+    void should_RecordTimeToReady_When_RequestBecameReadyToCollect() {
+        // given
+        RequestStatusChangeListener sut = listenerWithCoalesceWindow(Duration.ZERO);
+        Map<String, Object> headers = Map.copyOf(new PipelineContext(CREATED_AT, null).toHeaders());
+        RequestStatusChangeMessage inProgress = new RequestStatusChangeMessage(REQUEST_ID, RequestStatus.IN_PROGRESS, PackingStatus.IN_PROGRESS);
+        RequestStatusChangeMessage ready = new RequestStatusChangeMessage(REQUEST_ID, RequestStatus.READY_TO_COLLECT, PackingStatus.READY_TO_COLLECT);
+        RequestStatusChangeMessage collected = new RequestStatusChangeMessage(REQUEST_ID, RequestStatus.COLLECTED, PackingStatus.COLLECTED);
+
+        // when
+        sut.listen(inProgress, headers);
+        sut.listen(ready, headers);
+        sut.listen(collected, headers);
+
+        // then
+        assertThat(meterRegistry.get("request.pipeline.time.to.ready").timer().totalTime(TimeUnit.SECONDS))
+                .isEqualTo((double) TIME_TO_READY.toSeconds());
+        assertThat(meterRegistry.get("request.pipeline.stage").tag("stage", "status-in-progress").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("request.pipeline.stage").tag("stage", "status-ready-to-collect").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("request.pipeline.stage").tag("stage", "status-collected").timer()).isNull();
+    }
+
+    private RequestStatusChangeListener listenerWithCoalesceWindow(Duration coalesceWindow) {
+        return new RequestStatusChangeListener(new RequestStatusStreamProperties(
+                RequestStatusStreamProperties.OverflowStrategy.BUFFER, 256, Duration.ofSeconds(30), coalesceWindow, 256),
+                new PipelineMetrics(meterRegistry, Clock.fixed(CREATED_AT.plus(TIME_TO_READY), ZoneOffset.UTC)));
+    }
+}
@@ -0,0 +1,121 @@
+package pl.codehouse.restaurant.orders.request;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.codehouse.restaurant.orders.request.RequestStatusStreamProperties.OverflowStrategy;
+import pl.codehouse.restaurant.orders.shelf.PackingStatus;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class RequestStatusSubscriberBuffersTest {
+    private static final int BUFFER_SIZE = 2;
+    private static final Duration MAX_LAG = Duration.ofSeconds(30);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Sinks.Many<RequestStatusDto> updates = Sinks.many().multicast().onBackpressureBuffer();
+
+    @Mock
+    private Clock clock;
+
+    @Test
+    @DisplayName("should disconnect subscriber when its buffer overflows")
+    void should_DisconnectSubscriber_When_BufferOverflows() {
+        // given
+        RequestStatusSubscriberBuffers sut = subscriberBuffersWith(OverflowStrategy.BUFFER);
+
+        // when & then
+        StepVerifier.create(sut.attach(updates.asFlux()), 0)
+                .then(() -> emit(statusOf(1, PackingStatus.IN_PROGRESS), statusOf(2, PackingStatus.IN_PROGRESS), statusOf(3, PackingStatus.IN_PROGRESS)))
+                .verifyComplete();
+        assertThat(meterRegistry.get("request.status.stream.evictions").tag("reason", "overflow").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("request.status.stream.subscribers").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("should drop oldest updates when subscriber buffer is full")
+    void should_DropOldestUpdates_When_BufferIsFull() {
+        // given
+        RequestStatusSubscriberBuffers sut = subscriberBuffersWith(OverflowStrategy.DROP_OLDEST);
+
+        // when & then
+        StepVerifier.create(sut.attach(updates.asFlux()), 0)
+                .then(() -> emit(statusOf(1, PackingStatus.IN_PROGRESS), statusOf(2, PackingStatus.IN_PROGRESS), statusOf(3, PackingStatus.IN_PROGRESS)))
+                .then(() -> assertThat(meterRegistry.get("request.status.stream.buffer.depth").gauge().value()).isEqualTo(BUFFER_SIZE))
+                .thenRequest(BUFFER_SIZE)
+                .expectNext(statusOf(2, PackingStatus.IN_PROGRESS), statusOf(3, PackingStatus.IN_PROGRESS))
+                .thenCancel()
+                .verify();
+        assertThat(meterRegistry.get("request.status.stream.dropped").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should deliver only the latest pending update of every request")
+    void should_DeliverLatestUpdatePerRequest_When_SubscriberIsBehind() {
+        // given
+        RequestStatusSubscriberBuffers sut = subscriberBuffersWith(OverflowStrategy.LATEST_PER_REQUEST);
+
+        // when & then
+        StepVerifier.create(sut.attach(updates.asFlux()), 0)
+                .then(() -> emit(statusOf(1, PackingStatus.IN_PROGRESS), statusOf(2, PackingStatus.IN_PROGRESS), statusOf(1, PackingStatus.READY_TO_COLLECT)))
+                .thenRequest(3)
+                .expectNext(statusOf(1, PackingStatus.READY_TO_COLLECT), statusOf(2, PackingStatus.IN_PROGRESS))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    @DisplayName("should disconnect subscriber when it falls behind by more than max lag")
+    void should_DisconnectSubscriber_When_LagThresholdIsExceeded() {
+        // given
+        given(clock.millis()).willReturn(0L, MAX_LAG.toMillis() + 1);
+        RequestStatusSubscriberBuffers sut = subscriberBuffersWith(OverflowStrategy.DROP_OLDEST);
+
+        // when & then
+        StepVerifier.create(sut.attach(updates.asFlux()), 0)
+                .then(() -> emit(statusOf(1, PackingStatus.IN_PROGRESS), statusOf(2, PackingStatus.IN_PROGRESS)))
+                .verifyComplete();
+        assertThat(meterRegistry.get("request.status.stream.evictions").tag("reason", "lag").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should disconnect stalled subscriber on periodic lag check when no further updates arrive")
+    void should_DisconnectStalledSubscriber_When_LagCheckedWithoutNewUpdates() {
+        // given
+        given(clock.millis()).willReturn(0L, MAX_LAG.toMillis() + 1);
+        RequestStatusSubscriberBuffers sut = subscriberBuffersWith(OverflowStrategy.BUFFER);
+
+        // when & then
+        StepVerifier.create(sut.attach(updates.asFlux()), 0)
+                .then(() -> emit(statusOf(1, PackingStatus.IN_PROGRESS)))
+                .then(() -> assertThat(meterRegistry.get("request.status.stream.buffer.depth").gauge().value()).isEqualTo(1))
+                .then(sut::evictLaggingSubscribers)
+                .verifyComplete();
+        assertThat(meterRegistry.get("request.status.stream.evictions").tag("reason", "lag").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("request.status.stream.subscribers").gauge().value()).isZero();
+    }
+
+    private RequestStatusSubscriberBuffers subscriberBuffersWith(OverflowStrategy overflowStrategy) {
+        RequestStatusStreamProperties properties = new RequestStatusStreamProperties(overflowStrategy, BUFFER_SIZE, MAX_LAG, Duration.ZERO, BUFFER_SIZE);
+        return new RequestStatusSubscriberBuffers(properties, clock, meterRegistry);
+    }
+
+    private void emit(RequestStatusDto... statusUpdates) {
+        for (RequestStatusDto statusUpdate : statusUpdates) {
+            updates.tryEmitNext(statusUpdate);
+        }
+    }
+
+    private static RequestStatusDto statusOf(int requestId, PackingStatus status) {
+        return new RequestStatusDto(requestId, status, 0, 1);
+    }
+}
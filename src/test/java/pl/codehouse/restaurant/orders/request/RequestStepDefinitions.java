@@ -5,23 +5,26 @@ import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.messaging.Message;
 import pl.codehouse.restaurant.orders.Context;
 import pl.codehouse.restaurant.orders.ExecutionResult;
 import pl.codehouse.restaurant.orders.exceptions.ResourceNotFoundException;
 import pl.codehouse.restaurant.orders.exceptions.ResourceType;
+import pl.codehouse.restaurant.orders.outbox.OutboxWriter;
 import pl.codehouse.restaurant.orders.shelf.PackingStatus;
 import pl.codehouse.restaurant.orders.shelf.ShelfKafkaProperties;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.util.function.Tuples;
 
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.never;
@@ -40,19 +43,18 @@ public class RequestStepDefinitions {
     private static final int VALUE_REPRESENTING_NULL_ID = 0;
     private static final int CUSTOMER_ID_1 = 1001;
 
-    private final RequestRepository repository = Mockito.mock(RequestRepository.class);
+    private final MenuCatalog menuCatalog = Mockito.mock(MenuCatalog.class);
 
-    private final MenuItemRepository menuItemRepository = Mockito.mock(MenuItemRepository.class);
-
-    private final RequestMenuItemRepository requestMenuItemRepository = Mockito.mock(RequestMenuItemRepository.class);
+    private final RequestWriter requestWriter = Mockito.mock(RequestWriter.class);
 
     private final ShelfKafkaProperties shelfKafkaProperties = Mockito.mock(ShelfKafkaProperties.class);
 
     private final RequestStatusChangePublisher requestStatusChangePublisher = Mockito.mock(RequestStatusChangePublisher.class);
 
-    private final KafkaTemplate<String, ShelfEventDto> kafkaTemplate = Mockito.mock(KafkaTemplate.class);
+    private final OutboxWriter outboxWriter = Mockito.mock(OutboxWriter.class);
 
-    private final CreateCommand command = new CreateCommand(repository, menuItemRepository, requestMenuItemRepository, kafkaTemplate, shelfKafkaProperties, requestStatusChangePublisher);
+    private final CreateCommand command = new CreateCommand(
+            menuCatalog, requestWriter, outboxWriter, shelfKafkaProperties, requestStatusChangePublisher);
 
     private Context<RequestPayload> context;
 
@@ -76,9 +78,10 @@ public class RequestStepDefinitions {
 
         context = new Context<>(requestPayload);
 
-        given(menuItemRepository.findAllById(anyList())).willReturn(Flux.just(aMenuItemEntityOne().build(), aMenuItemEntityTwo().build()));
-        given(repository.save(any(RequestEntity.class))).willReturn(Mono.just(requestEntity));
-        given(requestMenuItemRepository.saveAll(anyList())).willReturn(Flux.fromIterable(requestMenuItems));
+        given(menuCatalog.findAllById(anyList())).willReturn(Flux.just(aMenuItemEntityOne().build(), aMenuItemEntityTwo().build()));
+        given(requestWriter.insertRequest(anyInt(), anyList())).willReturn(Mono.just(Tuples.of(requestEntity, requestMenuItems)));
+        given(outboxWriter.write(any())).willReturn(Mono.empty());
+        given(requestStatusChangePublisher.publishChange(anyInt(), any(RequestStatus.class), any(PackingStatus.class))).willReturn(Mono.empty());
 
         expectedRequest = RequestDto.from(requestEntity, requestMenuItems, List.of(aMenuItemEntityOne().build(), aMenuItemEntityTwo().build()));
     }
@@ -91,7 +94,7 @@ public class RequestStepDefinitions {
         ), CUSTOMER_ID_1);
         context = new Context<>(requestPayload);
 
-        given(menuItemRepository.findAllById(anyList())).willReturn(Flux.just(aMenuItemEntityOne().build()));
+        given(menuCatalog.findAllById(anyList())).willReturn(Flux.just(aMenuItemEntityOne().build()));
     }
 
     @When("creating new request")
@@ -107,24 +110,18 @@ public class RequestStepDefinitions {
                     assertThat(executionResult.value()).hasValue(expectedRequest);
                 })
                 .verifyComplete();
-        ArgumentCaptor<RequestEntity> requestEntityArgumentCaptor = ArgumentCaptor.captor();
         ArgumentCaptor<List<RequestMenuItemEntity>> requestMenuItemEntityArgumentCaptor = ArgumentCaptor.captor();
         ArgumentCaptor<Message<?>> kafkaMessagesArgumentCaptor = ArgumentCaptor.captor();
 
 
-        then(repository).should(times(1)).save(requestEntityArgumentCaptor.capture());
-        then(requestMenuItemRepository).should(times(1)).saveAll(requestMenuItemEntityArgumentCaptor.capture());
+        then(requestWriter).should(times(1)).insertRequest(eq(CUSTOMER_ID_1), requestMenuItemEntityArgumentCaptor.capture());
         then(requestStatusChangePublisher).should(times(1)).publishChange(REQUEST_ID, RequestStatus.IN_PROGRESS, PackingStatus.NOT_STARTED);
-        then(kafkaTemplate).should(times(1)).send(kafkaMessagesArgumentCaptor.capture());
+        then(outboxWriter).should(times(1)).write(kafkaMessagesArgumentCaptor.capture());
 
         // And
-        assertThat(requestEntityArgumentCaptor.getValue())
-                .hasFieldOrPropertyWithValue("id", VALUE_REPRESENTING_NULL_ID)
-                .hasFieldOrPropertyWithValue("customerId", requestEntity.customerId());
-
         assertThat(requestMenuItemEntityArgumentCaptor.getValue())
                 .hasSize(2)
-                .allSatisfy(requestMenuItemEntity -> assertThat(requestMenuItemEntity.requestId()).isEqualTo(REQUEST_ID))
+                .allSatisfy(requestMenuItemEntity -> assertThat(requestMenuItemEntity.requestId()).isEqualTo(VALUE_REPRESENTING_NULL_ID))
                 .extracting(RequestMenuItemEntity::menuItemId)
                 .allSatisfy(menuItemId -> assertThat(List.of(MENU_ITEM_1_ID, MENU_ITEM_2_ID)).contains(menuItemId));
 
@@ -149,7 +146,6 @@ public class RequestStepDefinitions {
                         .isInstanceOf(ResourceNotFoundException.class))
                 .verify();
 
-        then(repository).should(never()).save(any());
-        then(requestMenuItemRepository).should(never()).saveAll(anyList());
+        then(requestWriter).should(never()).insertRequest(anyInt(), anyList());
     }
 }
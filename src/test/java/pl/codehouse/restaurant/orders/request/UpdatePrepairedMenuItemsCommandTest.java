@@ -67,6 +67,7 @@ class UpdatePrepairedMenuItemsCommandTest {
         given(requestMenuItemRepository.save(any(RequestMenuItemEntity.class))).willReturn(Mono.just(updatedItem));
         given(requestMenuItemRepository.findByRequestId(requestId)).willReturn(Flux.just(updatedItem));
         given(requestRepository.updateStatusById(anyInt(), any(RequestStatus.class))).willReturn(Mono.just(true));
+        given(requestStatusChangePublisher.publishChange(anyInt(), any(RequestStatus.class), any(PackingStatus.class))).willReturn(Mono.empty());
 
         // When
         Mono<ExecutionResult<PackingStatus>> result = updateCommand.execute(context);
@@ -100,6 +101,7 @@ class UpdatePrepairedMenuItemsCommandTest {
         given(requestMenuItemRepository.save(any(RequestMenuItemEntity.class))).willReturn(Mono.just(updatedItem));
         given(requestMenuItemRepository.findByRequestId(requestId)).willReturn(Flux.just(updatedItem));
         given(requestRepository.updateStatusById(anyInt(), any(RequestStatus.class))).willReturn(Mono.just(true));
+        given(requestStatusChangePublisher.publishChange(anyInt(), any(RequestStatus.class), any(PackingStatus.class))).willReturn(Mono.empty());
 
         // When
         Mono<ExecutionResult<PackingStatus>> result = updateCommand.execute(context);
@@ -0,0 +1,139 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
+import static pl.codehouse.restaurant.orders.request.RequestDtoBuilder.aRequestDto;
+import static pl.codehouse.restaurant.orders.request.RequestMenuItemBuilder.aMenuItemsRequest;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.codehouse.restaurant.orders.Context;
+import pl.codehouse.restaurant.orders.ExecutionResult;
+import pl.codehouse.restaurant.orders.request.PackingActionResult;
+import pl.codehouse.restaurant.orders.request.RequestDto;
+import pl.codehouse.restaurant.orders.request.RequestMenuItem;
+import pl.codehouse.restaurant.orders.request.RequestService;
+import pl.codehouse.restaurant.orders.request.RequestStatus;
+import pl.codehouse.restaurant.orders.request.UpdatePreparedMenuItemsBatchDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class BatchPackingCommandTest {
+    private static final int FIRST_REQUEST_ID = 1111;
+    private static final int SECOND_REQUEST_ID = 1112;
+    private static final int MENU_ITEM_ID = 101;
+
+    @Mock
+    private ShelfService shelfService;
+
+    @Mock
+    private KitchenWorkerRequestPublisher workerRequestPublisher;
+
+    @Mock
+    private RequestService requestService;
+
+    @Captor
+    private ArgumentCaptor<Collection<ShelfDemand>> demandsCaptor;
+
+    @Captor
+    private ArgumentCaptor<UpdatePreparedMenuItemsBatchDto> updateCaptor;
+
+    private WaitingRequestsIndex waitingRequestsIndex;
+
+    private BatchPackingCommand sut;
+
+    @BeforeEach
+    void setUp() {
+        waitingRequestsIndex = new WaitingRequestsIndex(requestService);
+        sut = new BatchPackingCommand(new Shelf(shelfService, workerRequestPublisher), requestService, waitingRequestsIndex);
+    }
+
+    @Test
+    @DisplayName("should take items of all requests from the shelf at once and hand them out in request order")
+    void should_TakeItemsOfAllRequestsAtOnce_When_BatchOfRequestsIsPacked() {
+        // given
+        RequestMenuItem firstRequestItem = aMenuItemsRequest().withId(1).withMenuId(MENU_ITEM_ID).withQuantity(2).build();
+        RequestMenuItem secondRequestItem = aMenuItemsRequest().withId(2).withMenuId(MENU_ITEM_ID).withQuantity(2).build();
+        RequestDto firstRequest = aRequestDto().withRequestId(FIRST_REQUEST_ID).withMenuItems(List.of(firstRequestItem)).withTotalItemsCount(2).build();
+        RequestDto secondRequest = aRequestDto().withRequestId(SECOND_REQUEST_ID).withMenuItems(List.of(secondRequestItem)).withTotalItemsCount(2).build();
+        RequestDto packedFirstRequest = aRequestDto().withRequestId(FIRST_REQUEST_ID).withMenuItems(List.of(firstRequestItem))
+                .withPreparedItemsCount(2).withTotalItemsCount(2).withStatus(RequestStatus.READY_TO_COLLECT).build();
+        RequestDto packedSecondRequest = aRequestDto().withRequestId(SECOND_REQUEST_ID).withMenuItems(List.of(secondRequestItem))
+                .withPreparedItemsCount(1).withTotalItemsCount(2).withStatus(RequestStatus.IN_PROGRESS).build();
+
+        given(requestService.fetchActiveByIds(List.of(FIRST_REQUEST_ID, SECOND_REQUEST_ID)))
+                .willReturn(Flux.just(secondRequest, firstRequest));
+        given(shelfService.takeAll(any())).willReturn(Mono.just(Map.of(MENU_ITEM_ID, 3)));
+        given(requestService.updateCollectedItemsInBatch(any()))
+                .willReturn(Mono.just(packedFirstRequest))
+                .willReturn(Mono.just(packedSecondRequest));
+
+        // when
+        Mono<ExecutionResult<List<PackingActionResult>>> result =
+                sut.execute(new Context<>(List.of(FIRST_REQUEST_ID, SECOND_REQUEST_ID, FIRST_REQUEST_ID)));
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(executionResult -> assertThat(executionResult.handle())
+                        .extracting(PackingActionResult::requestId, PackingActionResult::status)
+                        .containsExactly(
+                                tuple(FIRST_REQUEST_ID, RequestStatus.READY_TO_COLLECT),
+                                tuple(SECOND_REQUEST_ID, RequestStatus.IN_PROGRESS)))
+                .verifyComplete();
+
+        then(shelfService).should(times(1)).takeAll(demandsCaptor.capture());
+        assertThat(demandsCaptor.getValue())
+                .singleElement()
+                .extracting(ShelfDemand::quantity)
+                .isEqualTo(4);
+
+        then(requestService).should(times(2)).updateCollectedItemsInBatch(updateCaptor.capture());
+        assertThat(updateCaptor.getAllValues())
+                .containsExactly(
+                        new UpdatePreparedMenuItemsBatchDto(FIRST_REQUEST_ID, Map.of(MENU_ITEM_ID, 2)),
+                        new UpdatePreparedMenuItemsBatchDto(SECOND_REQUEST_ID, Map.of(MENU_ITEM_ID, 1)));
+        then(workerRequestPublisher).should(times(1)).publishRequest(eq(secondRequestItem), eq(1));
+        given(requestService.findRequestIdsWaitingFor(MENU_ITEM_ID)).willReturn(Flux.empty());
+        assertThat(waitingRequestsIndex.drain(MENU_ITEM_ID).block()).containsExactly(SECOND_REQUEST_ID);
+    }
+
+    @Test
+    @DisplayName("should not update request when nothing was taken from the shelf")
+    void should_NotUpdateRequest_When_NothingWasTakenFromShelf() {
+        // given
+        RequestMenuItem requestItem = aMenuItemsRequest().withId(1).withMenuId(MENU_ITEM_ID).withQuantity(1).build();
+        RequestDto request = aRequestDto().withRequestId(FIRST_REQUEST_ID).withMenuItems(List.of(requestItem)).withTotalItemsCount(1).build();
+
+        given(requestService.fetchActiveByIds(List.of(FIRST_REQUEST_ID))).willReturn(Flux.just(request));
+        given(shelfService.takeAll(any())).willReturn(Mono.just(Map.of()));
+
+        // when
+        Mono<ExecutionResult<List<PackingActionResult>>> result = sut.execute(new Context<>(List.of(FIRST_REQUEST_ID)));
+
+        // then
+        StepVerifier.create(result)
+                .assertNext(executionResult -> assertThat(executionResult.handle())
+                        .containsExactly(PackingActionResult.from(request)))
+                .verifyComplete();
+
+        then(requestService).should(times(0)).updateCollectedItemsInBatch(any());
+        then(workerRequestPublisher).should(times(1)).publishRequest(eq(requestItem), anyInt());
+    }
+}
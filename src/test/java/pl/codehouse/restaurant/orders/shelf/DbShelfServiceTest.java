@@ -2,15 +2,21 @@ package pl.codehouse.restaurant.orders.shelf;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_1_ID;
 import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_1_NAME;
 import static pl.codehouse.restaurant.orders.request.RequestMenuItemBuilder.aRequestMenuItemOne;
 import static pl.codehouse.restaurant.orders.shelf.ShelfBuilder.aShelf;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
@@ -18,11 +24,10 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import pl.codehouse.restaurant.orders.request.RequestMenuItem;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -40,12 +45,11 @@ class DbShelfServiceTest {
     @Mock
     private ShelfRepository shelfRepository;
 
-    @Captor
-    private ArgumentCaptor<ShelfEntity> shelfEntityCaptor;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @BeforeEach
     void setUp() {
-        this.sut = new DbShelfService(clock, shelfRepository);
+        this.sut = new DbShelfService(clock, shelfRepository, shelfDbProperties(ShelfDbProperties.ConcurrencyMode.ATOMIC), meterRegistry);
     }
 
     @Test
@@ -71,7 +75,7 @@ class DbShelfServiceTest {
         RequestMenuItem menuItem = aRequestMenuItemOne().build();
 
         given(shelfRepository.findByMenuItemId(MENU_ITEM_1_ID)).willReturn(Mono.empty());
-        given(shelfRepository.save(any())).willReturn(Mono.just(aShelf().build()));
+        given(shelfRepository.insertIfAbsent(MENU_ITEM_1_NAME, MENU_ITEM_1_ID, 0, NEW_VERSION_VALUE, updatedAt)).willReturn(Mono.just(aShelf().build()));
 
         // when
         Mono<ShelfEntity> resultMono = sut.findByMenuItem(menuItem);
@@ -81,14 +85,132 @@ class DbShelfServiceTest {
                 .verifyComplete();
 
         // and
-        then(shelfRepository).should(times(1)).save(shelfEntityCaptor.capture());
-        assertThat(shelfEntityCaptor.getValue())
-                        .hasFieldOrPropertyWithValue("id", 0)
-                        .hasFieldOrPropertyWithValue("menuItemId", MENU_ITEM_1_ID)
-                        .hasFieldOrPropertyWithValue("itemName", MENU_ITEM_1_NAME)
-                        .hasFieldOrPropertyWithValue("quantity", 0)
-                        .hasFieldOrPropertyWithValue("updatedAt", updatedAt)
-                        .hasFieldOrPropertyWithValue("version", NEW_VERSION_VALUE)
-        ;
+        then(shelfRepository).should(times(1)).insertIfAbsent(MENU_ITEM_1_NAME, MENU_ITEM_1_ID, 0, NEW_VERSION_VALUE, updatedAt);
+        then(shelfRepository).should(never()).save(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("should return shelf entity created concurrently when inserting a new one conflicts with it")
+    void should_ReturnConcurrentlyCreatedShelfEntity_When_InsertConflicts() {
+        // given
+        RequestMenuItem menuItem = aRequestMenuItemOne().build();
+        ShelfEntity concurrentlyCreatedShelf = aShelf().aShelfWithAvailableMenuItems().withMenuId(MENU_ITEM_1_ID).build();
+
+        given(shelfRepository.findByMenuItemId(MENU_ITEM_1_ID)).willReturn(Mono.empty(), Mono.just(concurrentlyCreatedShelf));
+        given(shelfRepository.insertIfAbsent(MENU_ITEM_1_NAME, MENU_ITEM_1_ID, 0, NEW_VERSION_VALUE, updatedAt)).willReturn(Mono.empty());
+
+        // when
+        Mono<ShelfEntity> resultMono = sut.findByMenuItem(menuItem);
+
+        // then
+        StepVerifier.create(resultMono)
+                .expectNext(concurrentlyCreatedShelf)
+                .verifyComplete();
+        then(shelfRepository).should(times(2)).findByMenuItemId(MENU_ITEM_1_ID);
+    }
+
+    @Test
+    @DisplayName("should return number of items atomically taken from the shelf")
+    void should_ReturnItemsTaken_When_TakingFromExistingShelf() {
+        // given
+        RequestMenuItem menuItem = aRequestMenuItemOne().build();
+
+        given(shelfRepository.takeByMenuItemId(MENU_ITEM_1_ID, 3, updatedAt)).willReturn(Mono.just(2));
+
+        // when
+        Mono<Integer> resultMono = sut.take(menuItem, 3);
+
+        // then
+        StepVerifier.create(resultMono)
+                .expectNext(2)
+                .verifyComplete();
+        then(shelfRepository).should(never()).save(any());
+    }
+
+    @Test
+    @DisplayName("should create new shelf entity and take nothing when one does not exist by request menu item id")
+    void should_CreateShelfEntityAndTakeNothing_When_OneDoesNotExistByRequestMenuItemId() {
+        // given
+        RequestMenuItem menuItem = aRequestMenuItemOne().build();
+
+        given(shelfRepository.takeByMenuItemId(MENU_ITEM_1_ID, 3, updatedAt)).willReturn(Mono.empty());
+        given(shelfRepository.findByMenuItemId(MENU_ITEM_1_ID)).willReturn(Mono.empty());
+        given(shelfRepository.insertIfAbsent(MENU_ITEM_1_NAME, MENU_ITEM_1_ID, 0, NEW_VERSION_VALUE, updatedAt)).willReturn(Mono.just(aShelf().build()));
+
+        // when
+        Mono<Integer> resultMono = sut.take(menuItem, 3);
+
+        // then
+        StepVerifier.create(resultMono)
+                .expectNext(0)
+                .verifyComplete();
+        then(shelfRepository).should(times(1)).insertIfAbsent(MENU_ITEM_1_NAME, MENU_ITEM_1_ID, 0, NEW_VERSION_VALUE, updatedAt);
+    }
+
+    @Test
+    @DisplayName("should fail with optimistic locking failure when shelf version changed concurrently")
+    void should_FailWithOptimisticLockingFailure_When_ShelfVersionChangedConcurrently() {
+        // given
+        ShelfEntity storedEntity = aShelf().aShelfWithAvailableMenuItems().withMenuId(MENU_ITEM_1_ID).build();
+        ShelfEntity shelfEntity = storedEntity.withQuantityUpdate(1, updatedAt);
+
+        given(shelfRepository.updateIfVersionMatches(shelfEntity.id(), 1, shelfEntity.version(), updatedAt, storedEntity.version()))
+                .willReturn(Mono.just(0));
+
+        // when
+        Mono<ShelfEntity> resultMono = sut.compareAndSet(shelfEntity, storedEntity.version());
+
+        // then
+        StepVerifier.create(resultMono)
+                .expectError(OptimisticLockingFailureException.class)
+                .verify();
+        assertThat(meterRegistry.get("shelf.version.conflicts").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should check the explicitly expected version when entity version was incremented more than once")
+    void should_CheckExpectedVersion_When_EntityVersionIncrementedMoreThanOnce() {
+        // given
+        ShelfEntity storedEntity = aShelf().aShelfWithAvailableMenuItems().withMenuId(MENU_ITEM_1_ID).build();
+        ShelfEntity shelfEntity = storedEntity.withQuantityUpdate(2, updatedAt).withQuantityUpdate(1, updatedAt);
+
+        given(shelfRepository.updateIfVersionMatches(shelfEntity.id(), 1, storedEntity.version() + 2, updatedAt, storedEntity.version()))
+                .willReturn(Mono.just(1));
+
+        // when
+        Mono<ShelfEntity> resultMono = sut.compareAndSet(shelfEntity, storedEntity.version());
+
+        // then
+        StepVerifier.create(resultMono)
+                .expectNext(shelfEntity)
+                .verifyComplete();
+    }
+
+    @Test
+    @DisplayName("should retry optimistic take when shelf version changed concurrently")
+    void should_RetryOptimisticTake_When_ShelfVersionChangedConcurrently() {
+        // given
+        sut = new DbShelfService(clock, shelfRepository, shelfDbProperties(ShelfDbProperties.ConcurrencyMode.OPTIMISTIC), meterRegistry);
+        RequestMenuItem menuItem = aRequestMenuItemOne().build();
+        ShelfEntity shelfEntity = aShelf().aShelfWithAvailableMenuItems().withMenuId(MENU_ITEM_1_ID).withItemsQuantity(5).build();
+
+        given(shelfRepository.findByMenuItemId(MENU_ITEM_1_ID)).willReturn(Mono.just(shelfEntity));
+        given(shelfRepository.updateIfVersionMatches(eq(shelfEntity.id()), anyInt(), anyLong(), any(), eq(shelfEntity.version())))
+                .willReturn(Mono.just(0))
+                .willReturn(Mono.just(1));
+
+        // when
+        Mono<Integer> resultMono = sut.take(menuItem, 3);
+
+        // then
+        StepVerifier.create(resultMono)
+                .expectNext(3)
+                .verifyComplete();
+        then(shelfRepository).should(times(2)).updateIfVersionMatches(shelfEntity.id(), 2, shelfEntity.version() + 1, updatedAt, shelfEntity.version());
+        assertThat(meterRegistry.get("shelf.version.retries").counter().count()).isEqualTo(1);
+    }
+
+    private static ShelfDbProperties shelfDbProperties(ShelfDbProperties.ConcurrencyMode concurrencyMode) {
+        return new ShelfDbProperties(concurrencyMode, 3, Duration.ofMillis(1), 0.5);
+    }
+}
@@ -0,0 +1,191 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static pl.codehouse.restaurant.orders.request.RequestMenuItemBuilder.aMenuItemsRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.messaging.Message;
+import pl.codehouse.restaurant.orders.KafkaMessageSender;
+import pl.codehouse.restaurant.orders.request.RequestMenuItem;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class KitchenWorkerRequestPublisherTest {
+    private static final int MENU_ITEM_ID = 101;
+    private static final int OTHER_MENU_ITEM_ID = 102;
+    private static final long VERIFY_TIMEOUT_MS = 1000;
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-09-22T10:00:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    private KafkaTemplate<String, KitchenWorkerRequestMessage> kafkaTemplate;
+
+    @Mock
+    private KafkaMessageSender mockedMessageSender;
+
+    @Captor
+    private ArgumentCaptor<Message<KitchenWorkerRequestMessage>> messageCaptor;
+
+    private KitchenWorkerRequestPublisher sut;
+
+    @BeforeEach
+    void setUp() {
+        sut = new KitchenWorkerRequestPublisher(
+                kafkaTemplate,
+                new KafkaMessageSender(new SimpleMeterRegistry()),
+                new KitchenWorkerKafkaProperties("kitchen-events", 1),
+                new KitchenWorkerRequestProperties(Duration.ofMillis(50), 1000, Duration.ofMinutes(2)),
+                CLOCK
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        sut.stopAggregation();
+    }
+
+    @Test
+    @DisplayName("should send a single kitchen request per menu item with shortages summed up within the window")
+    void should_SendSingleRequestPerMenuItem_When_ShortagesReportedWithinWindow() {
+        // given
+        givenKitchenAcknowledgesRequests();
+
+        // when
+        sut.publishRequest(requestedMenuItem(1, MENU_ITEM_ID), 2);
+        sut.publishRequest(requestedMenuItem(2, MENU_ITEM_ID), 3);
+        sut.publishRequest(requestedMenuItem(2, MENU_ITEM_ID), 3);
+        sut.publishRequest(requestedMenuItem(3, OTHER_MENU_ITEM_ID), 1);
+
+        // then
+        then(kafkaTemplate).should(timeout(VERIFY_TIMEOUT_MS).times(2)).send(messageCaptor.capture());
+        assertThat(messageCaptor.getAllValues())
+                .extracting(Message::getPayload)
+                .containsExactlyInAnyOrder(
+                        new KitchenWorkerRequestMessage(MENU_ITEM_ID, 5),
+                        new KitchenWorkerRequestMessage(OTHER_MENU_ITEM_ID, 1));
+    }
+
+    @Test
+    @DisplayName("should request only items exceeding those already in flight to the kitchen")
+    void should_RequestOnlyMissingItems_When_ItemsAlreadyInFlight() {
+        // given
+        givenKitchenAcknowledgesRequests();
+        sut.publishRequest(requestedMenuItem(1, MENU_ITEM_ID), 2);
+        then(kafkaTemplate).should(timeout(VERIFY_TIMEOUT_MS).times(1)).send(messageCaptor.capture());
+
+        // when
+        sut.publishRequest(requestedMenuItem(1, MENU_ITEM_ID), 2);
+
+        // then
+        then(kafkaTemplate).should(after(200).times(1)).send(messageCaptor.capture());
+
+        // and when
+        sut.publishRequest(requestedMenuItem(1, MENU_ITEM_ID), 2);
+        sut.publishRequest(requestedMenuItem(2, MENU_ITEM_ID), 1);
+
+        // then
+        then(kafkaTemplate).should(timeout(VERIFY_TIMEOUT_MS).times(2)).send(messageCaptor.capture());
+        assertThat(messageCaptor.getAllValues())
+                .extracting(Message::getPayload)
+                .last()
+                .isEqualTo(new KitchenWorkerRequestMessage(MENU_ITEM_ID, 1));
+    }
+
+    @Test
+    @DisplayName("should request items again once the requested items were added on the shelf")
+    void should_RequestItemsAgain_When_RequestedItemsAddedOnShelf() {
+        // given
+        givenKitchenAcknowledgesRequests();
+        sut.publishRequest(requestedMenuItem(1, MENU_ITEM_ID), 2);
+        then(kafkaTemplate).should(timeout(VERIFY_TIMEOUT_MS).times(1)).send(messageCaptor.capture());
+
+        // when
+        sut.itemsAddedOnShelf(MENU_ITEM_ID, 2);
+        sut.publishRequest(requestedMenuItem(2, MENU_ITEM_ID), 2);
+
+        // then
+        then(kafkaTemplate).should(timeout(VERIFY_TIMEOUT_MS).times(2)).send(messageCaptor.capture());
+        assertThat(messageCaptor.getAllValues())
+                .extracting(Message::getPayload)
+                .last()
+                .isEqualTo(new KitchenWorkerRequestMessage(MENU_ITEM_ID, 2));
+    }
+
+    @Test
+    @DisplayName("should request items again when the previous kitchen request was not acknowledged")
+    void should_RequestItemsAgain_When_PreviousRequestFailed() {
+        // given
+        given(kafkaTemplate.send(any(Message.class)))
+                .willReturn(CompletableFuture.failedFuture(new IllegalStateException("broker unavailable")))
+                .willReturn(CompletableFuture.completedFuture(null));
+        sut.publishRequest(requestedMenuItem(1, MENU_ITEM_ID), 2);
+        then(kafkaTemplate).should(timeout(VERIFY_TIMEOUT_MS).times(1)).send(messageCaptor.capture());
+
+        // when
+        sut.publishRequest(requestedMenuItem(1, MENU_ITEM_ID), 2);
+
+        // then
+        then(kafkaTemplate).should(timeout(VERIFY_TIMEOUT_MS).times(2)).send(messageCaptor.capture());
+        assertThat(messageCaptor.getAllValues())
+                .extracting(Message::getPayload)
+                .last()
+                .isEqualTo(new KitchenWorkerRequestMessage(MENU_ITEM_ID, 2));
+    }
+
+    @Test
+    @DisplayName("should keep requesting missing items when sending a previous kitchen request threw")
+    void should_RequestItemsAgain_When_SendingPreviousRequestThrew() {
+        // given
+        sut.stopAggregation();
+        sut = new KitchenWorkerRequestPublisher(
+                kafkaTemplate,
+                mockedMessageSender,
+                new KitchenWorkerKafkaProperties("kitchen-events", 1),
+                new KitchenWorkerRequestProperties(Duration.ofMillis(50), 1000, Duration.ofMinutes(2)),
+                CLOCK
+        );
+        given(mockedMessageSender.send(eq(kafkaTemplate), any(Message.class)))
+                .willThrow(new IllegalStateException("producer closed"))
+                .willReturn(Mono.empty());
+        sut.publishRequest(requestedMenuItem(1, MENU_ITEM_ID), 2);
+        then(mockedMessageSender).should(timeout(VERIFY_TIMEOUT_MS).times(1)).send(eq(kafkaTemplate), messageCaptor.capture());
+
+        // when
+        sut.publishRequest(requestedMenuItem(1, MENU_ITEM_ID), 2);
+
+        // then
+        then(mockedMessageSender).should(timeout(VERIFY_TIMEOUT_MS).times(2)).send(eq(kafkaTemplate), messageCaptor.capture());
+        assertThat(messageCaptor.getAllValues())
+                .extracting(Message::getPayload)
+                .last()
+                .isEqualTo(new KitchenWorkerRequestMessage(MENU_ITEM_ID, 2));
+    }
+
+    private void givenKitchenAcknowledgesRequests() {
+        given(kafkaTemplate.send(any(Message.class))).willReturn(CompletableFuture.completedFuture(null));
+    }
+
+    private static RequestMenuItem requestedMenuItem(int id, int menuItemId) {
+        return aMenuItemsRequest().withId(id).withMenuId(menuItemId).build();
+    }
+}
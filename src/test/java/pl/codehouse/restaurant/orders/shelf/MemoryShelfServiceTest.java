@@ -0,0 +1,137 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_1_ID;
+import static pl.codehouse.restaurant.orders.request.RequestMenuItemBuilder.aRequestMenuItemOne;
+import static pl.codehouse.restaurant.orders.shelf.ShelfBuilder.aShelf;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import pl.codehouse.restaurant.orders.request.RequestMenuItem;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class MemoryShelfServiceTest {
+    private static final int SHELF_ITEMS = 50;
+    private static final int CONCURRENT_TAKES = 200;
+
+    private final Clock clock = Clock.fixed(Instant.parse("2024-12-30T10:15:30.00Z"), ZoneOffset.UTC);
+
+    @Mock
+    private ShelfRepository shelfRepository;
+
+    @Mock
+    private ShelfWriteBehind writeBehind;
+
+    @Captor
+    private ArgumentCaptor<ShelfEntity> shelfEntityCaptor;
+
+    private MemoryShelfService sut;
+
+    @BeforeEach
+    void setUp() {
+        sut = new MemoryShelfService(clock, shelfRepository, writeBehind, new ShelfMemoryProperties(4));
+    }
+
+    @Test
+    @DisplayName("should never take more items than available on the shelf when taking concurrently")
+    void should_NeverTakeMoreItemsThanAvailable_When_TakingConcurrently() {
+        // given
+        RequestMenuItem menuItem = aRequestMenuItemOne().build();
+        given(shelfRepository.findAll()).willReturn(Flux.just(aShelf().withMenuId(MENU_ITEM_1_ID).withItemsQuantity(SHELF_ITEMS).build()));
+
+        // when
+        Mono<Integer> totalTaken = Flux.range(0, CONCURRENT_TAKES)
+                .parallel()
+                .runOn(Schedulers.parallel())
+                .flatMap(i -> sut.take(menuItem, 1))
+                .sequential()
+                .reduce(0, Integer::sum);
+
+        // then
+        StepVerifier.create(totalTaken)
+                .expectNext(SHELF_ITEMS)
+                .verifyComplete();
+        StepVerifier.create(sut.findByMenuItem(menuItem))
+                .assertNext(shelf -> assertThat(shelf)
+                        .hasFieldOrPropertyWithValue("quantity", 0)
+                        .hasFieldOrPropertyWithValue("version", (long) SHELF_ITEMS))
+                .verifyComplete();
+        then(shelfRepository).should(times(1)).findAll();
+        then(shelfRepository).should(never()).save(any());
+    }
+
+    @Test
+    @DisplayName("should hand only changed shelf items to write-behind")
+    void should_HandOnlyChangedShelfItemsToWriteBehind_When_TakingFromShelf() {
+        // given
+        RequestMenuItem menuItem = aRequestMenuItemOne().build();
+        RequestMenuItem emptyShelfMenuItem = aRequestMenuItemOne().withMenuId(MENU_ITEM_1_ID + 1).build();
+        ShelfEntity stockedShelf = aShelf().withMenuId(MENU_ITEM_1_ID).withItemsQuantity(SHELF_ITEMS).build();
+        ShelfEntity emptyShelf = aShelf().withMenuId(MENU_ITEM_1_ID + 1).withItemsQuantity(0).build();
+        given(shelfRepository.findAll()).willReturn(Flux.fromIterable(List.of(stockedShelf, emptyShelf)));
+
+        // when
+        StepVerifier.create(sut.take(menuItem, 5))
+                .expectNext(5)
+                .verifyComplete();
+        StepVerifier.create(sut.take(emptyShelfMenuItem, 5))
+                .expectNext(0)
+                .verifyComplete();
+
+        // then
+        then(writeBehind).should(times(1)).enqueue(shelfEntityCaptor.capture());
+        assertThat(shelfEntityCaptor.getValue())
+                .hasFieldOrPropertyWithValue("menuItemId", MENU_ITEM_1_ID)
+                .hasFieldOrPropertyWithValue("quantity", SHELF_ITEMS - 5)
+                .hasFieldOrPropertyWithValue("version", 1L);
+    }
+
+    @Test
+    @DisplayName("should take items again after items were added on an emptied shelf")
+    void should_TakeItemsAgain_When_ItemsAddedOnEmptiedShelf() {
+        // given
+        RequestMenuItem menuItem = aRequestMenuItemOne().build();
+        given(shelfRepository.findAll()).willReturn(Flux.just(aShelf().withMenuId(MENU_ITEM_1_ID).withItemsQuantity(1).build()));
+        StepVerifier.create(sut.take(menuItem, 1))
+                .expectNext(1)
+                .verifyComplete();
+        StepVerifier.create(sut.take(menuItem, 1))
+                .expectNext(0)
+                .verifyComplete();
+
+        // when
+        StepVerifier.create(sut.restock(MENU_ITEM_1_ID, 2))
+                .verifyComplete();
+
+        // then
+        StepVerifier.create(sut.take(menuItem, 1))
+                .expectNext(1)
+                .verifyComplete();
+        then(writeBehind).should(times(3)).enqueue(shelfEntityCaptor.capture());
+        assertThat(shelfEntityCaptor.getAllValues().get(1))
+                .hasFieldOrPropertyWithValue("quantity", 2)
+                .hasFieldOrPropertyWithValue("version", 2L);
+        assertThat(shelfEntityCaptor.getValue())
+                .hasFieldOrPropertyWithValue("quantity", 1)
+                .hasFieldOrPropertyWithValue("version", 3L);
+    }
+}
@@ -14,7 +14,8 @@ import pl.codehouse.restaurant.orders.request.PackingActionResult;
 import pl.codehouse.restaurant.orders.request.RequestDto;
 import pl.codehouse.restaurant.orders.request.RequestService;
 import pl.codehouse.restaurant.orders.request.RequestStatus;
-import pl.codehouse.restaurant.orders.request.UpdatePreparedMenuItemsDto;
+import pl.codehouse.restaurant.orders.request.UpdatePreparedMenuItemsBatchDto;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
@@ -23,6 +24,7 @@ import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Mockito.never;
@@ -38,8 +40,9 @@ public class PackingCommandStepDefinitions {
 
     private final Shelf shelf = Mockito.mock(Shelf.class);
     private final RequestService requestService = Mockito.mock(RequestService.class);
-    private final ArgumentCaptor<UpdatePreparedMenuItemsDto> updatePreparedMenuItemsDtoArgumentCaptor = ArgumentCaptor.captor();
-    private final PackingCommand sut = new PackingCommand(shelf, requestService);
+    private final ArgumentCaptor<UpdatePreparedMenuItemsBatchDto> updatePreparedMenuItemsBatchDtoArgumentCaptor = ArgumentCaptor.captor();
+    private final WaitingRequestsIndex waitingRequestsIndex = new WaitingRequestsIndex(requestService);
+    private final PackingCommand sut = new PackingCommand(shelf, requestService, waitingRequestsIndex);
     private Mono<ExecutionResult<PackingActionResult>> executionResult;
 
     private int collectedItems, totalItems = 0;
@@ -77,7 +80,7 @@ public class PackingCommandStepDefinitions {
                 .toList();
 
         given(shelf.take(any())).willAnswer(new ReturnsElementsOf(responses));
-        given(requestService.updateCollectedItems(any())).willReturn(Mono.just(updatedRequestDto));
+        given(requestService.updateCollectedItemsInBatch(any())).willReturn(Mono.just(updatedRequestDto));
     }
 
     @Given("request containing Menu Items of type 'immediate'")
@@ -104,7 +107,7 @@ public class PackingCommandStepDefinitions {
         given(requestService.findById(REQUEST_ID))
                 .willReturn(Mono.just(initialRequestDto))
                 .willReturn(Mono.just(updatedRequestDto));
-        given(requestService.updateCollectedItems(any())).willReturn(Mono.just(updatedRequestDto));
+        given(requestService.updateCollectedItemsInBatch(any())).willReturn(Mono.just(updatedRequestDto));
     }
 
     @When("packing request")
@@ -127,17 +130,26 @@ public class PackingCommandStepDefinitions {
                 .verifyComplete();
     }
 
-    @And("requested menu items where updated {int} times by {int}")
-    public void and_RequestedMenuItemsWhereUpdatedByX(int updatedCollectedItems, int itemsTakenFromShelf) {
-        then(requestService).should(times(updatedCollectedItems)).updateCollectedItems(updatePreparedMenuItemsDtoArgumentCaptor.capture());
+    @And("requested menu items where updated once with {int} menu items prepared by {int}")
+    public void and_RequestedMenuItemsWhereUpdatedOnceByX(int updatedMenuItems, int itemsTakenFromShelf) {
+        then(requestService).should(times(1)).updateCollectedItemsInBatch(updatePreparedMenuItemsBatchDtoArgumentCaptor.capture());
 
         List<Integer> collectedMenuItemIds = IntStream.range(0, collectedItems).mapToObj(i -> MENU_ITEM_1_ID + i).toList();
-        List<UpdatePreparedMenuItemsDto> capturedValues = updatePreparedMenuItemsDtoArgumentCaptor.getAllValues();
-        assertThat(capturedValues)
-                .hasSize(collectedItems)
-                .allSatisfy(updateDto -> assertThat(updateDto).hasFieldOrPropertyWithValue("preparedQuantity", itemsTakenFromShelf))
-                .extracting(UpdatePreparedMenuItemsDto::menuItemId)
-                .containsAll(collectedMenuItemIds);
+        UpdatePreparedMenuItemsBatchDto capturedValue = updatePreparedMenuItemsBatchDtoArgumentCaptor.getValue();
+        assertThat(capturedValue.requestId()).isEqualTo(REQUEST_ID);
+        assertThat(capturedValue.preparedQuantities())
+                .hasSize(updatedMenuItems)
+                .containsOnlyKeys(collectedMenuItemIds)
+                .allSatisfy((menuItemId, preparedQuantity) -> assertThat(preparedQuantity).isEqualTo(itemsTakenFromShelf));
+    }
+
+    @And("request is waiting for {int} missing menu items")
+    public void and_RequestIsWaitingForMissingMenuItems(int missingMenuItems) {
+        List<Integer> waitingMenuItemIds = IntStream.range(collectedItems, totalItems).mapToObj(i -> MENU_ITEM_1_ID + i).toList();
+        given(requestService.findRequestIdsWaitingFor(anyInt())).willReturn(Flux.empty());
+        assertThat(waitingMenuItemIds).hasSize(missingMenuItems);
+        assertThat(waitingMenuItemIds).allSatisfy(menuItemId -> assertThat(waitingRequestsIndex.drain(menuItemId).block()).containsExactly(REQUEST_ID));
+        assertThat(waitingRequestsIndex.drain(MENU_ITEM_1_ID).block()).isEmpty();
     }
 
     @And("no items where picked from shelf")
@@ -2,6 +2,7 @@ package pl.codehouse.restaurant.orders.shelf;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.BDDMockito.given;
@@ -14,7 +15,6 @@ import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_
 import static pl.codehouse.restaurant.orders.request.MenuItemEntityBuilder.MENU_ITEM_2_NAME;
 import static pl.codehouse.restaurant.orders.request.RequestMenuItemBuilder.aRequestMenuItemOne;
 import static pl.codehouse.restaurant.orders.request.RequestMenuItemBuilder.aRequestMenuItemTwo;
-import static pl.codehouse.restaurant.orders.shelf.ShelfBuilder.aShelf;
 
 import io.cucumber.java.Before;
 import io.cucumber.java.ParameterType;
@@ -22,10 +22,7 @@ import io.cucumber.java.en.And;
 import io.cucumber.java.en.Given;
 import io.cucumber.java.en.Then;
 import io.cucumber.java.en.When;
-import java.time.Clock;
-import java.time.Instant;
-import java.time.LocalDateTime;
-import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.lang3.BooleanUtils;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
@@ -34,15 +31,10 @@ import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 public class ShelfBOStepDefinitions {
-    private static final long UPDATED_VERSION_VALUE = 1L;
-
-    private final Clock clock = Clock.fixed(Instant.parse("2024-10-05T15:15:30.00Z"), ZoneOffset.UTC);
-    private final LocalDateTime updatedAt = LocalDateTime.now(clock);
-
     private ShelfService shelfService;
     private KitchenWorkerRequestPublisher workerRequestPublisher;
-    private ArgumentCaptor<ShelfEntity> shelfEntityArgumentCaptor;
     private ArgumentCaptor<RequestMenuItem> requestMenuItemArgumentCaptor;
+    private AtomicInteger shelfQuantity;
     private Shelf sut;
 
     private Mono<ShelfTakeResult> executionResult;
@@ -51,37 +43,19 @@ public class ShelfBOStepDefinitions {
     public void setUp() {
         shelfService = Mockito.mock(ShelfService.class);
         workerRequestPublisher = Mockito.mock(KitchenWorkerRequestPublisher.class);
-        shelfEntityArgumentCaptor = ArgumentCaptor.forClass(ShelfEntity.class);
         requestMenuItemArgumentCaptor = ArgumentCaptor.forClass(RequestMenuItem.class);
-        sut = new Shelf(clock, shelfService, workerRequestPublisher);
+        shelfQuantity = new AtomicInteger();
+        sut = new Shelf(shelfService, workerRequestPublisher);
     }
 
     @Given("the shelf contains {int} menu items from request")
     public void given_ShelfContainsXMenuItemsFromRequest(int shelfItems) {
-        given(shelfService.save(any())).willReturn(Mono.just(aShelf().build()));
-
-        ShelfEntity shelfEntity = aShelf()
-                .aShelfWithAvailableMenuItems()
-                .withMenuId(MENU_ITEM_1_ID)
-                .withName(MENU_ITEM_1_NAME)
-                .withItemsQuantity(shelfItems)
-                .build();
-        given(shelfService.findByMenuItem(any(RequestMenuItem.class))).willReturn(Mono.defer(() -> Mono.just(shelfEntity)));
+        givenShelfWith(shelfItems);
     }
 
     @Given("shelf not containing any items")
     public void shelfNotContainingAnyItems() {
-        ShelfEntity shelfEntity = aShelf()
-                .newShelfEntity()
-                .withMenuId(MENU_ITEM_2_ID)
-                .withName(MENU_ITEM_2_NAME)
-                .withItemsQuantity(0)
-                .build();
-        given(shelfService.findByMenuItem(any(RequestMenuItem.class))).willReturn(Mono.just(shelfEntity));
-        given(shelfService.save(any())).willAnswer(invocation -> {
-            ShelfEntity savedEntity = invocation.getArgument(0);
-            return Mono.just(savedEntity);
-        });
+        givenShelfWith(0);
     }
 
     @When("handling requested {int} Menu Items")
@@ -105,37 +79,24 @@ public class ShelfBOStepDefinitions {
 
     @Then("new shelf item should be created with {int} menu items")
     public void newShelfItemShouldBeCreatedWithMenuItems(int expectedQuantity) {
-        then(shelfService).should(times(1)).findByMenuItem(requestMenuItemArgumentCaptor.capture());
-        then(shelfService).should(times(1)).save(shelfEntityArgumentCaptor.capture());
+        then(shelfService).should(times(1)).take(requestMenuItemArgumentCaptor.capture(), anyInt());
 
         assertThat(requestMenuItemArgumentCaptor.getValue())
                 .hasFieldOrPropertyWithValue("menuItemId", MENU_ITEM_2_ID)
                 .hasFieldOrPropertyWithValue("menuItemName", MENU_ITEM_2_NAME);
-
-        assertThat(shelfEntityArgumentCaptor.getValue())
-                .hasFieldOrPropertyWithValue("menuItemId", MENU_ITEM_2_ID)
-                .hasFieldOrPropertyWithValue("itemName", MENU_ITEM_2_NAME)
-                .hasFieldOrPropertyWithValue("quantity", expectedQuantity)
-                .hasFieldOrPropertyWithValue("updatedAt", updatedAt)
-                .hasFieldOrPropertyWithValue("version", UPDATED_VERSION_VALUE);
+        assertThat(shelfQuantity.get()).isEqualTo(expectedQuantity);
     }
 
     @And("shelf should be updated with {int} menu items taken for request")
-    public void and_ShelfShouldBeUpdatedWithXMenuItemsTakenForRequestAndVersionShouldBeUpdated(int collectedItems) {
-        then(shelfService).should(times(1)).findByMenuItem(requestMenuItemArgumentCaptor.capture());
-        then(shelfService).should(times(1)).save(shelfEntityArgumentCaptor.capture());
+    public void and_ShelfShouldBeUpdatedWithXMenuItemsTakenForRequest(int remainingItems) {
+        then(shelfService).should(times(1)).take(requestMenuItemArgumentCaptor.capture(), anyInt());
 
-        assertThat(requestMenuItemArgumentCaptor.getValue())
+        RequestMenuItem requestedMenuItem = requestMenuItemArgumentCaptor.getValue();
+        assertThat(requestedMenuItem)
                 .hasFieldOrPropertyWithValue("menuItemId", MENU_ITEM_1_ID)
                 .hasFieldOrPropertyWithValue("menuItemName", MENU_ITEM_1_NAME);
-
-        long expectedVersion = 2;
-        assertThat(shelfEntityArgumentCaptor.getValue())
-                .hasFieldOrPropertyWithValue("menuItemId", MENU_ITEM_1_ID)
-                .hasFieldOrPropertyWithValue("itemName", MENU_ITEM_1_NAME)
-                .hasFieldOrPropertyWithValue("quantity", collectedItems)
-                .hasFieldOrPropertyWithValue("version", expectedVersion)
-                .hasFieldOrPropertyWithValue("updatedAt", updatedAt);
+        then(shelfService).should(times(1)).take(requestedMenuItem, requestedMenuItem.remainingItems());
+        assertThat(shelfQuantity.get()).isEqualTo(remainingItems);
     }
 
     @And("request Status should be set to {packingStatus}")
@@ -154,6 +115,18 @@ public class ShelfBOStepDefinitions {
         then(workerRequestPublisher).should(times(1)).publishRequest(any(RequestMenuItem.class), eq(menuItemsRequested));
     }
 
+    private void givenShelfWith(int shelfItems) {
+        shelfQuantity.set(shelfItems);
+        given(shelfService.take(any(RequestMenuItem.class), anyInt())).willAnswer(invocation -> {
+            int requested = invocation.getArgument(1);
+            return Mono.fromSupplier(() -> {
+                int taken = Math.min(shelfQuantity.get(), requested);
+                shelfQuantity.addAndGet(-taken);
+                return taken;
+            });
+        });
+    }
+
     @ParameterType("READY_TO_COLLECT|REQUESTED_ITEMS")
     public PackingStatus packingStatus(String status) {
         return PackingStatus.valueOf(status);
@@ -0,0 +1,266 @@
+package pl.codehouse.restaurant.orders.shelf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+import pl.codehouse.restaurant.orders.Context;
+import pl.codehouse.restaurant.orders.ExecutionResult;
+import pl.codehouse.restaurant.orders.PipelineContext;
+import pl.codehouse.restaurant.orders.PipelineMetrics;
+import pl.codehouse.restaurant.orders.request.EventType;
+import pl.codehouse.restaurant.orders.request.PackingActionResult;
+import pl.codehouse.restaurant.orders.request.RequestService;
+import pl.codehouse.restaurant.orders.request.RequestStatus;
+import pl.codehouse.restaurant.orders.request.ShelfEventDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+@ExtendWith(MockitoExtension.class)
+class ShelfEventListenerTest {
+    private static final int REQUEST_ID = 1111;
+    private static final int OTHER_REQUEST_ID = 1112;
+    private static final int THIRD_REQUEST_ID = 1113;
+    private static final int MENU_ITEM_ID = 101;
+    private static final int OTHER_MENU_ITEM_ID = 102;
+    private static final long VERIFY_TIMEOUT_MS = 1000;
+    private static final Instant CREATED_AT = Instant.parse("2024-09-01T12:00:00Z");
+    private static final Duration PIPELINE_LATENCY = Duration.ofMillis(250);
+
+    @Mock
+    private PackingCommand packingCommand;
+
+    @Mock
+    private ShelfService shelfService;
+
+    @Mock
+    private KitchenWorkerRequestPublisher workerRequestPublisher;
+
+    @Mock
+    private Acknowledgment firstAcknowledgment;
+
+    @Mock
+    private Acknowledgment secondAcknowledgment;
+
+    @Mock
+    private Acknowledgment otherRequestAcknowledgment;
+
+    @Mock
+    private RequestService requestService;
+
+    private WaitingRequestsIndex waitingRequestsIndex;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ShelfEventListener sut;
+
+    @BeforeEach
+    void setUp() {
+        waitingRequestsIndex = new WaitingRequestsIndex(requestService);
+        ShelfEventProcessingProperties properties =
+                new ShelfEventProcessingProperties(4, 16, ShelfEventProcessingProperties.ListenerMode.RECORD, 500, Duration.ofMillis(500));
+        PipelineMetrics pipelineMetrics = new PipelineMetrics(meterRegistry, Clock.fixed(CREATED_AT.plus(PIPELINE_LATENCY), ZoneOffset.UTC));
+        sut = new ShelfEventListener(packingCommand, shelfService, waitingRequestsIndex, workerRequestPublisher, pipelineMetrics, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sut.stopProcessing();
+    }
+
+    @Test
+    @DisplayName("should pack events of the same request in order and acknowledge them only after packing completed")
+    void should_PackEventsOfSameRequestInOrder_When_PreviousPackingIsInProgress() throws InterruptedException {
+        // given
+        Sinks.One<ExecutionResult<PackingActionResult>> firstPacking = Sinks.one();
+        given(packingCommand.execute(new Context<>(REQUEST_ID)))
+                .willReturn(firstPacking.asMono())
+                .willReturn(Mono.just(packedResult(REQUEST_ID)));
+        given(packingCommand.execute(new Context<>(OTHER_REQUEST_ID))).willReturn(Mono.just(packedResult(OTHER_REQUEST_ID)));
+
+        // when
+        sut.listen(shelfEvent(REQUEST_ID), Map.of(), firstAcknowledgment);
+        sut.listen(shelfEvent(REQUEST_ID), Map.of(), secondAcknowledgment);
+        sut.listen(shelfEvent(OTHER_REQUEST_ID), Map.of(), otherRequestAcknowledgment);
+
+        // then
+        then(otherRequestAcknowledgment).should(timeout(VERIFY_TIMEOUT_MS)).acknowledge();
+        then(packingCommand).should(times(1)).execute(new Context<>(REQUEST_ID));
+        then(firstAcknowledgment).should(never()).acknowledge();
+        then(secondAcknowledgment).should(never()).acknowledge();
+
+        // and when
+        firstPacking.tryEmitValue(packedResult(REQUEST_ID));
+
+        // then
+        then(firstAcknowledgment).should(timeout(VERIFY_TIMEOUT_MS)).acknowledge();
+        then(secondAcknowledgment).should(timeout(VERIFY_TIMEOUT_MS)).acknowledge();
+        then(packingCommand).should(times(2)).execute(new Context<>(REQUEST_ID));
+    }
+
+    @Test
+    @DisplayName("should acknowledge event when packing failed")
+    void should_AcknowledgeEvent_When_PackingFailed() throws InterruptedException {
+        // given
+        given(packingCommand.execute(any())).willReturn(Mono.error(new IllegalStateException("packing failed")));
+
+        // when
+        sut.listen(shelfEvent(REQUEST_ID), Map.of(), firstAcknowledgment);
+
+        // then
+        then(firstAcknowledgment).should(timeout(VERIFY_TIMEOUT_MS)).acknowledge();
+    }
+
+    @Test
+    @DisplayName("should skip and acknowledge event of a new request without request ID")
+    void should_SkipEvent_When_RequestIdIsMissing() throws InterruptedException {
+        // given
+        ShelfEventDto eventWithoutRequestId = new ShelfEventDto(EventType.NEW_REQUEST, null, -1, -1);
+
+        // when
+        sut.listen(eventWithoutRequestId, Map.of(), firstAcknowledgment);
+
+        // then
+        then(firstAcknowledgment).should(times(1)).acknowledge();
+        then(packingCommand).should(never()).execute(any());
+    }
+
+    @Test
+    @DisplayName("should release in-flight event when it could not be handed over for packing")
+    void should_ReleaseInFlightEvent_When_HandingOverFailed() {
+        // given
+        ShelfEventProcessingProperties properties =
+                new ShelfEventProcessingProperties(1, 1, ShelfEventProcessingProperties.ListenerMode.RECORD, 500, Duration.ofMillis(500));
+        PipelineMetrics pipelineMetrics = new PipelineMetrics(meterRegistry, Clock.fixed(CREATED_AT, ZoneOffset.UTC));
+        ShelfEventListener listener =
+                new ShelfEventListener(packingCommand, shelfService, waitingRequestsIndex, workerRequestPublisher, pipelineMetrics, properties);
+        willThrow(new IllegalStateException("publisher failed")).given(workerRequestPublisher).itemsAddedOnShelf(MENU_ITEM_ID, 1);
+        given(packingCommand.execute(new Context<>(REQUEST_ID))).willReturn(Mono.just(packedResult(REQUEST_ID)));
+
+        try {
+            // when
+            assertThatThrownBy(() -> listener.listen(itemAddedEvent(MENU_ITEM_ID), Map.of(), firstAcknowledgment))
+                    .isInstanceOf(IllegalStateException.class);
+            assertTimeoutPreemptively(Duration.ofMillis(VERIFY_TIMEOUT_MS), () -> listener.listen(shelfEvent(REQUEST_ID), Map.of(), secondAcknowledgment));
+
+            // then
+            then(secondAcknowledgment).should(timeout(VERIFY_TIMEOUT_MS)).acknowledge();
+            then(firstAcknowledgment).should(never()).acknowledge();
+        } finally {
+            listener.stopProcessing();
+        }
+    }
+
+    @Test
+    @DisplayName("should add items on shelf and then re-pack only requests waiting for the menu item, in the order they started waiting")
+    void should_RepackWaitingRequestsInOrder_When_ItemAddedOnShelf() throws InterruptedException {
+        // given
+        waitingRequestsIndex.register(MENU_ITEM_ID, OTHER_REQUEST_ID);
+        waitingRequestsIndex.register(MENU_ITEM_ID, REQUEST_ID);
+        waitingRequestsIndex.register(OTHER_MENU_ITEM_ID, THIRD_REQUEST_ID);
+        given(shelfService.restock(MENU_ITEM_ID, 1)).willReturn(Mono.empty());
+        given(requestService.findRequestIdsWaitingFor(MENU_ITEM_ID)).willReturn(Flux.just(REQUEST_ID), Flux.empty());
+        Sinks.One<ExecutionResult<PackingActionResult>> firstPacking = Sinks.one();
+        given(packingCommand.execute(new Context<>(OTHER_REQUEST_ID))).willReturn(firstPacking.asMono());
+        given(packingCommand.execute(new Context<>(REQUEST_ID))).willReturn(Mono.just(packedResult(REQUEST_ID)));
+
+        // when
+        sut.listen(itemAddedEvent(MENU_ITEM_ID), Map.of(), firstAcknowledgment);
+
+        // then
+        InOrder restockBeforePacking = inOrder(shelfService, packingCommand);
+        restockBeforePacking.verify(shelfService, timeout(VERIFY_TIMEOUT_MS)).restock(MENU_ITEM_ID, 1);
+        restockBeforePacking.verify(packingCommand, timeout(VERIFY_TIMEOUT_MS)).execute(new Context<>(OTHER_REQUEST_ID));
+        then(packingCommand).should(never()).execute(new Context<>(REQUEST_ID));
+        then(firstAcknowledgment).should(never()).acknowledge();
+
+        // and when
+        firstPacking.tryEmitValue(packedResult(OTHER_REQUEST_ID));
+
+        // then
+        then(packingCommand).should(timeout(VERIFY_TIMEOUT_MS)).execute(new Context<>(REQUEST_ID));
+        then(firstAcknowledgment).should(timeout(VERIFY_TIMEOUT_MS)).acknowledge();
+        then(packingCommand).should(never()).execute(new Context<>(THIRD_REQUEST_ID));
+        assertThat(waitingRequestsIndex.drain(MENU_ITEM_ID).block()).isEmpty();
+        then(workerRequestPublisher).should(times(1)).itemsAddedOnShelf(MENU_ITEM_ID, 1);
+    }
+
+    @Test
+    @DisplayName("should re-pack stored requests waiting for the menu item added on shelf when they were not registered in the index")
+    void should_RepackStoredWaitingRequests_When_IndexWasLost() throws InterruptedException {
+        // given
+        given(shelfService.restock(MENU_ITEM_ID, 1)).willReturn(Mono.empty());
+        given(requestService.findRequestIdsWaitingFor(MENU_ITEM_ID)).willReturn(Flux.just(REQUEST_ID, OTHER_REQUEST_ID));
+        given(packingCommand.execute(new Context<>(REQUEST_ID))).willReturn(Mono.just(packedResult(REQUEST_ID)));
+        given(packingCommand.execute(new Context<>(OTHER_REQUEST_ID))).willReturn(Mono.just(packedResult(OTHER_REQUEST_ID)));
+
+        // when
+        sut.listen(itemAddedEvent(MENU_ITEM_ID), Map.of(), firstAcknowledgment);
+
+        // then
+        then(firstAcknowledgment).should(timeout(VERIFY_TIMEOUT_MS)).acknowledge();
+        InOrder packingOrder = inOrder(packingCommand);
+        packingOrder.verify(packingCommand).execute(new Context<>(REQUEST_ID));
+        packingOrder.verify(packingCommand).execute(new Context<>(OTHER_REQUEST_ID));
+    }
+
+    @Test
+    @DisplayName("should pack new request within its pipeline context and record the stages it reached")
+    void should_PackWithinPipelineContextAndRecordStages_When_EventCarriesPipelineHeaders() throws InterruptedException {
+        // given
+        PipelineContext pipelineContext = new PipelineContext(CREATED_AT, "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01");
+        Sinks.One<PipelineContext> packingContext = Sinks.one();
+        given(packingCommand.execute(new Context<>(REQUEST_ID))).willReturn(Mono.deferContextual(contextView -> {
+            packingContext.tryEmitValue(PipelineContext.current(contextView).orElse(null));
+            return Mono.just(packedResult(REQUEST_ID));
+        }));
+
+        // when
+        sut.listen(shelfEvent(REQUEST_ID), Map.copyOf(pipelineContext.toHeaders()), firstAcknowledgment);
+
+        // then
+        then(firstAcknowledgment).should(timeout(VERIFY_TIMEOUT_MS)).acknowledge();
+        assertThat(packingContext.asMono().block(Duration.ofMillis(VERIFY_TIMEOUT_MS))).isEqualTo(pipelineContext);
+        assertThat(meterRegistry.get("request.pipeline.stage").tag("stage", "shelf-event-received").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isEqualTo((double) PIPELINE_LATENCY.toMillis());
+        assertThat(meterRegistry.get("request.pipeline.stage").tag("stage", "packed").timer().count()).isEqualTo(1);
+    }
+
+    private static ShelfEventDto itemAddedEvent(int menuItemId) {
+        return new ShelfEventDto(EventType.ITEM_ADDED_ON_SHELF, null, menuItemId, 1);
+    }
+
+    private static ShelfEventDto shelfEvent(int requestId) {
+        return ShelfEventDto.newRequestEvent(requestId);
+    }
+
+    private static ExecutionResult<PackingActionResult> packedResult(int requestId) {
+        return ExecutionResult.success(new PackingActionResult(requestId, 1, 1, RequestStatus.READY_TO_COLLECT));
+    }
+}
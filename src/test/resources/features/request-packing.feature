@@ -7,11 +7,12 @@ Feature: Packing menu items
     Given <collected menu items> out of <total menu items> total menu items got collected from shelf
     When packing request
     Then request status should be set to <expected request status>
-    And requested menu items where updated <collected menu items> times by 1
+    And requested menu items where updated once with <collected menu items> menu items prepared by 1
+    And request is waiting for <missing menu items> missing menu items
     Examples:
-      | collected menu items | total menu items | expected request status |
-      | 3                    | 3                | READY_TO_COLLECT        |
-      | 1                    | 3                | IN_PROGRESS             |
+      | collected menu items | total menu items | missing menu items | expected request status |
+      | 3                    | 3                | 0                  | READY_TO_COLLECT        |
+      | 1                    | 3                | 2                  | IN_PROGRESS             |
 
 
 